@@ -1,12 +1,25 @@
 package app;
 
+import app.controller.FilterPipeline;
 import app.controller.MainController;
 import app.model.Candidature;
 import app.model.DocumentFile;
 import app.model.StatutCandidature;
+import app.service.CandidatureFacetIndex;
+import app.service.CandidatureMatcher;
+import app.service.CandidatureSearchIndex;
 import app.service.CandidatureService;
+import app.service.CandidatureTimeline;
+import app.service.DocumentHashIndex;
+import app.service.DocumentMetadataService;
 import app.service.FileSystemService;
+import app.service.InboxWatcher;
+import app.service.MailDateExtractor;
+import app.service.MailImportService;
+import app.service.PdfAnalysis;
+import app.service.PdfBatchImporter;
 import app.service.PdfImportService;
+import app.service.PdfTextExtractor;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
@@ -14,19 +27,29 @@ import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Cursor;
 import javafx.scene.Scene;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.TextFieldTableCell;
+import javafx.util.StringConverter;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
@@ -42,11 +65,15 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainApp extends Application {
 
@@ -61,12 +88,19 @@ public class MainApp extends Application {
                     Comparator.nullsLast(Comparator.reverseOrder())
             );
 
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d MMMM yyyy 'à' HH:mm", Locale.FRENCH );
-    private final Pattern dateTimePattern = Pattern.compile(
-            "(\\d{1,2}\\s(?:janvier|février|mars|avril|mai|juin|juillet|août|septembre|octobre|novembre|décembre)\\s\\d{4}\\sà\\s\\d{1,2}:\\d{2})", Pattern.CASE_INSENSITIVE );
 
     private FilteredList<Candidature> filteredCandidatures;
     private SortedList<Candidature> sortedCandidatures;
+    private CandidatureSearchIndex searchIndex;
+    private CandidatureFacetIndex facetIndex;
+    private CandidatureMatcher matcher;
+    private FilterPipeline filterPipeline;
+    private boolean filterRefreshPending;
+
+    private InboxWatcher inboxWatcher;
+    private final ObservableList<PdfAnalysis> inboxFiles = FXCollections.observableArrayList();
+    private final Map<Path, CandidatureMatcher.Result> inboxMatches = new HashMap<>();
+    private ExecutorService inboxMatching;
 
 
     @Override
@@ -200,7 +234,6 @@ public class MainApp extends Application {
         colNotes.setOnEditCommit(event -> {
             Candidature c = event.getRowValue();
             c.setNotes(event.getNewValue());
-            controller.save();
         });
 
 // Colonne Date de relance
@@ -210,7 +243,6 @@ public class MainApp extends Application {
         colRelance.setOnEditCommit(event -> {
             Candidature c = event.getRowValue();
             c.setDateRelance(event.getNewValue());
-            controller.save();
         });
 
 // Colonne Temps écoulé depuis envoi
@@ -229,7 +261,13 @@ public class MainApp extends Application {
 
 
 
-        controller = new MainController(table);
+        controller = MainController.create(table);
+        searchIndex = new CandidatureSearchIndex(controller.getRowIds());
+        controller.addListener(searchIndex);
+        facetIndex = new CandidatureFacetIndex(controller.getRowIds());
+        controller.addListener(facetIndex);
+        matcher = new CandidatureMatcher(controller.getRowIds());
+        controller.addListener(matcher);
 
         filteredCandidatures =
                 new FilteredList<>(controller.getCandidatures(), c -> true);
@@ -240,23 +278,54 @@ public class MainApp extends Application {
         sortedCandidatures.comparatorProperty().bind(table.comparatorProperty());
         table.setItems(sortedCandidatures);
 
+        // Enregistré après les index : il les interroge pour les lignes modifiées
+        filterPipeline = new FilterPipeline(filteredCandidatures, controller.getRowIds(),
+                searchIndex, facetIndex, controller.getPdfTextIndex());
+        controller.addListener(filterPipeline);
+
 
 
 
         /* ========================= PDF VIEWER ========================= */
-        pdfViewerPane = new PdfViewerPane(FXCollections.observableArrayList(), controller);
+        pdfViewerPane = PdfViewerPane.create();
 
         MenuItem importPdfDoc = new MenuItem("Importer PDF");
+        MenuItem importPdfFiles = new MenuItem("Importer plusieurs PDF...");
+        MenuItem importPdfFolder = new MenuItem("Importer un dossier de PDF...");
         MenuItem changeDate = new MenuItem("Modifier date");
         MenuItem deleteDoc = new MenuItem("Supprimer");
 
-        ContextMenu docMenu = new ContextMenu(importPdfDoc, changeDate, deleteDoc);
+        ContextMenu docMenu = new ContextMenu(importPdfDoc, importPdfFiles, importPdfFolder, changeDate, deleteDoc);
 
         // Menu contextuel PDF
         importPdfDoc.setOnAction(e -> {
             importPdf(stage);  // On réutilise ta méthode existante
         });
 
+        importPdfFiles.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF", "*.pdf"));
+            List<File> files = chooser.showOpenMultipleDialog(stage);
+            if (files != null && !files.isEmpty()) {
+                importPdfBatch(stage, files.stream().map(File::toPath).toList());
+            }
+        });
+
+        importPdfFolder.setOnAction(e -> {
+            File dir = new DirectoryChooser().showDialog(stage);
+            if (dir == null) return;
+            try {
+                List<Path> files = PdfBatchImporter.listPdfs(dir.toPath());
+                if (files.isEmpty()) {
+                    new Alert(Alert.AlertType.INFORMATION, "Aucun PDF dans ce dossier.").showAndWait();
+                } else {
+                    importPdfBatch(stage, files);
+                }
+            } catch (IOException ex) {
+                new Alert(Alert.AlertType.ERROR, "Dossier illisible : " + ex.getMessage()).showAndWait();
+            }
+        });
+
 //        changeType.setOnAction(e -> {
 //            DocumentFile doc = pdfViewerPane.getPdfListView().getSelectionModel().getSelectedItem();
 //            if (doc == null) return;
@@ -287,10 +356,10 @@ public class MainApp extends Application {
                 if (btn == ButtonType.OK) {
                     try { Files.deleteIfExists(doc.getFichier()); } catch (IOException ignored) {}
                     Candidature cand = table.getSelectionModel().getSelectedItem();
-                    if (cand != null) cand.getDocuments().remove(doc);
+                    if (cand != null) {
+                        cand.retirerDocument(doc);
+                    }
                     pdfViewerPane.getPdfListView().getItems().remove(doc);
-                    controller.save();
-                    table.refresh();
                 }
             });
         });
@@ -320,10 +389,8 @@ public class MainApp extends Application {
 
             dialog.showAndWait().ifPresent(newDate -> {
                 doc.setDateMail(newDate);
-                controller.save();
                 Candidature cand = table.getSelectionModel().getSelectedItem();
                 if (cand != null) {
-
                     var sortedDocs = FXCollections.observableArrayList(cand.getDocuments());
                     sortedDocs.sort((d1, d2) -> {
                         LocalDateTime dt1 = d1.getDateMail() != null ? d1.getDateMail() : LocalDateTime.MIN;
@@ -377,18 +444,10 @@ public class MainApp extends Application {
         /* ========================= TOOLBAR ========================= */
 // 1️⃣ Déclaration UI
         TextField searchField = new TextField();
-        searchField.setPromptText("Rechercher entreprise ou poste...");
+        searchField.setPromptText("Rechercher (entreprise, poste, notes, PDF)...");
 
         searchField.setPrefWidth(250);
 
-        searchField.textProperty().addListener((obs, old, text) -> {
-            filteredCandidatures.setPredicate(c -> {
-                if (text == null || text.isBlank()) return true;
-                String lower = text.toLowerCase();
-                return c.getEntreprise().toLowerCase().contains(lower)
-                        || c.getPoste().toLowerCase().contains(lower);
-            });
-        });
 
         ChoiceBox<StatutCandidature> statutFilter =
                 new ChoiceBox<>(FXCollections.observableArrayList(StatutCandidature.values()));
@@ -396,19 +455,26 @@ public class MainApp extends Application {
         statutFilter.setValue(StatutCandidature.TOUTES);
 
 
-        statutFilter.getSelectionModel().selectedItemProperty().addListener((obs, old, selected) -> {
-            filteredCandidatures.setPredicate(c -> {
-                if (selected == null || selected == StatutCandidature.TOUTES) {
-                    return true;
-                }
-                return c.getStatut() == selected;
-            });
-        });
-
-
         Button addCandidature = new Button("Nouvelle candidature");
         addCandidature.setOnAction(e -> createCandidature(stage));
 
+        MenuItem exportJson = new MenuItem("Exporter JSON...");
+        exportJson.setOnAction(e -> exportJson(stage));
+        MenuItem importJson = new MenuItem("Importer JSON...");
+        importJson.setOnAction(e -> importJson(stage));
+        MenuItem duplicates = new MenuItem("Doublons...");
+        duplicates.setOnAction(e -> showDuplicates(stage));
+        MenuItem importMbox = new MenuItem("Importer des mails (mbox)...");
+        importMbox.setOnAction(e -> importMails(stage, false));
+        MenuItem importEml = new MenuItem("Importer un dossier de mails (.eml)...");
+        importEml.setOnAction(e -> importMails(stage, true));
+        MenuButton dataMenu = new MenuButton("Données", null, exportJson, importJson, importMbox, importEml,
+                duplicates);
+
+        MenuButton inboxMenu = new MenuButton();
+        inboxMenu.textProperty().bind(Bindings.size(inboxFiles).asString("Dépôt (%d)"));
+        inboxMenu.setOnShowing(e -> inboxMenu.getItems().setAll(buildInboxItems(stage)));
+
         Button rapportStatBtn = new Button("Rapport Stat");
         rapportStatBtn.setOnAction(e -> showStatWindow());
 
@@ -430,6 +496,8 @@ public class MainApp extends Application {
         root.setTop(new ToolBar(
                 addCandidature,
                 rapportStatBtn,
+                dataMenu,
+                inboxMenu,
                 new Separator(),
                 new Label("Filtre :"),
                 statutFilter,
@@ -455,6 +523,19 @@ public class MainApp extends Application {
         responseFilter.selectedProperty().addListener((obs, old, val) ->
                 updatePredicate(filteredCandidatures, searchField, statutFilter, moisFilter, pdfFilter, responseFilter));
 
+// 4️⃣ Documents indexés en arrière-plan : relancer la recherche en cours
+        controller.getPdfTextIndex().setOnUpdate(() -> Platform.runLater(() -> {
+            if (!searchField.getText().isBlank()) scheduleFilterRefresh();
+        }));
+
+// 5️⃣ Nombre de lignes par option, publié avec chaque résultat
+        filterPipeline.setOnCounts(counts -> {
+            updateFacetCounts(counts, statutFilter, moisFilter, pdfFilter, responseFilter);
+            searchField.setTooltip(new Tooltip("Recherche : " + filterPipeline.getInputLatency()
+                    + "\nÉvaluation : " + filterPipeline.getEvaluationLatency()));
+        });
+        updatePredicate(filteredCandidatures, searchField, statutFilter, moisFilter, pdfFilter, responseFilter);
+
 
         /* ========================= SELECTION ========================= */
         table.getSelectionModel().selectedItemProperty().addListener((obs, old, c) -> {
@@ -480,11 +561,12 @@ public class MainApp extends Application {
             }
         });
 
-        Platform.runLater(this::renameAllFolders);
+        // Les candidatures arrivent par lots : ces actions attendent la fin du chargement
+        controller.whenLoaded(this::renameAllFolders);
 
 
         // Sélectionner la première candidature
-        Platform.runLater(() -> {
+        controller.whenLoaded(() -> {
             if (!table.getItems().isEmpty()) {
                 table.getSelectionModel().select(0);
             }
@@ -503,6 +585,7 @@ public class MainApp extends Application {
 //        }
         stage.show();
         Platform.runLater(() -> centerStage(stage));
+        startInbox();
 
     }
 
@@ -540,15 +623,11 @@ public class MainApp extends Application {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(updated -> {
-            controller.save();
-            table.refresh();
-        });
+        // Les setters émettent les événements : sauvegarde et rafraîchissement de la ligne suivent
+        dialog.showAndWait();
     }
 
     private void showStatWindow() {
-        CandidatureService service = new CandidatureService(table.getItems());
-
         Stage statStage = new Stage();
         statStage.setTitle("Rapport Statistiques Candidatures");
 
@@ -556,22 +635,40 @@ public class MainApp extends Application {
         root.setPadding(new Insets(15));
 
         VBox topBox = new VBox(10);
-        Label totalLabel = new Label("Total candidatures : " + service.getTotal());
-        long reponses = service.countByStatut(StatutCandidature.ENTRETIEN)
-                + service.countByStatut(StatutCandidature.REFUS);
-        Label reponseLabel = new Label("Réponses reçues : " + reponses);
-        topBox.getChildren().addAll(totalLabel, reponseLabel);
+        Label totalLabel = new Label();
+        Label reponseLabel = new Label();
+        CheckBox filteredOnly = new CheckBox("Candidatures affichées uniquement");
+        topBox.getChildren().addAll(totalLabel, reponseLabel, filteredOnly);
 
         PieChart pieChart = new PieChart();
-        pieChart.getData().addAll(
-                new PieChart.Data("Acceptées", service.countByStatut(StatutCandidature.ENTRETIEN)),
-                new PieChart.Data("Refusées", service.countByStatut(StatutCandidature.REFUS)),
-                new PieChart.Data("En attente", service.countByStatut(StatutCandidature.EN_ATTENTE))
-        );
+
+        Runnable refresh = () -> {
+            // Toutes : compteurs déjà tenus à jour ; affichées : une seule passe sur le filtre
+            CandidatureService service = filteredOnly.isSelected()
+                    ? new CandidatureService(filteredCandidatures)
+                    : new CandidatureService(controller.getStats());
+
+            totalLabel.setText("Total candidatures : " + service.getTotal());
+            long reponses = service.countByStatut(StatutCandidature.ENTRETIEN)
+                    + service.countByStatut(StatutCandidature.REFUS);
+            reponseLabel.setText("Réponses reçues : " + reponses);
+
+            pieChart.getData().setAll(
+                    new PieChart.Data("Acceptées", service.countByStatut(StatutCandidature.ENTRETIEN)),
+                    new PieChart.Data("Refusées", service.countByStatut(StatutCandidature.REFUS)),
+                    new PieChart.Data("En attente", service.countByStatut(StatutCandidature.EN_ATTENTE))
+            );
+        };
+        filteredOnly.selectedProperty().addListener((obs, old, val) -> refresh.run());
+        refresh.run();
 
         // Permet au PieChart de prendre tout l’espace disponible
         root.setTop(topBox);
-        root.setCenter(pieChart);
+        root.setCenter(new TabPane(
+                new Tab("Répartition", pieChart),
+                new Tab("Évolution", buildTimelinePane())
+        ));
+        ((TabPane) root.getCenter()).setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
 
         Scene scene = new Scene(root, 800, 600); // taille initiale plus grande
         statStage.setScene(scene);
@@ -586,6 +683,105 @@ public class MainApp extends Application {
 
 
 
+    /* ========================= STATISTIQUES DANS LE TEMPS ========================= */
+    // Séries lues dans les seaux pré-agrégés : aucune candidature n'est parcourue
+    private BorderPane buildTimelinePane() {
+        CandidatureTimeline timeline = controller.getTimeline();
+
+        ChoiceBox<CandidatureTimeline.Granularity> granularity = new ChoiceBox<>(
+                FXCollections.observableArrayList(CandidatureTimeline.Granularity.values()));
+        granularity.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(CandidatureTimeline.Granularity g) {
+                if (g == null) return "";
+                return switch (g) {
+                    case DAY -> "Par jour";
+                    case WEEK -> "Par semaine";
+                    case MONTH -> "Par mois";
+                };
+            }
+
+            @Override
+            public CandidatureTimeline.Granularity fromString(String s) {
+                return null;
+            }
+        });
+        granularity.setValue(CandidatureTimeline.Granularity.WEEK);
+
+        ChoiceBox<String> period = new ChoiceBox<>(FXCollections.observableArrayList(
+                "3 derniers mois", "12 derniers mois", "Tout"));
+        period.setValue("12 derniers mois");
+
+        Label summary = new Label();
+
+        LineChart<String, Number> throughput = new LineChart<>(new CategoryAxis(), new NumberAxis());
+        throughput.setTitle("Envois et réponses");
+        throughput.setCreateSymbols(false);
+        throughput.setAnimated(false);
+
+        BarChart<String, Number> outcomes = new BarChart<>(new CategoryAxis(), new NumberAxis());
+        outcomes.setTitle("Entretiens et refus");
+        outcomes.setAnimated(false);
+
+        LineChart<String, Number> delays = new LineChart<>(new CategoryAxis(), new NumberAxis());
+        delays.setTitle("Délai médian de première réponse (jours)");
+        delays.setLegendVisible(false);
+        delays.setAnimated(false);
+
+        Runnable refresh = () -> {
+            CandidatureTimeline.Granularity g = granularity.getValue();
+            LocalDate to = LocalDate.now();
+            LocalDate from = switch (period.getValue()) {
+                case "3 derniers mois" -> to.minusMonths(3);
+                case "12 derniers mois" -> to.minusMonths(12);
+                default -> timeline.firstDate() != null ? timeline.firstDate() : to;
+            };
+            if (timeline.lastDate() != null && timeline.lastDate().isAfter(to)) to = timeline.lastDate();
+
+            CandidatureTimeline.Point total = timeline.total(from, to);
+            summary.setText(String.format("%d envois, %d réponses (%.0f %%), %d entretiens, %d refus — délai médian : %s",
+                    total.sends(), total.responses(), total.responseRate() * 100, total.interviews(), total.refusals(),
+                    total.medianDaysToResponse() < 0 ? "—" : String.format("%.1f jours", total.medianDaysToResponse())));
+
+            XYChart.Series<String, Number> sends = new XYChart.Series<>();
+            sends.setName("Envois");
+            XYChart.Series<String, Number> responses = new XYChart.Series<>();
+            responses.setName("Réponses");
+            XYChart.Series<String, Number> interviews = new XYChart.Series<>();
+            interviews.setName("Entretiens");
+            XYChart.Series<String, Number> refusals = new XYChart.Series<>();
+            refusals.setName("Refus");
+            XYChart.Series<String, Number> median = new XYChart.Series<>();
+
+            DateTimeFormatter label = g == CandidatureTimeline.Granularity.MONTH
+                    ? DateTimeFormatter.ofPattern("MM/yyyy")
+                    : DateTimeFormatter.ofPattern("dd/MM/yy");
+            for (CandidatureTimeline.Point p : timeline.series(g, from, to)) {
+                String x = label.format(p.start());
+                sends.getData().add(new XYChart.Data<>(x, p.sends()));
+                responses.getData().add(new XYChart.Data<>(x, p.responses()));
+                interviews.getData().add(new XYChart.Data<>(x, p.interviews()));
+                refusals.getData().add(new XYChart.Data<>(x, p.refusals()));
+                if (p.medianDaysToResponse() >= 0) median.getData().add(new XYChart.Data<>(x, p.medianDaysToResponse()));
+            }
+            throughput.getData().setAll(List.of(sends, responses));
+            outcomes.getData().setAll(List.of(interviews, refusals));
+            delays.getData().setAll(List.of(median));
+        };
+        granularity.valueProperty().addListener((obs, old, val) -> refresh.run());
+        period.valueProperty().addListener((obs, old, val) -> refresh.run());
+        refresh.run();
+
+        VBox charts = new VBox(10, throughput, outcomes, delays);
+        for (var chart : charts.getChildren()) VBox.setVgrow(chart, Priority.ALWAYS);
+
+        BorderPane pane = new BorderPane(charts);
+        pane.setTop(new VBox(8, new HBox(10, granularity, period), summary));
+        pane.setPadding(new Insets(10, 0, 0, 0));
+        return pane;
+    }
+
+
     /* ========================= CREATE CANDIDATURE ========================= */
     private void createCandidature(Stage stage) {
         Dialog<Candidature> dialog = new Dialog<>();
@@ -663,6 +859,37 @@ public class MainApp extends Application {
         });
     }
 
+    /* ========================= IMPORT / EXPORT JSON ========================= */
+    private void exportJson(Stage stage) {
+        FileChooser chooser = new FileChooser();
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON", "*.json"));
+        chooser.setInitialFileName("candidatures.json");
+        File f = chooser.showSaveDialog(stage);
+        if (f == null) return;
+
+        try {
+            controller.exportJson(f.toPath());
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+            new Alert(Alert.AlertType.ERROR, "Export JSON impossible.").showAndWait();
+        }
+    }
+
+    private void importJson(Stage stage) {
+        FileChooser chooser = new FileChooser();
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON", "*.json"));
+        File f = chooser.showOpenDialog(stage);
+        if (f == null) return;
+
+        try {
+            int added = controller.importJson(f.toPath());
+            new Alert(Alert.AlertType.INFORMATION, added + " candidature(s) importée(s).").showAndWait();
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+            new Alert(Alert.AlertType.ERROR, "Import JSON impossible.").showAndWait();
+        }
+    }
+
     private void centerDialog(Dialog<?> dialog, Window owner) {
         dialog.initOwner(owner);
 
@@ -698,33 +925,38 @@ public class MainApp extends Application {
         new Thread(() -> {
             LocalDateTime dt = null;
             boolean found = false;
+            List<String> pages = null;
+            int pageCount = 0;
 
-            // 2️⃣ Lecture PDF + extraction date (votre méthode originale)
+            // 2️⃣ Lecture PDF : texte page par page (pour l'index), puis date du mail
             try (PDDocument document = PDDocument.load(f)) {
-                PDFTextStripper stripper = new PDFTextStripper();
-                String text = stripper.getText(document);
-
-                Matcher matcher = dateTimePattern.matcher(text);
-                while (matcher.find()) {
-                    String dateStr = matcher.group(1);
-                    try {
-                        dt = LocalDateTime.parse(dateStr, formatter);
-                        found = true;
-                    } catch (DateTimeParseException ignored) {}
-                }
+                pageCount = document.getNumberOfPages();
+                pages = PdfTextExtractor.extractPages(document);
+                dt = MailDateExtractor.DEFAULT.extract(pages);
+                found = dt != null;
             } catch (IOException ex) {
                 ex.printStackTrace();
             }
 
             // 3️⃣ Déplacer ou copier le fichier après fermeture PDF
+            // (empreinte calculée pendant le déplacement : un contenu déjà connu n'est pas recopié)
             DocumentFile doc = null;
+            PdfImportService.Imported imported = null;
             try {
-                doc = PdfImportService.importer(f.toPath(), c.getDossier(), dt);
+                imported = PdfImportService.importer(f.toPath(), c, dt, controller.getHashIndex(), null);
+                doc = imported.doc();
+                // Document déjà lu : métadonnées calculées ici, sans relecture par le rattrapage
+                if (doc != null && pages != null) {
+                    doc.setMetadata(DocumentMetadataService.compute(doc.getFichier(), pageCount, imported.sha256(), true));
+                }
+                // Texte déjà extrait : indexé sans relire le PDF (illisible : l'index le relira)
+                if (doc != null) controller.getPdfTextIndex().index(c.getId(), doc, pages);
             } catch (IOException e) {
                 e.printStackTrace();
             }
 
             DocumentFile finalDoc = doc;
+            PdfImportService.Imported finalImported = imported;
             boolean finalFound = found;
 
             // 4️⃣ Mettre à jour UI via Platform.runLater
@@ -732,8 +964,7 @@ public class MainApp extends Application {
                 stage.getScene().setCursor(Cursor.DEFAULT);
 
                 if (finalDoc != null) {
-                    c.getDocuments().add(finalDoc);
-                    controller.save();
+                    c.ajouterDocument(finalDoc);
 
                     var sortedDocs = FXCollections.observableArrayList(c.getDocuments());
                     sortedDocs.sort((d1, d2) -> {
@@ -748,7 +979,14 @@ public class MainApp extends Application {
                     }
                 }
 
-                if (!finalFound) {
+                if (finalImported != null && finalImported.outcome() == PdfImportService.Outcome.ALREADY_PRESENT) {
+                    new Alert(Alert.AlertType.INFORMATION, "Ce PDF est déjà rattaché à cette candidature ("
+                            + finalImported.duplicateOf().getNom() + ") : il n'a pas été ajouté une deuxième fois.")
+                            .showAndWait();
+                } else if (finalImported != null && finalImported.outcome() == PdfImportService.Outcome.LINKED) {
+                    new Alert(Alert.AlertType.INFORMATION, "Même contenu que " + finalImported.duplicateOf().getFichier()
+                            + " : lié sans copie (" + formatBytes(finalImported.bytes()) + " évités).").showAndWait();
+                } else if (!finalFound) {
                     new Alert(Alert.AlertType.INFORMATION, "Aucune date détectée dans ce PDF.").showAndWait();
                 }
             });
@@ -757,6 +995,539 @@ public class MainApp extends Application {
     }
 
 
+    /* ========================= IMPORT PDF PAR LOT ========================= */
+
+    // Analyse en parallèle, déplacements, puis tous les documents ajoutés en une fois (une seule écriture)
+    private void importPdfBatch(Stage stage, List<Path> files) {
+        Candidature c = table.getSelectionModel().getSelectedItem();
+        if (c == null) {
+            importPdfBatchMatched(stage, files);
+            return;
+        }
+
+        Task<PdfBatchImporter.Report> task = new ImportTask<>() {
+            @Override
+            protected PdfBatchImporter.Report execute() throws Exception {
+                PdfBatchImporter importer = new PdfBatchImporter(PdfBatchImporter.defaultThreads());
+                PdfBatchImporter.Report report = importer.importAll(files, c, controller.getHashIndex(), p -> {
+                    updateProgress(p.done(), p.total());
+                    updateMessage(p.done() + " / " + p.total() + " : " + p.file().getFileName());
+                });
+                indexTexts(c, report);
+                return report;
+            }
+        };
+        Stage progressStage = showProgress(stage, task, "Import de PDF", "Analyse de " + files.size() + " fichiers...");
+
+        task.setOnSucceeded(e -> {
+            progressStage.close();
+            addImported(c, task.getValue());
+        });
+        task.setOnFailed(e -> {
+            progressStage.close();
+            task.getException().printStackTrace();
+            new Alert(Alert.AlertType.ERROR, "Import interrompu : " + task.getException().getMessage()).showAndWait();
+        });
+
+        Thread thread = new Thread(task, "pdf-batch-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Aucune candidature sélectionnée : chaque PDF va à la candidature reconnue, les autres restent en place
+    private void importPdfBatchMatched(Stage stage, List<Path> files) {
+        Task<PdfBatchImporter.MatchedReport> task = new ImportTask<>() {
+            @Override
+            protected PdfBatchImporter.MatchedReport execute() throws Exception {
+                PdfBatchImporter importer = new PdfBatchImporter(PdfBatchImporter.defaultThreads());
+                List<PdfAnalysis> analyses = importer.analyse(files, p -> {
+                    updateProgress(p.done(), p.total());
+                    updateMessage(p.done() + " / " + p.total() + " : " + p.file().getFileName());
+                });
+                updateMessage("Recherche des candidatures...");
+                PdfBatchImporter.MatchedReport report =
+                        PdfBatchImporter.attachMatched(analyses, matcher, controller.getHashIndex());
+                report.reports().forEach(MainApp.this::indexTexts);
+                return report;
+            }
+        };
+        Stage progressStage = showProgress(stage, task, "Import de PDF", "Analyse de " + files.size() + " fichiers...");
+
+        task.setOnSucceeded(e -> {
+            progressStage.close();
+            addMatched(task.getValue(), "Laissés en place");
+        });
+        task.setOnFailed(e -> {
+            progressStage.close();
+            task.getException().printStackTrace();
+            new Alert(Alert.AlertType.ERROR, "Import interrompu : " + task.getException().getMessage()).showAndWait();
+        });
+
+        Thread thread = new Thread(task, "pdf-batch-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Fenêtre de progression ; « Annuler » (ou la fermeture de la fenêtre) annule la tâche
+    private Stage showProgress(Stage owner, Task<?> task, String title, String initial) {
+        ProgressBar bar = new ProgressBar(0);
+        bar.setPrefWidth(420);
+        Label current = new Label(initial);
+        Button cancel = new Button("Annuler");
+        cancel.setOnAction(e -> task.cancel());
+        HBox buttons = new HBox(cancel);
+        buttons.setAlignment(Pos.CENTER_RIGHT);
+        VBox box = new VBox(10, current, bar, buttons);
+        box.setPadding(new Insets(15));
+        bar.progressProperty().bind(task.progressProperty());
+        current.textProperty().bind(task.messageProperty());
+
+        Stage progressStage = new Stage();
+        progressStage.initOwner(owner);
+        progressStage.setTitle(title);
+        progressStage.setScene(new Scene(box));
+        progressStage.setOnCloseRequest(e -> task.cancel());
+        task.setOnCancelled(e -> progressStage.close());
+        progressStage.show();
+        return progressStage;
+    }
+
+    /**
+     * Tâche d'import : si elle échoue ou est annulée, les documents qu'elle a ajoutés à
+     * l'index des empreintes sans les rattacher à leur candidature en sont retirés.
+     */
+    private abstract class ImportTask<T> extends Task<T> {
+
+        private volatile long thread = -1;
+
+        protected abstract T execute() throws Exception;
+
+        @Override
+        protected T call() throws Exception {
+            thread = Thread.currentThread().threadId();
+            boolean completed = false;
+            try {
+                T result = execute();
+                completed = true;
+                return result;
+            } finally {
+                if (!completed || isCancelled()) discardUnattached();
+            }
+        }
+
+        // Annulée une fois le travail terminé : le résultat ne sera jamais rattaché
+        @Override
+        protected void cancelled() {
+            discardUnattached();
+        }
+
+        private void discardUnattached() {
+            if (thread >= 0) controller.getHashIndex().discardUnattached(thread);
+        }
+    }
+
+    // Texte déjà extrait : indexé sans relire les PDF
+    private void indexTexts(Candidature c, PdfBatchImporter.Report report) {
+        for (PdfBatchImporter.FileResult r : report.results()) {
+            if (r.doc() != null) controller.getPdfTextIndex().index(c.getId(), r.doc(), r.pages());
+        }
+    }
+
+    private void addImported(Candidature c, PdfBatchImporter.Report report) {
+        addDocuments(c, report);
+        new Alert(Alert.AlertType.INFORMATION, reportText(report)).showAndWait();
+    }
+
+    // Documents rattachés automatiquement, puis un seul compte rendu pour toutes les candidatures
+    private void addMatched(PdfBatchImporter.MatchedReport matched, String unassignedTitle) {
+        StringBuilder text = new StringBuilder()
+                .append(matched.imported()).append(" PDF rattachés automatiquement à ")
+                .append(matched.reports().size()).append(" candidatures")
+                .append(String.format(Locale.FRENCH, " (%.1f s)", matched.nanos() / 1e9));
+        matched.reports().forEach((c, report) -> {
+            addDocuments(c, report);
+            text.append("\n- ").append(c.getEntreprise()).append(" — ").append(c.getPoste())
+                    .append(" : ").append(report.imported());
+            if (report.duplicates() > 0) text.append(" (").append(report.duplicates()).append(" doublons)");
+        });
+        if (!matched.unassigned().isEmpty()) {
+            text.append("\n\n").append(unassignedTitle).append(" (").append(matched.unassigned().size()).append(") :");
+            for (PdfBatchImporter.Unassigned u : matched.unassigned()) {
+                text.append("\n- ").append(u.analysis().source().getFileName());
+                if (!u.analysis().isValid()) {
+                    text.append(" : illisible");
+                } else if (u.match() != null && u.match().best() != null) {
+                    text.append(" → ").append(proposalLabel(u.match().best()));
+                }
+            }
+        }
+        new Alert(Alert.AlertType.INFORMATION, text.toString()).showAndWait();
+    }
+
+    // Un seul passage : les modifications sont regroupées en une écriture de la candidature
+    private void addDocuments(Candidature c, PdfBatchImporter.Report report) {
+        for (PdfBatchImporter.FileResult r : report.results()) {
+            if (r.doc() != null) c.ajouterDocument(r.doc());
+        }
+        if (table.getSelectionModel().getSelectedItem() == c) {
+            pdfViewerPane.setPdfList(FXCollections.observableArrayList(c.getDocuments()), c);
+        }
+    }
+
+    private String reportText(PdfBatchImporter.Report report) {
+        StringBuilder text = new StringBuilder()
+                .append(report.imported()).append(" PDF importés");
+        if (report.withoutDate() > 0) text.append(", ").append(report.withoutDate()).append(" sans date détectée");
+        if (report.duplicates() > 0) {
+            text.append(", ").append(report.duplicates()).append(" doublons (")
+                    .append(formatBytes(report.reclaimedBytes())).append(" non recopiés)");
+        }
+        text.append(".\n").append(report);
+        if (report.failed() > 0) {
+            text.append("\n\nNon importés :");
+            for (PdfBatchImporter.FileResult r : report.results()) {
+                if (r.error() != null) {
+                    text.append("\n- ").append(r.source().getFileName()).append(" : ").append(r.error().getMessage());
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static String proposalLabel(CandidatureMatcher.Candidate candidate) {
+        return String.format(Locale.FRENCH, "%s — %s (%.0f %% : %s)", candidate.candidature().getEntreprise(),
+                candidate.candidature().getPoste(), candidate.score() * 100, candidate.reason());
+    }
+
+
+    /* ========================= IMPORT DE MAILS ========================= */
+
+    // Boîtes mbox ou dossier de .eml : en-têtes seulement, pièces jointes PDF ou message rangés
+    private void importMails(Stage stage, boolean directory) {
+        List<Path> sources;
+        if (directory) {
+            File dir = new DirectoryChooser().showDialog(stage);
+            if (dir == null) return;
+            sources = List.of(dir.toPath());
+        } else {
+            FileChooser chooser = new FileChooser();
+            chooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("Boîtes mbox", "*.mbox", "*.mbx"),
+                    new FileChooser.ExtensionFilter("Tous les fichiers", "*"));
+            List<File> files = chooser.showOpenMultipleDialog(stage);
+            if (files == null || files.isEmpty()) return;
+            sources = files.stream().map(File::toPath).toList();
+        }
+
+        ButtonType create = new ButtonType("Créer les candidatures");
+        ButtonType attachOnly = new ButtonType("Rattacher seulement");
+        Alert ask = new Alert(Alert.AlertType.CONFIRMATION,
+                "Une candidature peut être créée pour chaque expéditeur non reconnu.",
+                create, attachOnly, ButtonType.CANCEL);
+        ask.setHeaderText("Mails sans candidature reconnue");
+        ButtonType choice = ask.showAndWait().orElse(ButtonType.CANCEL);
+        if (choice == ButtonType.CANCEL) return;
+        boolean createMissing = choice == create;
+
+        Task<MailImportService.Report> task = new ImportTask<>() {
+            @Override
+            protected MailImportService.Report execute() throws Exception {
+                MailImportService importer =
+                        new MailImportService(matcher, controller.getHashIndex(), createMissing);
+                MailImportService.Report report = importer.importAll(sources, p -> {
+                    updateProgress(p.bytesDone(), p.bytesTotal());
+                    updateMessage(p.messages() + " messages : " + p.file().getFileName());
+                });
+                // Messages enregistrés tels quels : leurs en-têtes servent de texte
+                for (MailImportService.Stored s : report.documents()) {
+                    if (s.pages() != null) controller.getPdfTextIndex().index(s.candidature().getId(), s.doc(), s.pages());
+                }
+                return report;
+            }
+        };
+        Stage progressStage = showProgress(stage, task, "Import de mails", "Lecture des mails...");
+
+        task.setOnSucceeded(e -> {
+            progressStage.close();
+            addMails(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            progressStage.close();
+            task.getException().printStackTrace();
+            new Alert(Alert.AlertType.ERROR, "Import interrompu : " + task.getException().getMessage()).showAndWait();
+        });
+
+        Thread thread = new Thread(task, "mail-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void addMails(MailImportService.Report report) {
+        Map<Candidature, List<DocumentFile>> byCandidature = new IdentityHashMap<>();
+        for (MailImportService.Stored s : report.documents()) {
+            byCandidature.computeIfAbsent(s.candidature(), k -> new ArrayList<>()).add(s.doc());
+        }
+        // Nouvelles candidatures : documents posés avant l'ajout, une seule écriture chacune
+        for (Candidature c : report.created()) {
+            byCandidature.getOrDefault(c, List.of()).forEach(c::ajouterDocument);
+            byCandidature.remove(c);
+        }
+        controller.addAll(report.created());
+        byCandidature.forEach((c, docs) -> {
+            docs.forEach(c::ajouterDocument);
+            if (table.getSelectionModel().getSelectedItem() == c) {
+                pdfViewerPane.setPdfList(FXCollections.observableArrayList(c.getDocuments()), c);
+            }
+        });
+
+        StringBuilder text = new StringBuilder()
+                .append(report.messages()).append(" messages lus, ")
+                .append(report.documents().size()).append(" documents rangés, ")
+                .append(report.created().size()).append(" candidatures créées");
+        if (report.unassigned() > 0) text.append(", ").append(report.unassigned()).append(" sans candidature");
+        if (report.duplicates() > 0) text.append(", ").append(report.duplicates()).append(" doublons");
+        text.append(".\n").append(report);
+        if (!report.errors().isEmpty()) {
+            text.append("\n\nErreurs :");
+            report.errors().stream().limit(20).forEach(err -> text.append("\n- ").append(err));
+        }
+        new Alert(Alert.AlertType.INFORMATION, text.toString()).showAndWait();
+    }
+
+    /* ========================= DOUBLONS ========================= */
+
+    // Contenus présents plusieurs fois et doublons évités à l'import depuis le démarrage
+    private void showDuplicates(Stage stage) {
+        DocumentHashIndex hashes = controller.getHashIndex();
+        stage.getScene().setCursor(Cursor.WAIT);
+
+        Task<List<DocumentHashIndex.Group>> task = new Task<>() {
+            @Override
+            protected List<DocumentHashIndex.Group> call() {
+                return hashes.duplicates();
+            }
+        };
+        task.setOnSucceeded(e -> {
+            stage.getScene().setCursor(Cursor.DEFAULT);
+            List<DocumentHashIndex.Group> groups = task.getValue();
+            long reclaimable = groups.stream().mapToLong(DocumentHashIndex.Group::reclaimable).sum();
+
+            StringBuilder details = new StringBuilder();
+            for (DocumentHashIndex.Group g : groups) {
+                details.append(formatBytes(g.bytes())).append(" × ").append(g.locations().size())
+                        .append(g.copies() < g.locations().size() ? " (liés)" : "").append('\n');
+                for (DocumentHashIndex.Location l : g.locations()) {
+                    details.append("    ").append(l.candidature().getEntreprise()).append(" — ")
+                            .append(l.doc().getNom()).append('\n');
+                }
+            }
+
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.initOwner(stage);
+            alert.setTitle("Doublons");
+            alert.setHeaderText(groups.size() + " contenus en plusieurs exemplaires, "
+                    + formatBytes(reclaimable) + " récupérables\n"
+                    + "Depuis le démarrage : " + hashes.getSkippedCount() + " imports ignorés, "
+                    + hashes.getLinkedCount() + " liés, " + formatBytes(hashes.getSavedBytes()) + " évités");
+            if (!groups.isEmpty()) {
+                TextArea area = new TextArea(details.toString());
+                area.setEditable(false);
+                area.setPrefSize(600, 300);
+                alert.getDialogPane().setContent(area);
+            }
+            alert.showAndWait();
+        });
+        task.setOnFailed(e -> {
+            stage.getScene().setCursor(Cursor.DEFAULT);
+            task.getException().printStackTrace();
+        });
+
+        Thread thread = new Thread(task, "documents-duplicates");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024 * 1024) return String.format(Locale.FRENCH, "%.1f Ko", bytes / 1024.0);
+        return String.format(Locale.FRENCH, "%.1f Mo", bytes / 1048576.0);
+    }
+
+
+    /* ========================= BOÎTE DE DÉPÔT ========================= */
+
+    private static final int INBOX_MENU_ITEMS = 30;
+
+    // Surveillance démarrée une fois l'interface prête ; les fichiers prêts s'ajoutent à la liste
+    private void startInbox() {
+        inboxMatching = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "inbox-match");
+            t.setDaemon(true);
+            return t;
+        });
+        inboxWatcher = new InboxWatcher(FileSystemService.getInbox(), 2, Platform::runLater);
+        inboxWatcher.setOnReady(a -> {
+            inboxFiles.removeIf(f -> f.source().equals(a.source()));
+            inboxMatches.remove(a.source());
+            inboxFiles.add(a);
+            if (a.isValid()) matchInbox(a);
+        });
+        inboxWatcher.setOnRemoved(file -> {
+            inboxFiles.removeIf(f -> f.source().equals(file));
+            inboxMatches.remove(file);
+        });
+        try {
+            inboxWatcher.start();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Propositions calculées hors du thread UI, prêtes à l'ouverture du menu
+    private void matchInbox(PdfAnalysis a) {
+        inboxMatching.execute(() -> {
+            CandidatureMatcher.Result result = matcher.match(a.pages(), a.date());
+            Platform.runLater(() -> {
+                if (inboxFiles.contains(a)) inboxMatches.put(a.source(), result);
+            });
+        });
+    }
+
+    private List<MenuItem> buildInboxItems(Stage stage) {
+        List<MenuItem> items = new ArrayList<>();
+        MenuItem folder = new MenuItem(FileSystemService.getInbox().toString());
+        folder.setDisable(true);
+        items.add(folder);
+
+        if (inboxFiles.isEmpty()) {
+            MenuItem empty = new MenuItem("Aucun PDF en attente");
+            empty.setDisable(true);
+            items.add(empty);
+            return items;
+        }
+
+        MenuItem auto = new MenuItem("Rattacher automatiquement");
+        auto.setOnAction(e -> attachInboxMatched(stage, List.copyOf(inboxFiles)));
+        MenuItem all = new MenuItem("Tout rattacher à la candidature sélectionnée");
+        all.setOnAction(e -> attachInbox(stage, table.getSelectionModel().getSelectedItem(), List.copyOf(inboxFiles)));
+        items.add(auto);
+        items.add(all);
+        items.add(new SeparatorMenuItem());
+
+        List<PdfAnalysis> sorted = new ArrayList<>(inboxFiles);
+        sorted.sort(Comparator.comparing(PdfAnalysis::date, Comparator.nullsLast(Comparator.reverseOrder())));
+        for (PdfAnalysis a : sorted.subList(0, Math.min(INBOX_MENU_ITEMS, sorted.size()))) {
+            String label = a.source().getFileName()
+                    + (!a.isValid() ? " (illisible)" : a.date() != null ? " — " + a.date().format(dateFormatter) : "");
+            Menu item = new Menu(label);
+            item.setDisable(!a.isValid());
+            MenuItem selected = new MenuItem("Rattacher à la candidature sélectionnée");
+            selected.setOnAction(e -> attachInbox(stage, table.getSelectionModel().getSelectedItem(), List.of(a)));
+            item.getItems().add(selected);
+            CandidatureMatcher.Result match = inboxMatches.get(a.source());
+            if (match != null && !match.candidates().isEmpty()) {
+                item.getItems().add(new SeparatorMenuItem());
+                for (CandidatureMatcher.Candidate candidate : match.candidates()) {
+                    MenuItem proposal = new MenuItem(proposalLabel(candidate));
+                    proposal.setOnAction(e -> attachInbox(stage, candidate.candidature(), List.of(a)));
+                    item.getItems().add(proposal);
+                }
+            }
+            items.add(item);
+        }
+        if (sorted.size() > INBOX_MENU_ITEMS) {
+            MenuItem more = new MenuItem("... et " + (sorted.size() - INBOX_MENU_ITEMS) + " autres");
+            more.setDisable(true);
+            items.add(more);
+        }
+        return items;
+    }
+
+    // Fichiers déjà analysés : il ne reste qu'à les déplacer et les indexer
+    private void attachInbox(Stage stage, Candidature c, List<PdfAnalysis> files) {
+        if (c == null) {
+            new Alert(Alert.AlertType.INFORMATION, "Sélectionnez d'abord une candidature.").showAndWait();
+            return;
+        }
+        List<PdfAnalysis> valid = files.stream().filter(PdfAnalysis::isValid).toList();
+        if (valid.isEmpty()) return;
+        inboxFiles.removeAll(valid); // retirés tout de suite : pas de double rattachement
+
+        stage.getScene().setCursor(Cursor.WAIT);
+        Task<PdfBatchImporter.Report> task = new ImportTask<>() {
+            @Override
+            protected PdfBatchImporter.Report execute() {
+                PdfBatchImporter.Report report = PdfBatchImporter.attach(valid, c, controller.getHashIndex());
+                indexTexts(c, report);
+                return report;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            stage.getScene().setCursor(Cursor.DEFAULT);
+            PdfBatchImporter.Report report = task.getValue();
+            // Non déplacés : toujours dans la boîte de dépôt
+            for (int i = 0; i < valid.size(); i++) {
+                if (report.results().get(i).error() != null) inboxFiles.add(valid.get(i));
+            }
+            addImported(c, report);
+        });
+        task.setOnFailed(e -> {
+            stage.getScene().setCursor(Cursor.DEFAULT);
+            task.getException().printStackTrace();
+            inboxFiles.addAll(valid);
+        });
+
+        Thread thread = new Thread(task, "inbox-attach");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Chaque fichier va à la candidature reconnue sans ambiguïté ; les autres restent dans la boîte
+    private void attachInboxMatched(Stage stage, List<PdfAnalysis> files) {
+        List<PdfAnalysis> valid = files.stream().filter(PdfAnalysis::isValid).toList();
+        if (valid.isEmpty()) return;
+        inboxFiles.removeAll(valid);
+
+        stage.getScene().setCursor(Cursor.WAIT);
+        Task<PdfBatchImporter.MatchedReport> task = new ImportTask<>() {
+            @Override
+            protected PdfBatchImporter.MatchedReport execute() {
+                PdfBatchImporter.MatchedReport report =
+                        PdfBatchImporter.attachMatched(valid, matcher, controller.getHashIndex());
+                report.reports().forEach(MainApp.this::indexTexts);
+                return report;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            stage.getScene().setCursor(Cursor.DEFAULT);
+            PdfBatchImporter.MatchedReport matched = task.getValue();
+            // Non reconnus ou non déplacés : toujours dans la boîte de dépôt
+            for (PdfBatchImporter.Unassigned u : matched.unassigned()) {
+                inboxFiles.add(u.analysis());
+                if (u.match() != null) inboxMatches.put(u.analysis().source(), u.match());
+            }
+            matched.reports().values().forEach(report -> {
+                for (PdfBatchImporter.FileResult r : report.results()) {
+                    if (r.error() == null) {
+                        inboxMatches.remove(r.source());
+                    } else {
+                        valid.stream().filter(a -> a.source().equals(r.source())).findFirst().ifPresent(inboxFiles::add);
+                    }
+                }
+            });
+            addMatched(matched, "Restés dans la boîte de dépôt");
+        });
+        task.setOnFailed(e -> {
+            stage.getScene().setCursor(Cursor.DEFAULT);
+            task.getException().printStackTrace();
+            inboxFiles.addAll(valid);
+        });
+
+        Thread thread = new Thread(task, "inbox-attach");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
     private void updatePredicate(FilteredList<Candidature> filtered,
                                  TextField searchField,
                                  ChoiceBox<StatutCandidature> statutFilter,
@@ -764,21 +1535,47 @@ public class MainApp extends Application {
                                  CheckBox pdfFilter,
                                  CheckBox responseFilter) {
 
-        String text = searchField.getText().toLowerCase();
-        StatutCandidature statut = statutFilter.getValue();
+        // Évalué hors du thread UI ; le prédicat du FilteredList est remplacé à la publication
         String mois = moisFilter.getValue();
-        boolean filterPDF = pdfFilter.isSelected();
-        boolean filterResponse = responseFilter.isSelected();
+        filterPipeline.submit(searchField.getText(), new CandidatureFacetIndex.Selection(
+                statutFilter.getValue(),
+                mois == null || mois.equals("Tous") ? 0 : Integer.parseInt(mois),
+                pdfFilter.isSelected(),
+                responseFilter.isSelected()));
+    }
+
+    private void scheduleFilterRefresh() {
+        if (filterRefreshPending) return;
+        filterRefreshPending = true;
+        Platform.runLater(() -> {
+            filterRefreshPending = false;
+            filterPipeline.refresh();
+        });
+    }
 
-        filtered.setPredicate(c -> {
-            boolean matchSearch = text.isEmpty() || c.getEntreprise().toLowerCase().contains(text)
-                    || c.getPoste().toLowerCase().contains(text);
-            boolean matchStatut = statut == StatutCandidature.TOUTES || c.getStatut() == statut;
-            boolean matchMonth = mois.equals("Tous") || (c.getDateEnvoi() != null && c.getDateEnvoi().getMonthValue() == Integer.parseInt(mois));
-            boolean matchPDF = !filterPDF || !c.getDocuments().isEmpty();
-            boolean matchResponse = !filterResponse || c.getStatut() != StatutCandidature.EN_ATTENTE;
-            return matchSearch && matchStatut && matchMonth && matchPDF && matchResponse;
+    private void updateFacetCounts(CandidatureFacetIndex.Counts counts,
+                                   ChoiceBox<StatutCandidature> statutFilter,
+                                   ChoiceBox<String> moisFilter,
+                                   CheckBox pdfFilter,
+                                   CheckBox responseFilter) {
+
+        // Nouveau convertisseur : la ChoiceBox réaffiche les libellés de ses options
+        statutFilter.setConverter(new StringConverter<>() {
+            @Override public String toString(StatutCandidature s) {
+                return s == null ? "" : s.getLabel() + " (" + counts.statut().get(s) + ")";
+            }
+            @Override public StatutCandidature fromString(String text) { return null; }
         });
+        moisFilter.setConverter(new StringConverter<>() {
+            @Override public String toString(String m) {
+                if (m == null) return "";
+                int month = m.equals("Tous") ? 0 : Integer.parseInt(m);
+                return m + " (" + counts.months()[month] + ")";
+            }
+            @Override public String fromString(String text) { return null; }
+        });
+        pdfFilter.setText("Avec PDF (" + counts.withDocuments() + ")");
+        responseFilter.setText("Avec réponse (" + counts.withResponse() + ")");
     }
 
 
@@ -825,16 +1622,27 @@ public class MainApp extends Application {
 
     private void renameAllFolders() {
 
+        // Copies prises sur le thread UI : la tâche y décode les documents encore différés,
+        // les candidatures elles-mêmes ne sont modifiées que sur le thread UI
+        List<Candidature> all = new ArrayList<>(controller.getCandidatures());
+        List<Candidature> copies = new ArrayList<>(all.size());
+        for (Candidature c : all) {
+            copies.add(c.copy());
+        }
+
         Task<Void> task = new Task<>() {
             @Override
             protected Void call() {
-                for (Candidature c : filteredCandidatures) {
+                for (int i = 0; i < all.size(); i++) {
+                    Candidature c = all.get(i);
+                    Candidature copy = copies.get(i);
                     try {
-                        FileSystemService.renameCandidatureFolderWithOldestPdfDate(c);
+                        Path renamed = FileSystemService.renameCandidatureFolderWithOldestPdfDate(copy);
+                        if (renamed != null) Platform.runLater(() -> FileSystemService.relocate(c, renamed));
                     } catch (IOException e) {
                         System.err.println(
                                 "Renommage impossible pour " +
-                                        c.getEntreprise() + " - " + c.getPoste()
+                                        copy.getEntreprise() + " - " + copy.getPoste()
                         );
                         e.printStackTrace();
                     }
@@ -843,14 +1651,19 @@ public class MainApp extends Application {
             }
         };
 
-        task.setOnSucceeded(e -> {
-            controller.save();
-            table.refresh();
-        });
-
+        // Chaque dossier renommé est sauvegardé et redessiné via les événements de la candidature
         new Thread(task, "rename-candidature-folders").start();
 
     }
 
+    @Override
+    public void stop() {
+        if (inboxWatcher != null) inboxWatcher.close();
+        if (inboxMatching != null) inboxMatching.shutdownNow();
+        if (filterPipeline != null) filterPipeline.close();
+        if (pdfViewerPane != null) pdfViewerPane.close();
+        if (controller != null) controller.close();
+    }
+
     public static void main(String[] args) { launch(args); }
 }
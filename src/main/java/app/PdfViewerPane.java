@@ -1,30 +1,69 @@
 package app;
 
-import app.controller.MainController;
 import app.model.Candidature;
 import app.model.DocumentFile;
+import app.model.DocumentMetadata;
+import app.service.DocumentThumbnailCache;
+import app.service.FileSystemService;
+import app.service.PageImageCache;
+import app.service.PdfDocumentCache;
+import app.service.PdfPageRasterizer;
+import app.service.PdfRenderScheduler;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
 import javafx.collections.FXCollections;
-import javafx.concurrent.Task;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import javafx.util.Duration;
 
-import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class PdfViewerPane extends BorderPane {
 
-    private final MainController controller;
     private final AtomicLong renderVersion = new AtomicLong();
 
+    // File de rendu bornée : page visible d'abord, la dernière demande annule les précédentes
+    private final PdfRenderScheduler renderer = new PdfRenderScheduler(PdfRenderScheduler.defaultThreads(), 4);
+
+    // Largeur rendue = largeur affichée (zoom et écran compris), arrondie pour réutiliser le cache
+    private static final int WIDTH_STEP = 128;
+    private static final int MIN_WIDTH = 256;
+    private static final int MAX_WIDTH = 4096;
+    private static final long RESIZE_DEBOUNCE_MS = 200;
+    private final DoubleProperty zoom = new SimpleDoubleProperty(1.0);
+    private final PauseTransition resizeDebounce = new PauseTransition(Duration.millis(RESIZE_DEBOUNCE_MS));
+
+    // Pages déjà rendues : Précédent / Suivant sans nouveau rendu
+    private final PageImageCache pageImages = new PageImageCache(64L * 1024 * 1024);
+
+    // Vignettes et premières pages sur le disque : affichage immédiat au démarrage
+    private static final int THUMBNAIL_WIDTH = 48;
+    private final DocumentThumbnailCache thumbnails = new DocumentThumbnailCache(
+            FileSystemService.getRoot().resolve(".cache").resolve("thumbnails"), 256L * 1024 * 1024);
+    private final Map<Path, Image> thumbnailImages = new HashMap<>();
+    private final Set<Path> pendingThumbnails = new HashSet<>();
+
+    // Rendu dans des tableaux de pixels réutilisés, partagés avec l'image affichée (sans copie)
+    private final PdfPageRasterizer rasterizer = new PdfPageRasterizer(4, 64L * 1024 * 1024);
+    private final Map<Path, Integer> pageCounts = new HashMap<>();
+    private final AtomicLong documentVersion = new AtomicLong(); // change avec le PDF affiché
+
     private DocumentFile currentDocumentFile;
     private Path currentPdfPath;
     private Candidature currentCandidature;
@@ -40,9 +79,25 @@ public class PdfViewerPane extends BorderPane {
     private int currentPage = 0;
     private int pageCount = 0;
 
-    public PdfViewerPane(List<DocumentFile> pdfList, MainController controller) {
-        this.controller = controller;
-        imageView.fitWidthProperty().bind(widthProperty().subtract(20));
+    private PdfViewerPane() {
+    }
+
+    // Vue construite après le constructeur : ses écouteurs ne voient jamais un objet inachevé
+    public static PdfViewerPane create() {
+        PdfViewerPane pane = new PdfViewerPane();
+        pane.build();
+        return pane;
+    }
+
+    private void build() {
+        // L'image affichée suit la vue tout de suite ; le rendu net attend que la taille soit stable
+        imageView.fitWidthProperty().bind(Bindings.createDoubleBinding(
+                () -> Math.max(100, getWidth() - 20) * zoom.get(), widthProperty(), zoom));
+        resizeDebounce.setOnFinished(e -> renderPage());
+
+        // Image retirée du cache et plus épinglée (ni affichée, ni en route) : son tableau resservira
+        pageImages.setOnEvict(rasterizer::recycle);
+        imageView.fitWidthProperty().addListener((obs, old, val) -> resizeDebounce.playFromStart());
 
         /* =========================
            IMAGE VIEW (PDF)
@@ -68,6 +123,8 @@ public class PdfViewerPane extends BorderPane {
            ========================= */
         pdfListView.setPrefHeight(200); // hauteur lisible
         pdfListView.setCellFactory(lv -> new ListCell<>() {
+            private final ImageView thumbnail = new ImageView();
+
             @Override
             protected void updateItem(DocumentFile item, boolean empty) {
                 super.updateItem(item, empty);
@@ -77,6 +134,10 @@ public class PdfViewerPane extends BorderPane {
                         + " | "
                         + " - "
                         + item.getNom());
+
+                Image image = empty || item == null ? null : thumbnailOf(item.getFichier());
+                thumbnail.setImage(image);
+                setGraphic(image != null ? thumbnail : null);
             }
         });
 
@@ -114,7 +175,16 @@ public class PdfViewerPane extends BorderPane {
             }
         });
 
-        ToolBar toolbar = new ToolBar(prev, next);
+        Button zoomOut = new Button("−");
+        Button zoomIn = new Button("+");
+        Button zoomReset = new Button("Ajuster");
+        Label zoomLabel = new Label();
+        zoomLabel.textProperty().bind(Bindings.format("%.0f %%", zoom.multiply(100)));
+        zoomOut.setOnAction(e -> zoom.set(Math.max(0.5, zoom.get() / 1.25)));
+        zoomIn.setOnAction(e -> zoom.set(Math.min(4.0, zoom.get() * 1.25)));
+        zoomReset.setOnAction(e -> zoom.set(1.0));
+
+        ToolBar toolbar = new ToolBar(prev, next, new Separator(), zoomOut, zoomLabel, zoomIn, zoomReset);
         setBottom(toolbar);
     }
 
@@ -140,56 +210,194 @@ public class PdfViewerPane extends BorderPane {
     /* =========================
        OUVERTURE PDF
        ========================= */
-    private synchronized void openPdf(Path path) {
+    private void openPdf(Path path) {
+        documentVersion.incrementAndGet();
+        renderer.cancelPrefetch();
         currentPdfPath = path;
         currentPage = 0;
-
-        try (PDDocument doc = PDDocument.load(path.toFile())) {
-            pageCount = doc.getNumberOfPages();
-        } catch (Exception e) {
-            pageCount = 0;
-            e.printStackTrace();
-            return;
-        }
-
+        // Nombre de pages enregistré avec le document, sinon connu après le premier rendu
+        DocumentMetadata metadata = currentDocumentFile != null && path.equals(currentDocumentFile.getFichier())
+                ? currentDocumentFile.getMetadata()
+                : null;
+        pageCount = metadata != null ? metadata.pages() : pageCounts.getOrDefault(path, 0);
         renderPage();
     }
 
     /* =========================
-       RENDU PAGE (THREAD SAFE)
+       RENDU PAGE (THREAD DE RENDU)
        ========================= */
+    private record RenderedPage(int pageCount, Image image) {
+    }
+
     private void renderPage() {
         if (currentPdfPath == null) return;
-        if (currentPage < 0 || currentPage >= pageCount) return;
+        if (currentPage < 0 || (pageCount > 0 && currentPage >= pageCount)) return;
 
         long version = renderVersion.incrementAndGet();
+        renderer.cancelPrefetch(); // voisines d'une autre page (ou d'une autre largeur)
+        Path path = currentPdfPath;
+        int page = currentPage;
+        int width = targetWidth();
+        PageImageCache.Key key = keyOf(path, page, width);
+
+        Image cached = key != null ? pageImages.acquire(key) : null;
+        if (cached != null) {
+            display(cached);
+            prefetchAround(path, page, width);
+            return;
+        }
 
-        Task<Image> task = new Task<>() {
-            @Override
-            protected Image call() throws Exception {
-                try (PDDocument doc = PDDocument.load(currentPdfPath.toFile())) {
-                    PDFRenderer renderer = new PDFRenderer(doc);
-                    BufferedImage img = renderer.renderImageWithDPI(currentPage, 150);
-                    return SwingFXUtils.toFXImage(img, null);
-                }
+        // Rendu existant à une autre taille : affiché agrandi en attendant le rendu net
+        Image fallback = key != null ? pageImages.acquireBest(key) : null;
+        if (fallback == null && page == 0) {
+            // Première page gardée sur le disque : affichée pendant le rendu net
+            Path firstPage = thumbnails.firstPage(path);
+            if (firstPage != null) fallback = new Image(firstPage.toUri().toString(), true);
+        }
+        if (fallback != null) display(fallback);
+        int previewWidth = fallback == null ? previewWidth(width) : 0;
+
+        renderer.submit(PdfRenderScheduler.Priority.VISIBLE, documents -> {
+            if (renderVersion.get() != version) return null; // déjà dépassé
+            PdfDocumentCache.Handle handle = documents.acquire(path);
+
+            if (previewWidth > 0) {
+                Image preview = rasterizer.render(handle, page, previewWidth);
+                pageImages.pin(preview); // relâchée par show()
+                if (key != null) pageImages.put(key.withWidth(previewWidth), preview);
+                RenderedPage rendered = new RenderedPage(handle.pageCount(), preview);
+                Platform.runLater(() -> show(version, path, page, rendered, false, width));
+                if (renderVersion.get() != version) return null;
             }
-        };
 
-        task.setOnSucceeded(e -> {
-            if (renderVersion.get() == version) {
-//                imageView.setFitWidth(getWidth() - 20);
-                imageView.setImage(task.getValue());
+            Image image = rasterizer.render(handle, page, width);
+            pageImages.pin(image);
+            if (key != null) pageImages.put(key, image);
+            return new RenderedPage(handle.pageCount(), image);
+        }).whenComplete((rendered, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                if (!(error instanceof CancellationException)) error.printStackTrace();
+                return;
             }
-        });
+            if (rendered != null) show(version, path, page, rendered, true, width);
+        }));
+    }
+
+    // L'image arrive épinglée : affichée, elle garde son épingle, sinon elle la rend
+    private void show(long version, Path path, int page, RenderedPage rendered, boolean sharp, int width) {
+        pageCounts.put(path, rendered.pageCount());
+        if (renderVersion.get() != version) {
+            pageImages.release(rendered.image());
+            return;
+        }
+        pageCount = rendered.pageCount();
+        display(rendered.image());
+        if (sharp) prefetchAround(path, page, width);
+    }
+
+    // Thread UI : l'image affichée (déjà épinglée) remplace la précédente, qui est relâchée
+    private void display(Image image) {
+        Image previous = imageView.getImage();
+        imageView.setImage(image);
+        pageImages.release(previous);
+    }
+
+    // Pages voisines rendues à l'avance, en basse priorité
+    private void prefetchAround(Path path, int page, int width) {
+        long docVersion = documentVersion.get();
+        for (int neighbour : new int[]{page + 1, page - 1}) {
+            if (neighbour < 0 || neighbour >= pageCount) continue;
+            PageImageCache.Key key = keyOf(path, neighbour, width);
+            if (key == null || pageImages.contains(key)) continue;
+
+            renderer.submit(PdfRenderScheduler.Priority.PREFETCH, documents -> {
+                if (documentVersion.get() != docVersion || pageImages.contains(key)) return null;
+                pageImages.put(key, rasterizer.render(documents.acquire(path), neighbour, width));
+                return null;
+            });
+        }
+    }
 
-        new Thread(task, "pdf-render-" + version).start();
+    // Largeur en pixels réels de la page affichée
+    private int targetWidth() {
+        double scale = getScene() != null && getScene().getWindow() != null
+                ? getScene().getWindow().getOutputScaleX()
+                : 1.0;
+        return roundWidth(imageView.getFitWidth() * scale);
+    }
+
+    // Aperçu rapide : environ trois fois moins de pixels en largeur
+    private static int previewWidth(int width) {
+        int preview = roundWidth(width / 3.0);
+        return preview < width ? preview : 0;
+    }
+
+    private static int roundWidth(double width) {
+        int rounded = (int) Math.ceil(width / WIDTH_STEP) * WIDTH_STEP;
+        return Math.max(MIN_WIDTH, Math.min(MAX_WIDTH, rounded));
+    }
+
+    // Date de modification dans la clé : un fichier remplacé n'affiche pas d'anciennes pages
+    private static PageImageCache.Key keyOf(Path path, int page, int width) {
+        try {
+            return new PageImageCache.Key(path, Files.getLastModifiedTime(path).toMillis(), page, width);
+        } catch (IOException e) {
+            return null;
+        }
     }
 
     /* =========================
        FERMETURE PDF
        ========================= */
     private void closePdf() {
+        documentVersion.incrementAndGet();
+        renderer.cancelPrefetch();
         renderVersion.incrementAndGet();
-        imageView.setImage(null);
+        display(null);
+    }
+
+    public PageImageCache getPageImages() {
+        return pageImages;
+    }
+
+    // Ferme les documents ouverts, sur le thread qui les possède
+    public void close() {
+        renderer.close();
+        thumbnails.save();
+    }
+
+    /* =========================
+       VIGNETTES (DISQUE)
+       ========================= */
+
+    // Vignette chargée depuis le disque ; sinon demandée en tâche de fond, la liste se redessine ensuite
+    private Image thumbnailOf(Path pdf) {
+        if (pdf == null) return null;
+        Path file = thumbnails.thumbnail(pdf);
+        if (file == null) {
+            requestThumbnail(pdf);
+            return null;
+        }
+        if (thumbnailImages.size() > 512) thumbnailImages.clear();
+        return thumbnailImages.computeIfAbsent(file,
+                f -> new Image(f.toUri().toString(), THUMBNAIL_WIDTH, 0, true, true, true));
+    }
+
+    private void requestThumbnail(Path pdf) {
+        if (!pendingThumbnails.add(pdf)) return; // en cours, ou en échec : pas de nouvelle tentative
+
+        renderer.submit(PdfRenderScheduler.Priority.BACKGROUND, documents -> {
+            thumbnails.store(pdf, documents.acquire(pdf));
+            return null;
+        }).whenComplete((done, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                pendingThumbnails.remove(pdf);
+                pdfListView.refresh();
+            } else if (error instanceof CancellationException) {
+                pendingThumbnails.remove(pdf);
+            } else {
+                error.printStackTrace();
+            }
+        }));
     }
 }
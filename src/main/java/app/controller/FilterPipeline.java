@@ -0,0 +1,307 @@
+package app.controller;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.CandidatureListener;
+import app.service.CandidatureFacetIndex;
+import app.service.CandidatureRowIds;
+import app.service.CandidatureSearchIndex;
+import app.service.LatencyRecorder;
+import app.service.PdfTextIndex;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.transformation.FilteredList;
+import javafx.util.Duration;
+
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Filtrage de la table hors du thread UI.
+ * <p>
+ * La saisie est regroupée (délai de {@link #TEXT_DEBOUNCE_MS} ms après la dernière
+ * frappe ; les cases et listes partent tout de suite), puis évaluée par un thread dédié :
+ * recherche texte, texte des PDF, filtres, comptes par option. Le résultat (un
+ * {@link BitSet} de numéros de lignes) est publié en une fois par un nouveau prédicat
+ * du {@link FilteredList}. Une évaluation dépassée par une saisie plus récente est
+ * abandonnée en cours de route et jamais publiée.
+ * <p>
+ * Quand la nouvelle requête contient l'ancienne (un caractère de plus), seules les
+ * lignes de l'ancien résultat sont vérifiées ; quand seul un filtre change, le
+ * résultat de la recherche est repris tel quel.
+ * <p>
+ * Les modifications de candidatures sont appliquées au résultat publié ligne par ligne
+ * (thread UI). Ce listener doit être enregistré après les index qu'il interroge.
+ */
+public class FilterPipeline implements CandidatureListener {
+
+    private static final long TEXT_DEBOUNCE_MS = 120;
+
+    private record Query(String raw, String text, CandidatureFacetIndex.Selection selection) {
+    }
+
+    // Résultat d'une évaluation, publié sur le thread UI
+    private record Result(Query query, BitSet textHits, BitSet documentHits, BitSet facetHits,
+                          BitSet visible, CandidatureFacetIndex.Counts counts) {
+    }
+
+    private final FilteredList<Candidature> filtered;
+    private final CandidatureRowIds rowIds;
+    private final CandidatureSearchIndex searchIndex;
+    private final CandidatureFacetIndex facetIndex;
+    private final PdfTextIndex pdfTextIndex;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "candidatures-filter");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong generation = new AtomicLong();
+    private final PauseTransition debounce = new PauseTransition(Duration.millis(TEXT_DEBOUNCE_MS));
+
+    private final LatencyRecorder evaluationLatency = new LatencyRecorder(512);
+    private final LatencyRecorder inputLatency = new LatencyRecorder(512);
+
+    private Consumer<CandidatureFacetIndex.Counts> onCounts = counts -> {};
+
+    // État publié (thread UI)
+    private Query published = new Query("", "", CandidatureFacetIndex.Selection.ALL);
+    private BitSet textHits;      // null : pas de recherche
+    private BitSet documentHits;  // null : aucune ligne trouvée par le texte des PDF
+    private BitSet facetHits;     // null : aucun filtre
+    private BitSet visible;       // null : tout est affiché
+
+    // Saisie en attente (thread UI)
+    private Query pending;
+    private long pendingSince;
+    private boolean reusable = true;
+    private boolean countsPending;
+    private final BitSet touched = new BitSet(); // lignes modifiées pendant une évaluation
+
+    public FilterPipeline(FilteredList<Candidature> filtered,
+                          CandidatureRowIds rowIds,
+                          CandidatureSearchIndex searchIndex,
+                          CandidatureFacetIndex facetIndex,
+                          PdfTextIndex pdfTextIndex) {
+        this.filtered = filtered;
+        this.rowIds = rowIds;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.pdfTextIndex = pdfTextIndex;
+        debounce.setOnFinished(e -> dispatch());
+    }
+
+    // Comptes par option, reçus sur le thread UI après chaque évaluation
+    public void setOnCounts(Consumer<CandidatureFacetIndex.Counts> onCounts) {
+        this.onCounts = onCounts;
+    }
+
+    /* =========================
+       SAISIE (thread UI)
+       ========================= */
+    public void submit(String text, CandidatureFacetIndex.Selection selection) {
+        String raw = text != null ? text : "";
+        Query query = new Query(raw, CandidatureSearchIndex.normalizeQuery(raw), selection);
+
+        String previousText = pending != null ? pending.text() : published.text();
+        if (pending == null) pendingSince = System.nanoTime();
+        pending = query;
+
+        if (!query.text().equals(previousText)) {
+            debounce.playFromStart();
+        } else {
+            debounce.stop();
+            dispatch();
+        }
+    }
+
+    // Réévalue la requête publiée sans rien réutiliser (ex. texte des PDF réindexé)
+    public void refresh() {
+        if (pending == null) {
+            pending = published;
+            pendingSince = System.nanoTime();
+        }
+        reusable = false;
+        debounce.stop();
+        dispatch();
+    }
+
+    private void dispatch() {
+        Query query = pending;
+        if (query == null) return;
+        pending = null;
+
+        long gen = generation.incrementAndGet();
+        long since = pendingSince;
+        boolean reuse = reusable;
+        reusable = true;
+        touched.clear();
+
+        Query previous = published;
+        BitSet previousText = textHits != null ? (BitSet) textHits.clone() : null;
+        BitSet previousDocuments = documentHits != null ? (BitSet) documentHits.clone() : null;
+
+        worker.execute(() -> evaluate(gen, since, query, reuse, previous, previousText, previousDocuments));
+    }
+
+    /* =========================
+       ÉVALUATION (thread de filtrage)
+       ========================= */
+    private void evaluate(long gen, long since, Query query, boolean reuse,
+                          Query previous, BitSet previousText, BitSet previousDocuments) {
+        if (isStale(gen)) return;
+        long start = System.nanoTime();
+
+        BitSet text = null;
+        BitSet documents = null;
+        if (!query.text().isEmpty()) {
+            if (reuse && query.raw().equals(previous.raw()) && previousText != null) {
+                // Seuls les filtres ont changé
+                text = previousText;
+                documents = previousDocuments;
+            } else {
+                boolean narrows = reuse && previousText != null && query.text().contains(previous.text());
+                text = searchIndex.search(query.text(), narrows ? previousText : null, () -> isStale(gen));
+                if (text == null || isStale(gen)) return;
+                documents = documentHits(query.raw());
+            }
+        }
+        if (isStale(gen)) return;
+
+        BitSet facets = facetIndex.select(query.selection());
+        BitSet search = union(text, documents);
+        BitSet shown = search != null ? (BitSet) search.clone() : null;
+        if (facets != null) {
+            shown = (BitSet) facets.clone();
+            if (search != null) shown.and(search);
+        }
+        CandidatureFacetIndex.Counts counts = facetIndex.counts(query.selection(), search);
+        evaluationLatency.record(System.nanoTime() - start);
+
+        Result result = new Result(query, text, documents, facets, shown, counts);
+        Platform.runLater(() -> publish(gen, since, result));
+    }
+
+    private BitSet documentHits(String raw) {
+        BitSet hits = null;
+        for (String candidatureId : pdfTextIndex.searchCandidatures(raw)) {
+            int id = rowIds.idOf(candidatureId);
+            if (id < 0) continue;
+            if (hits == null) hits = new BitSet();
+            hits.set(id);
+        }
+        return hits;
+    }
+
+    private boolean isStale(long gen) {
+        return gen != generation.get();
+    }
+
+    private static BitSet union(BitSet a, BitSet b) {
+        if (a == null || b == null) return a != null ? a : b;
+        BitSet union = (BitSet) a.clone();
+        union.or(b);
+        return union;
+    }
+
+    /* =========================
+       PUBLICATION (thread UI)
+       ========================= */
+    private void publish(long gen, long since, Result result) {
+        if (isStale(gen)) return;
+
+        published = result.query();
+        textHits = result.textHits();
+        documentHits = result.documentHits();
+        facetHits = result.facetHits();
+        visible = result.visible();
+
+        // Lignes modifiées pendant l'évaluation : index plus récents que le résultat
+        for (int id = touched.nextSetBit(0); id >= 0; id = touched.nextSetBit(id + 1)) {
+            recheck(id);
+        }
+        touched.clear();
+
+        BitSet shown = visible;
+        filtered.setPredicate(shown == null ? null : c -> {
+            int id = c.getRowId();
+            return id >= 0 && shown.get(id);
+        });
+        onCounts.accept(result.counts());
+        inputLatency.record(System.nanoTime() - since);
+    }
+
+    /* =========================
+       MODIFICATIONS (thread UI)
+       ========================= */
+    @Override
+    public void onChange(CandidatureEvent event) {
+        int id = rowIds.idOf(event.candidature());
+        if (id < 0) return;
+
+        touched.set(id);
+        if (event.type() == CandidatureEvent.Type.REMOVED) {
+            clear(id);
+        } else {
+            recheck(id);
+        }
+        scheduleCounts();
+    }
+
+    private void recheck(int id) {
+        if (rowIds.get(id) == null) {
+            clear(id);
+            return;
+        }
+        if (textHits != null) textHits.set(id, searchIndex.rowMatches(id, published.text()));
+        if (facetHits != null) facetHits.set(id, facetIndex.rowMatches(id, published.selection()));
+        if (visible != null) {
+            boolean search = textHits == null || textHits.get(id) || documentHits != null && documentHits.get(id);
+            visible.set(id, search && (facetHits == null || facetHits.get(id)));
+        }
+    }
+
+    private void clear(int id) {
+        if (textHits != null) textHits.clear(id);
+        if (documentHits != null) documentHits.clear(id);
+        if (facetHits != null) facetHits.clear(id);
+        if (visible != null) visible.clear(id);
+    }
+
+    // Comptes recalculés une fois par impulsion après des modifications
+    private void scheduleCounts() {
+        if (countsPending) return;
+        countsPending = true;
+        Platform.runLater(() -> {
+            countsPending = false;
+            CandidatureFacetIndex.Selection selection = published.selection();
+            BitSet search = union(textHits, documentHits);
+            BitSet snapshot = search != null ? (BitSet) search.clone() : null;
+            worker.execute(() -> {
+                CandidatureFacetIndex.Counts counts = facetIndex.counts(selection, snapshot);
+                Platform.runLater(() -> onCounts.accept(counts));
+            });
+        });
+    }
+
+    /* =========================
+       MESURES
+       ========================= */
+
+    // Durée d'évaluation sur le thread de filtrage
+    public LatencyRecorder getEvaluationLatency() {
+        return evaluationLatency;
+    }
+
+    // De la saisie à la publication (délai de regroupement compris)
+    public LatencyRecorder getInputLatency() {
+        return inputLatency;
+    }
+
+    public void close() {
+        worker.shutdownNow();
+    }
+}
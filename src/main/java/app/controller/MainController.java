@@ -1,39 +1,133 @@
 package app.controller;
 
 import app.model.Candidature;
-import app.model.DocumentFile;
+import app.model.CandidatureEvent;
+import app.model.CandidatureListener;
 import app.repository.CandidatureRepository;
+import app.service.CandidatureRowIds;
+import app.service.CandidatureStats;
+import app.service.CandidatureTimeline;
+import app.service.DocumentHashIndex;
+import app.service.DocumentMetadataBackfill;
 import app.service.FileSystemService;
+import app.service.PdfTextIndex;
+import javafx.application.Platform;
+import javafx.beans.Observable;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.control.Alert;
 import javafx.scene.control.TableView;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class MainController {
 
     private final ObservableList<Candidature> candidatures;
-    private final CandidatureRepository repository = new CandidatureRepository();
 
-    public MainController(TableView<Candidature> table) {
+    private boolean loaded;
+    private final List<Runnable> onLoaded = new ArrayList<>();
+
+    // Numéros de ligne partagés par les index
+    private final CandidatureRowIds rowIds = new CandidatureRowIds();
+
+    // Texte des PDF, indexé en arrière-plan
+    private final PdfTextIndex pdfTextIndex =
+            new PdfTextIndex(FileSystemService.getRoot().resolve(".index").resolve("pdf-text.idx"));
+
+    // Compteurs des statistiques, tenus à jour par les événements
+    private final CandidatureStats stats = new CandidatureStats();
+
+    // Envois / réponses par jour, semaine et mois, tenus à jour en arrière-plan
+    private final CandidatureTimeline timeline = new CandidatureTimeline();
+
+    // Pages, taille, empreinte des documents : calculées hors du thread UI
+    private final DocumentMetadataBackfill metadataBackfill = new DocumentMetadataBackfill(Platform::runLater);
+
+    // Empreinte → documents : doublons reconnus à l'import
+    private final DocumentHashIndex hashIndex = new DocumentHashIndex();
+
+    // Abonnés aux modifications (index, statistiques...), notifiés sur le thread UI
+    private final List<CandidatureListener> listeners = new ArrayList<>();
+
+    // Une révision par ligne : l'incrémenter redessine / refiltre / retrie cette seule ligne
+    private final Map<Candidature, LongProperty> revisions = new IdentityHashMap<>();
+    private final Set<Candidature> pendingChanges = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private MainController(TableView<Candidature> table) {
         FileSystemService.init();
-        candidatures = FXCollections.observableArrayList(repository.load());
+        candidatures = FXCollections.observableArrayList(c -> new Observable[]{revisionOf(c)});
+        table.setItems(candidatures);
+    }
 
-        // 🔴 RESYNC DES CHEMINS
-        for (Candidature c : candidatures) {
-            if (c.getDossier() == null) continue;
-
-            for (DocumentFile doc : c.getDocuments()) {
-                if (doc.getFichier() != null) {
-                    doc.setFichier(
-                            c.getDossier().resolve(doc.getFichier().getFileName())
-                    );
-                }
+    // Index abonnés et chargement lancés une fois le contrôleur construit
+    public static MainController create(TableView<Candidature> table) {
+        MainController controller = new MainController(table);
+        controller.start();
+        return controller;
+    }
+
+    private void start() {
+        addListener(pdfTextIndex);
+        addListener(stats);
+        addListener(timeline);
+        addListener(metadataBackfill);
+        addListener(hashIndex);
+
+        loadInBackground();
+    }
+
+    /* =========================
+       CHARGEMENT PROGRESSIF
+       ========================= */
+    private void loadInBackground() {
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() {
+                // Chaque lot est publié dans la table dès qu'il est lu
+                CandidatureRepository.load(batch -> Platform.runLater(() -> {
+                    batch.forEach(MainController.this::attach);
+                    candidatures.addAll(batch);
+                }));
+                return null;
             }
-        }
+        };
 
-        sort();
-        table.setItems(candidatures);
+        task.setOnSucceeded(e -> {
+            loaded = true;
+            sort();
+            onLoaded.forEach(Runnable::run);
+            onLoaded.clear();
+        });
+
+        task.setOnFailed(e -> {
+            task.getException().printStackTrace();
+            new Alert(Alert.AlertType.ERROR,
+                    "Impossible de lire les candidatures enregistrées.").showAndWait();
+        });
+
+        Thread thread = new Thread(task, "candidatures-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Exécute l'action (thread UI) une fois toutes les candidatures chargées
+    public void whenLoaded(Runnable action) {
+        if (loaded) {
+            action.run();
+        } else {
+            onLoaded.add(action);
+        }
     }
 
     public ObservableList<Candidature> getCandidatures() {
@@ -41,19 +135,155 @@ public class MainController {
     }
 
     public void add(Candidature c) {
+        attach(c);
         candidatures.add(c);
         sort();
-        save();
+        save(c);
+    }
+
+    // Ajout groupé (imports) : un seul tri pour tout le lot
+    public void addAll(List<Candidature> added) {
+        added.forEach(this::attach);
+        candidatures.addAll(added);
+        sort();
+        added.forEach(this::save);
     }
 
     public void delete(Candidature c) {
         candidatures.remove(c);
+        detach(c);
         sort();
-        save();
+        CandidatureRepository.delete(c);
+    }
+
+    /* =========================
+       MODIFICATIONS DU MODÈLE
+       ========================= */
+    public void addListener(CandidatureListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CandidatureListener listener) {
+        listeners.remove(listener);
+    }
+
+    public CandidatureRowIds getRowIds() {
+        return rowIds;
+    }
+
+    public CandidatureStats getStats() {
+        return stats;
+    }
+
+    public CandidatureTimeline getTimeline() {
+        return timeline;
+    }
+
+    public PdfTextIndex getPdfTextIndex() {
+        return pdfTextIndex;
+    }
+
+    public DocumentHashIndex getHashIndex() {
+        return hashIndex;
     }
 
+    // Avant l'ajout à la liste : les index connaissent la ligne quand le filtre l'évalue
+    private void attach(Candidature c) {
+        rowIds.register(c);
+        c.clearDirty();
+        c.setChangeListener(this::onModelChange);
+        fire(CandidatureEvent.added(c));
+    }
+
+    private void detach(Candidature c) {
+        c.setChangeListener(null);
+        revisions.remove(c);
+        pendingChanges.remove(c);
+        fire(CandidatureEvent.removed(c));
+        rowIds.release(c);
+    }
+
+    private LongProperty revisionOf(Candidature c) {
+        return revisions.computeIfAbsent(c, k -> new SimpleLongProperty());
+    }
+
+    // Peut être appelé depuis un thread de fond (ex. renommage des dossiers)
+    private void onModelChange(CandidatureEvent event) {
+        if (Platform.isFxApplicationThread()) {
+            handleChange(event);
+        } else {
+            Platform.runLater(() -> handleChange(event));
+        }
+    }
+
+    private void handleChange(CandidatureEvent event) {
+        if (pendingChanges.isEmpty()) {
+            Platform.runLater(this::flushChanges);
+        }
+        pendingChanges.add(event.candidature());
+        fire(event);
+    }
+
+    // Une fois par impulsion : une sauvegarde et un rafraîchissement par candidature modifiée
+    private void flushChanges() {
+        for (Candidature c : pendingChanges) {
+            LongProperty revision = revisions.get(c);
+            if (revision == null) continue; // supprimée entre-temps
+            if (c.isDirty()) CandidatureRepository.save(c);
+            revision.set(revision.get() + 1);
+        }
+        pendingChanges.clear();
+    }
+
+    private void fire(CandidatureEvent event) {
+        for (CandidatureListener l : listeners) {
+            l.onChange(event);
+        }
+    }
+
+    // Sauvegarde complète (snapshot réécrit)
     public void save() {
-        repository.save(candidatures);
+        // Liste incomplète tant que le chargement n'est pas terminé : ne pas écraser le snapshot
+        if (!loaded) return;
+        CandidatureRepository.save(candidatures);
+    }
+
+    // Sauvegarde incrémentale d'une candidature modifiée (journal)
+    public void save(Candidature c) {
+        CandidatureRepository.save(c);
+    }
+
+    /* =========================
+       IMPORT / EXPORT JSON
+       ========================= */
+    public void exportJson(Path target) {
+        CandidatureRepository.exportJson(target, candidatures);
+    }
+
+    // Ajoute les candidatures du fichier qui ne sont pas déjà présentes ; retourne leur nombre
+    public int importJson(Path source) {
+        Set<String> ids = new HashSet<>();
+        for (Candidature c : candidatures) {
+            ids.add(c.getId());
+        }
+
+        List<Candidature> added = new ArrayList<>();
+        for (Candidature c : CandidatureRepository.importJson(source)) {
+            if (ids.add(c.getId())) {
+                added.add(c);
+            }
+        }
+
+        addAll(added);
+        return added.size();
+    }
+
+    public void close() {
+        timeline.close();
+        metadataBackfill.close();
+        hashIndex.close();
+        pdfTextIndex.close();
+        CandidatureRepository.close();
     }
 
     private void sort() {
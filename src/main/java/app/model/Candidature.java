@@ -1,6 +1,7 @@
 package app.model;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -8,13 +9,23 @@ import lombok.Setter;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Supplier;
 
+/**
+ * Candidature envoyée.
+ * <p>
+ * Chaque modification d'un champ suivi ({@link CandidatureField}) positionne son bit dans
+ * {@link #getDirtyFields()}, incrémente {@link #getVersion()} et, si la candidature est
+ * rattachée à un écouteur, émet un {@link CandidatureEvent}. Les documents se modifient
+ * uniquement via {@link #ajouterDocument}, {@link #retirerDocument} et {@link #setDocuments}.
+ */
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class Candidature {
 
     private String id;
@@ -29,6 +40,49 @@ public class Candidature {
     private String notes;
     private LocalDate dateRelance;
 
+    // Documents pas encore décodés (chargement différé jusqu'au premier accès)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile Supplier<List<DocumentFile>> documentsLoader;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient boolean deferredHasDocuments;
+    // Documents reçus par le constructeur, pas encore rattachés à cette candidature
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient boolean adoptPending;
+
+    // Suivi des modifications
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient CandidatureListener listener;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int dirtyFields;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient long version;
+
+    // Numéro de ligne attribué par les index de l'interface (-1 : aucun)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int rowId = -1;
+
+    public Candidature(String id, String entreprise, String poste, LocalDate dateEnvoi, StatutCandidature statut,
+                       Path dossier, List<DocumentFile> documents, String notes, LocalDate dateRelance) {
+        this.id = id;
+        this.entreprise = entreprise;
+        this.poste = poste;
+        this.dateEnvoi = dateEnvoi;
+        this.statut = statut;
+        this.dossier = dossier;
+        this.documents = documents;
+        this.notes = notes;
+        this.dateRelance = dateRelance;
+        // Rattachés au premier accès (voir adoptPending()) : "this" ne sort pas du constructeur
+        this.adoptPending = documents != null;
+    }
+
     public Candidature(String entreprise, String poste) {
         this.id = UUID.randomUUID().toString();
         this.entreprise = entreprise;
@@ -36,12 +90,220 @@ public class Candidature {
         this.statut = StatutCandidature.EN_ATTENTE;
     }
 
+    /* =========================
+       CHAMPS SUIVIS
+       ========================= */
+    public void setEntreprise(String entreprise) {
+        if (Objects.equals(this.entreprise, entreprise)) return;
+        String old = this.entreprise;
+        this.entreprise = entreprise;
+        changed(CandidatureField.ENTREPRISE, old, entreprise);
+    }
+
+    public void setPoste(String poste) {
+        if (Objects.equals(this.poste, poste)) return;
+        String old = this.poste;
+        this.poste = poste;
+        changed(CandidatureField.POSTE, old, poste);
+    }
+
+    public void setDateEnvoi(LocalDate dateEnvoi) {
+        if (Objects.equals(this.dateEnvoi, dateEnvoi)) return;
+        LocalDate old = this.dateEnvoi;
+        this.dateEnvoi = dateEnvoi;
+        changed(CandidatureField.DATE_ENVOI, old, dateEnvoi);
+    }
+
+    public void setStatut(StatutCandidature statut) {
+        if (this.statut == statut) return;
+        StatutCandidature old = this.statut;
+        this.statut = statut;
+        changed(CandidatureField.STATUT, old, statut);
+    }
+
+    public void setDossier(Path dossier) {
+        if (Objects.equals(this.dossier, dossier)) return;
+        Path old = this.dossier;
+        this.dossier = dossier;
+        changed(CandidatureField.DOSSIER, old, dossier);
+    }
+
+    public void setNotes(String notes) {
+        if (Objects.equals(this.notes, notes)) return;
+        String old = this.notes;
+        this.notes = notes;
+        changed(CandidatureField.NOTES, old, notes);
+    }
+
+    public void setDateRelance(LocalDate dateRelance) {
+        if (Objects.equals(this.dateRelance, dateRelance)) return;
+        LocalDate old = this.dateRelance;
+        this.dateRelance = dateRelance;
+        changed(CandidatureField.DATE_RELANCE, old, dateRelance);
+    }
+
+    /* =========================
+       DOCUMENTS
+       ========================= */
     public void ajouterDocument(DocumentFile doc) {
-        documents.add(doc);
+        loadedDocuments().add(doc);
+        doc.setOwner(this);
+        changed(CandidatureField.DOCUMENTS, null, doc);
+    }
+
+    public boolean retirerDocument(DocumentFile doc) {
+        if (!loadedDocuments().remove(doc)) return false;
+        doc.setOwner(null);
+        changed(CandidatureField.DOCUMENTS, doc, null);
+        return true;
+    }
+
+    // Lecture seule : passer par ajouterDocument / retirerDocument pour modifier
+    public List<DocumentFile> getDocuments() {
+        return Collections.unmodifiableList(loadedDocuments());
     }
 
     public void setDocuments(List<DocumentFile> documents) {
-        this.documents = documents;
+        this.documents = documents != null ? new ArrayList<>(documents) : new ArrayList<>();
+        this.documentsLoader = null;
+        this.adoptPending = false;
+        adopt(this.documents);
+        changed(CandidatureField.DOCUMENTS, null, null);
+    }
+
+    private List<DocumentFile> loadedDocuments() {
+        if (documentsLoader != null) {
+            synchronized (this) {
+                Supplier<List<DocumentFile>> loader = documentsLoader;
+                if (loader != null) {
+                    documents = new ArrayList<>(loader.get());
+                    adopt(documents);
+                    documentsLoader = null;
+                }
+            }
+        }
+        if (documents == null) {
+            documents = new ArrayList<>();
+        }
+        adoptPending();
+        return documents;
+    }
+
+    private void adoptPending() {
+        if (adoptPending) {
+            adoptPending = false;
+            adopt(documents);
+        }
+    }
+
+    private void adopt(List<DocumentFile> docs) {
+        if (docs == null) return;
+        for (DocumentFile doc : docs) {
+            doc.setOwner(this);
+        }
+    }
+
+    // Appelé par DocumentFile quand l'un de ses champs change
+    void documentChanged(DocumentFile doc) {
+        changed(CandidatureField.DOCUMENTS, null, doc);
+    }
+
+    /**
+     * Les documents seront décodés au premier appel de {@link #getDocuments()}.
+     */
+    public void deferDocuments(boolean hasDocuments, Supplier<List<DocumentFile>> loader) {
+        this.deferredHasDocuments = hasDocuments;
+        this.documentsLoader = loader;
+    }
+
+    @JsonIgnore
+    public boolean isDocumentsLoaded() {
+        return documentsLoader == null;
+    }
+
+    /**
+     * Copie de la liste, à prendre sur le thread UI avant de la confier à un autre thread ;
+     * {@code null} si les documents sont encore différés (ne force pas leur décodage).
+     */
+    public List<DocumentFile> documentsSnapshot() {
+        if (documentsLoader != null) return null;
+        adoptPending();
+        return documents != null ? List.copyOf(documents) : List.of();
+    }
+
+    // Ne force pas le décodage des documents différés
+    public boolean hasDocuments() {
+        if (documentsLoader != null) return deferredHasDocuments;
+        return documents != null && !documents.isEmpty();
+    }
+
+    /* =========================
+       SUIVI DES MODIFICATIONS
+       ========================= */
+    private void changed(CandidatureField field, Object oldValue, Object newValue) {
+        dirtyFields |= field.bit();
+        version++;
+        CandidatureListener l = listener;
+        if (l != null) {
+            l.onChange(CandidatureEvent.updated(this, field, oldValue, newValue));
+        }
+    }
+
+    // Un seul écouteur (le contrôleur) : pas de liste par candidature
+    @JsonIgnore
+    public void setChangeListener(CandidatureListener listener) {
+        if (documentsLoader == null) adoptPending();
+        this.listener = listener;
+    }
+
+    // Bits CandidatureField modifiés depuis le dernier clearDirty()
+    @JsonIgnore
+    public int getDirtyFields() {
+        return dirtyFields;
+    }
+
+    @JsonIgnore
+    public boolean isDirty() {
+        return dirtyFields != 0;
+    }
+
+    public void clearDirty() {
+        dirtyFields = 0;
+    }
+
+    // Compteur de modifications, croissant
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public int getRowId() {
+        return rowId;
+    }
+
+    @JsonIgnore
+    public void setRowId(int rowId) {
+        this.rowId = rowId;
+    }
+
+    // Copie indépendante (documents compris) : sauvegarde hors du thread UI
+    public Candidature copy() {
+        Supplier<List<DocumentFile>> loader = documentsLoader;
+        if (loader != null) {
+            // Documents jamais décodés donc jamais modifiés : la copie partage le même chargeur
+            Candidature copy = new Candidature(id, entreprise, poste, dateEnvoi, statut, dossier, null, notes, dateRelance);
+            copy.deferDocuments(deferredHasDocuments, loader);
+            return copy;
+        }
+
+        List<DocumentFile> docs = new ArrayList<>();
+        if (documents != null) {
+            for (DocumentFile doc : documents) {
+                docs.add(doc.copy());
+            }
+        }
+        return new Candidature(id, entreprise, poste, dateEnvoi, statut, dossier, docs, notes, dateRelance);
     }
 
 }
@@ -0,0 +1,31 @@
+package app.model;
+
+/**
+ * Modification d'une candidature.
+ * <p>
+ * {@code UPDATED} : un champ a changé ({@code field}, ancienne et nouvelle valeur ; pour
+ * {@link CandidatureField#DOCUMENTS}, {@code newValue} est le document ajouté ou modifié et
+ * {@code oldValue} le document retiré).
+ * {@code ADDED} / {@code REMOVED} : la candidature entre dans la liste ou en sort.
+ */
+public record CandidatureEvent(Type type, Candidature candidature, CandidatureField field,
+                               Object oldValue, Object newValue) {
+
+    public enum Type {
+        ADDED,
+        REMOVED,
+        UPDATED
+    }
+
+    public static CandidatureEvent added(Candidature c) {
+        return new CandidatureEvent(Type.ADDED, c, null, null, null);
+    }
+
+    public static CandidatureEvent removed(Candidature c) {
+        return new CandidatureEvent(Type.REMOVED, c, null, null, null);
+    }
+
+    public static CandidatureEvent updated(Candidature c, CandidatureField field, Object oldValue, Object newValue) {
+        return new CandidatureEvent(Type.UPDATED, c, field, oldValue, newValue);
+    }
+}
@@ -0,0 +1,24 @@
+package app.model;
+
+/**
+ * Champs suivis d'une candidature (un bit par champ dans {@link Candidature#getDirtyFields()}).
+ */
+public enum CandidatureField {
+
+    ENTREPRISE,
+    POSTE,
+    DATE_ENVOI,
+    STATUT,
+    DOSSIER,
+    NOTES,
+    DATE_RELANCE,
+    DOCUMENTS;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean isIn(int dirtyFields) {
+        return (dirtyFields & bit()) != 0;
+    }
+}
@@ -0,0 +1,7 @@
+package app.model;
+
+@FunctionalInterface
+public interface CandidatureListener {
+
+    void onChange(CandidatureEvent event);
+}
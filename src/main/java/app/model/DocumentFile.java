@@ -9,7 +9,6 @@ import java.util.Objects;
 
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -20,6 +19,20 @@ public class DocumentFile {
     private LocalDateTime dateMail;
     private String nom;
 
+    // Pages, taille, empreinte... : null tant qu'elles n'ont pas été calculées
+    private DocumentMetadata metadata;
+
+    // Candidature propriétaire, prévenue de chaque modification
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Candidature owner;
+
+    public DocumentFile(Path fichier, LocalDateTime dateMail, String nom) {
+        this.fichier = fichier;
+        this.dateMail = dateMail;
+        this.nom = nom;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -32,6 +45,12 @@ public class DocumentFile {
         return Objects.hash(fichier);
     }
 
+    public DocumentFile copy() {
+        DocumentFile copy = new DocumentFile(fichier, dateMail, nom);
+        copy.metadata = metadata;
+        return copy;
+    }
+
     @Override
     public String toString() {
         return nom;
@@ -42,8 +61,9 @@ public class DocumentFile {
     }
 
     public void setNom(String nom) {
+        if (Objects.equals(this.nom, nom)) return;
         this.nom =nom;
-
+        changed();
     }
 
     public Path getFichier() {
@@ -51,7 +71,9 @@ public class DocumentFile {
     }
 
     public void setFichier(Path fichier) {
+        if (Objects.equals(this.fichier, fichier)) return;
         this.fichier =fichier;
+        changed();
     }
 
     public LocalDateTime getDateMail() {
@@ -59,9 +81,28 @@ public class DocumentFile {
     }
 
     public void setDateMail(LocalDateTime date) {
+        if (Objects.equals(this.dateMail, date)) return;
         this.dateMail =date;
+        changed();
+    }
 
+    public DocumentMetadata getMetadata() {
+        return metadata;
     }
 
-}
+    public void setMetadata(DocumentMetadata metadata) {
+        if (Objects.equals(this.metadata, metadata)) return;
+        this.metadata = metadata;
+        changed();
+    }
+
+    void setOwner(Candidature owner) {
+        this.owner = owner;
+    }
 
+    private void changed() {
+        Candidature c = owner;
+        if (c != null) c.documentChanged(this);
+    }
+
+}
@@ -0,0 +1,26 @@
+package app.model;
+
+/**
+ * Métadonnées d'un PDF, calculées une fois (import ou rattrapage en arrière-plan) et
+ * enregistrées avec le {@link DocumentFile} : plus besoin d'ouvrir le PDF pour connaître
+ * son nombre de pages.
+ * <p>
+ * Elles restent valables tant que la taille et la date de modification du fichier sont
+ * celles enregistrées ({@link #isCurrent(long, long)}).
+ *
+ * @param pages            nombre de pages
+ * @param taille           taille du fichier en octets
+ * @param dateModification date de modification du fichier (ms depuis l'époque)
+ * @param sha256           empreinte du contenu, en hexadécimal
+ * @param texteExtrait     texte (et date du mail) déjà extraits du PDF
+ */
+public record DocumentMetadata(int pages, long taille, long dateModification, String sha256, boolean texteExtrait) {
+
+    public boolean isCurrent(long taille, long dateModification) {
+        return this.taille == taille && this.dateModification == dateModification;
+    }
+
+    public DocumentMetadata withTexteExtrait(boolean texteExtrait) {
+        return new DocumentMetadata(pages, taille, dateModification, sha256, texteExtrait);
+    }
+}
@@ -0,0 +1,29 @@
+package app.repository;
+
+/**
+ * Constantes du snapshot binaire, partagées par {@link CandidatureBinaryWriter}
+ * et {@link CandidatureBinaryReader}.
+ */
+final class CandidatureBinaryFormat {
+
+    static final int MAGIC = 0x43414E44; // "CAND"
+    static final short VERSION = 2;      // 2 : métadonnées des documents
+    static final short FIRST_VERSION = 1; // encore lue (documents sans métadonnées)
+
+    // Drapeaux d'une candidature
+    static final int FLAG_UUID_ID = 1;
+
+    // Drapeaux des métadonnées d'un document (0 : absentes)
+    static final int META_PRESENT = 1;
+    static final int META_SHA256 = 2;
+    static final int META_TEXT_EXTRACTED = 4;
+
+    // Encodage des chemins
+    static final int PATH_NULL = 0;
+    static final int PATH_IN_FOLDER = 1;   // nom seul, dans le dossier de la candidature
+    static final int PATH_UNDER_ROOT = 2;  // préfixe relatif à la racine + nom
+    static final int PATH_ABSOLUTE = 3;    // préfixe absolu + nom
+
+    private CandidatureBinaryFormat() {
+    }
+}
@@ -0,0 +1,217 @@
+package app.repository;
+
+import app.model.Candidature;
+import app.model.DocumentFile;
+import app.model.DocumentMetadata;
+import app.model.StatutCandidature;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lecture en flux du snapshot binaire écrit par {@link CandidatureBinaryWriter}.
+ * <p>
+ * Comme pour {@link CandidatureStreamReader}, le bloc documents de chaque candidature
+ * n'est décodé qu'au premier accès.
+ */
+class CandidatureBinaryReader implements SnapshotReader {
+
+    private static final StatutCandidature[] STATUTS = StatutCandidature.values();
+
+    private final DataInputStream in;
+    private final Path root;
+    private final String[] table;
+    private final short version;
+    private long remaining;
+
+    CandidatureBinaryReader(Path file, Path root) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+
+        if (in.readInt() != CandidatureBinaryFormat.MAGIC) {
+            in.close();
+            throw new IOException("Fichier non reconnu : " + file);
+        }
+        version = in.readShort();
+        if (version < CandidatureBinaryFormat.FIRST_VERSION || version > CandidatureBinaryFormat.VERSION) {
+            in.close();
+            throw new IOException("Version de snapshot non supportée : " + version);
+        }
+
+        // La racine courante fait foi : le dossier Candidatures peut avoir été déplacé
+        in.readUTF();
+        this.root = root.toAbsolutePath().normalize();
+
+        int count = (int) readVarLong(in);
+        table = new String[count];
+        for (int i = 0; i < count; i++) {
+            table[i] = readString(in);
+        }
+        remaining = readVarLong(in);
+    }
+
+    @Override
+    public Candidature next() throws IOException {
+        if (remaining <= 0) return null;
+        remaining--;
+
+        Candidature c = new Candidature();
+        int flags = in.readUnsignedByte();
+        if ((flags & CandidatureBinaryFormat.FLAG_UUID_ID) != 0) {
+            c.setId(new UUID(in.readLong(), in.readLong()).toString());
+        } else {
+            c.setId(readString(in));
+        }
+
+        c.setEntreprise(readRef(in));
+        c.setPoste(readRef(in));
+        c.setDateEnvoi(readEpochDay(in));
+        int statut = in.readUnsignedByte();
+        c.setStatut(statut == 0 ? null : STATUTS[statut - 1]);
+        c.setDossier(readPath(in, null));
+        c.setNotes(readString(in));
+        c.setDateRelance(readEpochDay(in));
+
+        int blockSize = (int) readVarLong(in);
+        byte[] block = new byte[blockSize];
+        in.readFully(block);
+
+        // Bloc "0 document" : un seul octet (compteur à 0)
+        if (blockSize <= 1) {
+            c.setDocuments(new ArrayList<>());
+        } else {
+            c.deferDocuments(true, () -> decodeDocuments(block, c));
+        }
+        return c;
+    }
+
+    private List<DocumentFile> decodeDocuments(byte[] block, Candidature c) {
+        try (DataInputStream docsIn = new DataInputStream(new ByteArrayInputStream(block))) {
+            int count = (int) readVarLong(docsIn);
+            List<DocumentFile> docs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Path fichier = readPath(docsIn, c.getDossier());
+                LocalDateTime dateMail = readEpochSecond(docsIn);
+                String nom = readName(docsIn, fichier);
+                DocumentFile doc = new DocumentFile(fichier, dateMail, nom);
+                if (version >= 2) doc.setMetadata(readMetadata(docsIn));
+                docs.add(doc);
+            }
+            return docs;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Documents illisibles pour " + c.getEntreprise(), e);
+        }
+    }
+
+    /* =========================
+       CHEMINS
+       ========================= */
+    private Path readPath(DataInputStream in, Path base) throws IOException {
+        int kind = in.readUnsignedByte();
+        switch (kind) {
+            case CandidatureBinaryFormat.PATH_NULL:
+                return null;
+            case CandidatureBinaryFormat.PATH_IN_FOLDER: {
+                String name = readString(in);
+                return base != null ? base.resolve(name) : root.resolve(name);
+            }
+            case CandidatureBinaryFormat.PATH_UNDER_ROOT: {
+                String prefix = readRef(in);
+                return root.resolve(prefix).resolve(readString(in));
+            }
+            case CandidatureBinaryFormat.PATH_ABSOLUTE: {
+                String prefix = readRef(in);
+                String name = readString(in);
+                return prefix == null ? Path.of(name) : Path.of(prefix).resolve(name);
+            }
+            default:
+                throw new IOException("Encodage de chemin inconnu : " + kind);
+        }
+    }
+
+    private static String readName(DataInputStream in, Path fichier) throws IOException {
+        long tag = readVarLong(in);
+        if (tag == 0) return null;
+        if (tag == 1) return fichier != null && fichier.getFileName() != null ? fichier.getFileName().toString() : null;
+        byte[] bytes = new byte[(int) (tag - 2)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static DocumentMetadata readMetadata(DataInputStream in) throws IOException {
+        int flags = in.readUnsignedByte();
+        if ((flags & CandidatureBinaryFormat.META_PRESENT) == 0) return null;
+
+        int pages = (int) readVarLong(in);
+        long taille = readVarLong(in);
+        long dateModification = readVarLong(in);
+        String sha256 = null;
+        if ((flags & CandidatureBinaryFormat.META_SHA256) != 0) {
+            byte[] sha = new byte[32];
+            in.readFully(sha);
+            sha256 = HexFormat.of().formatHex(sha);
+        }
+        return new DocumentMetadata(pages, taille, dateModification, sha256,
+                (flags & CandidatureBinaryFormat.META_TEXT_EXTRACTED) != 0);
+    }
+
+    /* =========================
+       PRIMITIVES
+       ========================= */
+    private String readRef(DataInputStream in) throws IOException {
+        long ref = readVarLong(in);
+        return ref == 0 ? null : table[(int) (ref - 1)];
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        long len = readVarLong(in);
+        if (len == 0) return null;
+        byte[] bytes = new byte[(int) (len - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDate readEpochDay(DataInputStream in) throws IOException {
+        long v = readVarLong(in);
+        return v == 0 ? null : LocalDate.ofEpochDay(unZigZag(v - 1));
+    }
+
+    private static LocalDateTime readEpochSecond(DataInputStream in) throws IOException {
+        long v = readVarLong(in);
+        if (v == 0) return null;
+        int nanos = (int) readVarLong(in);
+        return LocalDateTime.ofEpochSecond(unZigZag(v - 1), nanos, ZoneOffset.UTC);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new EOFException("Entier variable mal formé");
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
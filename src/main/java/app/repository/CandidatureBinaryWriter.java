@@ -0,0 +1,257 @@
+package app.repository;
+
+import app.model.Candidature;
+import app.model.DocumentFile;
+import app.model.DocumentMetadata;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Écriture du snapshot binaire {@code candidatures.bin}.
+ * <p>
+ * Format (version {@value CandidatureBinaryFormat#VERSION}) :
+ * <pre>
+ * en-tête   : MAGIC (int) | VERSION (short) | dossier racine (UTF)
+ * chaînes   : nombre | chaînes UTF-8 (entreprises, postes, préfixes de dossiers)
+ * données   : nombre de candidatures | candidatures
+ * </pre>
+ * Les dates sont stockées en jours (LocalDate) ou secondes (LocalDateTime) depuis l'époque,
+ * les chemins relativement à {@code FileSystemService.getRoot()} ou au dossier de la candidature.
+ * Les documents de chaque candidature forment un bloc préfixé par sa taille, ce qui permet
+ * au lecteur de différer leur décodage ; chaque document y porte ses métadonnées
+ * (pages, taille, date de modification, empreinte) depuis la version 2.
+ */
+class CandidatureBinaryWriter {
+
+    // Une instance par écriture : la table des chaînes est propre à chaque fichier
+    private final Path root;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final List<String> table = new ArrayList<>();
+
+    CandidatureBinaryWriter(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Écrit toutes les candidatures dans {@code target} et retourne le nombre d'octets écrits.
+     */
+    long write(Path target, Collection<Candidature> all) throws IOException {
+        // 1re passe : table des chaînes répétées
+        for (Candidature c : all) {
+            intern(c.getEntreprise());
+            intern(c.getPoste());
+            internPrefix(c.getDossier(), null);
+            for (DocumentFile doc : documentsOf(c)) {
+                internPrefix(doc.getFichier(), c.getDossier());
+            }
+        }
+
+        try (OutputStream file = Files.newOutputStream(target);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+
+            out.writeInt(CandidatureBinaryFormat.MAGIC);
+            out.writeShort(CandidatureBinaryFormat.VERSION);
+            out.writeUTF(root.toString());
+
+            writeVarLong(out, table.size());
+            for (String s : table) {
+                writeString(out, s);
+            }
+
+            writeVarLong(out, all.size());
+            ByteArrayOutputStream block = new ByteArrayOutputStream(512);
+            DataOutputStream blockOut = new DataOutputStream(block);
+            for (Candidature c : all) {
+                writeCandidature(out, c, block, blockOut);
+            }
+        }
+        return Files.size(target);
+    }
+
+    private void writeCandidature(DataOutputStream out, Candidature c,
+                                  ByteArrayOutputStream block, DataOutputStream blockOut) throws IOException {
+        UUID uuid = parseUuid(c.getId());
+        out.writeByte(uuid != null ? CandidatureBinaryFormat.FLAG_UUID_ID : 0);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            writeString(out, c.getId());
+        }
+
+        writeRef(out, c.getEntreprise());
+        writeRef(out, c.getPoste());
+        writeEpochDay(out, c.getDateEnvoi());
+        out.writeByte(c.getStatut() == null ? 0 : c.getStatut().ordinal() + 1);
+        writePath(out, c.getDossier(), null);
+        writeString(out, c.getNotes());
+        writeEpochDay(out, c.getDateRelance());
+
+        // Bloc documents (taille + contenu)
+        block.reset();
+        List<DocumentFile> docs = documentsOf(c);
+        writeVarLong(blockOut, docs.size());
+        for (DocumentFile doc : docs) {
+            writePath(blockOut, doc.getFichier(), c.getDossier());
+            writeEpochSecond(blockOut, doc.getDateMail());
+            writeName(blockOut, doc.getNom(), doc.getFichier());
+            writeMetadata(blockOut, doc.getMetadata());
+        }
+        blockOut.flush();
+        writeVarLong(out, block.size());
+        block.writeTo(out);
+    }
+
+    private static List<DocumentFile> documentsOf(Candidature c) {
+        List<DocumentFile> docs = c.getDocuments();
+        return docs != null ? docs : List.of();
+    }
+
+    /* =========================
+       TABLE DES CHAÎNES
+       ========================= */
+    private void intern(String s) {
+        if (s != null && !strings.containsKey(s)) {
+            strings.put(s, table.size());
+            table.add(s);
+        }
+    }
+
+    private void internPrefix(Path p, Path base) {
+        if (p == null) return;
+        Path parent = p.toAbsolutePath().normalize().getParent();
+        if (parent == null) return;
+        if (base != null && parent.equals(base.toAbsolutePath().normalize())) return;
+        intern(prefixOf(parent));
+    }
+
+    private String prefixOf(Path parent) {
+        return parent.startsWith(root) ? root.relativize(parent).toString() : parent.toString();
+    }
+
+    private void writeRef(DataOutputStream out, String s) throws IOException {
+        writeVarLong(out, s == null ? 0 : strings.get(s) + 1);
+    }
+
+    /* =========================
+       CHEMINS
+       ========================= */
+    private void writePath(DataOutputStream out, Path p, Path base) throws IOException {
+        if (p == null) {
+            out.writeByte(CandidatureBinaryFormat.PATH_NULL);
+            return;
+        }
+        Path abs = p.toAbsolutePath().normalize();
+        Path parent = abs.getParent();
+        String name = abs.getFileName() != null ? abs.getFileName().toString() : "";
+
+        if (parent == null) {
+            out.writeByte(CandidatureBinaryFormat.PATH_ABSOLUTE);
+            writeVarLong(out, 0);
+            writeString(out, abs.toString());
+        } else if (base != null && parent.equals(base.toAbsolutePath().normalize())) {
+            out.writeByte(CandidatureBinaryFormat.PATH_IN_FOLDER);
+            writeString(out, name);
+        } else {
+            out.writeByte(parent.startsWith(root)
+                    ? CandidatureBinaryFormat.PATH_UNDER_ROOT
+                    : CandidatureBinaryFormat.PATH_ABSOLUTE);
+            writeRef(out, prefixOf(parent));
+            writeString(out, name);
+        }
+    }
+
+    // Nom du document : le plus souvent identique au nom du fichier
+    private void writeName(DataOutputStream out, String nom, Path fichier) throws IOException {
+        if (nom == null) {
+            writeVarLong(out, 0);
+        } else if (fichier != null && fichier.getFileName() != null && nom.equals(fichier.getFileName().toString())) {
+            writeVarLong(out, 1);
+        } else {
+            byte[] bytes = nom.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length + 2L);
+            out.write(bytes);
+        }
+    }
+
+    // Drapeaux | pages | taille | date de modification | empreinte (32 octets)
+    private static void writeMetadata(DataOutputStream out, DocumentMetadata m) throws IOException {
+        if (m == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] sha = m.sha256() != null && m.sha256().length() == 64 ? HexFormat.of().parseHex(m.sha256()) : null;
+        out.writeByte(CandidatureBinaryFormat.META_PRESENT
+                | (sha != null ? CandidatureBinaryFormat.META_SHA256 : 0)
+                | (m.texteExtrait() ? CandidatureBinaryFormat.META_TEXT_EXTRACTED : 0));
+        writeVarLong(out, m.pages());
+        writeVarLong(out, m.taille());
+        writeVarLong(out, m.dateModification());
+        if (sha != null) out.write(sha);
+    }
+
+    /* =========================
+       PRIMITIVES
+       ========================= */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static void writeEpochDay(DataOutputStream out, LocalDate date) throws IOException {
+        writeVarLong(out, date == null ? 0 : zigZag(date.toEpochDay()) + 1);
+    }
+
+    private static void writeEpochSecond(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        writeVarLong(out, zigZag(dateTime.toEpochSecond(ZoneOffset.UTC)) + 1);
+        writeVarLong(out, dateTime.getNano());
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) return null;
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package app.repository;
+
+import app.model.Candidature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Journal append-only des modifications de candidatures.
+ * <p>
+ * Chaque modification est ajoutée en fin de fichier sous forme d'une ligne JSON
+ * ({@code PUT} = candidature complète, {@code DEL} = suppression par id). Quand le
+ * journal devient trop long, il est renommé puis fusionné avec le snapshot binaire
+ * ({@code candidatures.bin}) dans un thread d'arrière-plan.
+ * <p>
+ * Au démarrage : snapshot (lu en flux par {@link CandidatureBinaryReader}) puis
+ * journal en cours de compaction et journal actif ({@link #readTail()}).
+ */
+class CandidatureJournal {
+
+    static final String OP_PUT = "PUT";
+    static final String OP_DEL = "DEL";
+
+    private static final int COMPACTION_THRESHOLD = 500;
+
+    private final ObjectMapper mapper;
+    private final Path snapshot;
+    private final Path root;
+    private final Path active;
+    private final Path compacting;
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "journal-compaction");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private OutputStream writer;
+    private int entries;
+    private Future<?> compaction;
+
+    CandidatureJournal(Path snapshot, Path root, ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.snapshot = snapshot;
+        this.root = root;
+        this.active = snapshot.resolveSibling(snapshot.getFileName() + ".journal");
+        this.compacting = snapshot.resolveSibling(snapshot.getFileName() + ".journal.old");
+    }
+
+    /* =========================
+       LECTURE (journal)
+       ========================= */
+    Path getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Dernier état connu de chaque candidature modifiée depuis le snapshot.
+     * Une valeur {@code null} signifie que la candidature a été supprimée.
+     */
+    synchronized Map<String, JsonNode> readTail() throws IOException {
+        Map<String, JsonNode> tail = new LinkedHashMap<>();
+        entries = 0;
+        entries += apply(compacting, tail, true);
+        entries += apply(active, tail, true);
+        return tail;
+    }
+
+    /**
+     * Compaction interrompue lors de la session précédente : on la relance
+     * (une fois le snapshot entièrement lu).
+     */
+    synchronized void resumeCompaction() {
+        if (Files.exists(compacting) && (compaction == null || compaction.isDone())) {
+            compaction = compactor.submit(this::compact);
+        }
+    }
+
+    /**
+     * Candidature enregistrée dans une entrée {@code PUT} du journal.
+     */
+    Candidature decode(JsonNode data) throws IOException {
+        Candidature c = mapper.treeToValue(data, Candidature.class);
+        CandidatureStreamReader.resyncPaths(c, c.getDocuments());
+        return c;
+    }
+
+    private int apply(Path journal, Map<String, JsonNode> state, boolean keepDeletes) throws IOException {
+        if (!Files.exists(journal)) return 0;
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonNode entry;
+                try {
+                    entry = mapper.readTree(line);
+                } catch (IOException e) {
+                    // Dernière ligne tronquée (arrêt brutal pendant l'écriture) : on l'ignore
+                    System.err.println("Entrée de journal illisible ignorée : " + journal);
+                    continue;
+                }
+                String id = entry.path("id").asText();
+                if (OP_DEL.equals(entry.path("op").asText())) {
+                    if (keepDeletes) {
+                        state.put(id, null);
+                    } else {
+                        state.remove(id);
+                    }
+                } else {
+                    state.put(id, entry.get("data"));
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /* =========================
+       ÉCRITURE (O(modification))
+       ========================= */
+    // Retourne le nombre d'octets ajoutés au journal
+    synchronized int put(String id, JsonNode data) {
+        ObjectNode entry = mapper.createObjectNode();
+        entry.put("op", OP_PUT);
+        entry.put("id", id);
+        entry.set("data", data);
+        return append(entry);
+    }
+
+    synchronized int delete(String id) {
+        ObjectNode entry = mapper.createObjectNode();
+        entry.put("op", OP_DEL);
+        entry.put("id", id);
+        return append(entry);
+    }
+
+    private int append(ObjectNode entry) {
+        int bytes;
+        try {
+            if (writer == null) {
+                writer = new BufferedOutputStream(Files.newOutputStream(active,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+            }
+            byte[] line = mapper.writeValueAsBytes(entry);
+            writer.write(line);
+            writer.write('\n');
+            writer.flush();
+            bytes = line.length + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur écriture journal", e);
+        }
+
+        if (++entries >= COMPACTION_THRESHOLD) {
+            scheduleCompaction();
+        }
+        return bytes;
+    }
+
+    /* =========================
+       COMPACTION (arrière-plan)
+       ========================= */
+    private void scheduleCompaction() {
+        if (compactor.isShutdown()) return; // écriture après la fermeture : compactée au prochain démarrage
+        if (compaction != null && !compaction.isDone()) return;
+        if (Files.exists(compacting)) return; // compaction précédente non terminée
+
+        try {
+            closeWriter();
+            Files.move(active, compacting, StandardCopyOption.ATOMIC_MOVE);
+            entries = 0;
+        } catch (IOException e) {
+            System.err.println("Rotation du journal impossible : " + e.getMessage());
+            return;
+        }
+
+        compaction = compactor.submit(this::compact);
+    }
+
+    private void compact() {
+        try {
+            Map<String, Candidature> state = readSnapshot();
+
+            Map<String, JsonNode> entries = new LinkedHashMap<>();
+            apply(compacting, entries, true);
+            for (Map.Entry<String, JsonNode> e : entries.entrySet()) {
+                if (e.getValue() == null) {
+                    state.remove(e.getKey());
+                } else {
+                    state.put(e.getKey(), decode(e.getValue()));
+                }
+            }
+
+            writeSnapshot(state.values());
+            Files.deleteIfExists(compacting);
+        } catch (IOException e) {
+            // Le journal renommé est conservé : il sera rejoué au prochain démarrage
+            System.err.println("Compaction du journal impossible : " + e.getMessage());
+        }
+    }
+
+    private Map<String, Candidature> readSnapshot() throws IOException {
+        Map<String, Candidature> state = new LinkedHashMap<>();
+        if (!Files.exists(snapshot)) return state;
+        try (CandidatureBinaryReader reader = new CandidatureBinaryReader(snapshot, root)) {
+            Candidature c;
+            while ((c = reader.next()) != null) {
+                state.put(c.getId(), c);
+            }
+        }
+        return state;
+    }
+
+    private long writeSnapshot(Collection<Candidature> all) throws IOException {
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        long size = new CandidatureBinaryWriter(root).write(tmp, all);
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    /**
+     * Réécriture complète du snapshot (sauvegarde globale) : les journaux deviennent obsolètes.
+     * Retourne la taille du snapshot écrit.
+     */
+    synchronized long rewrite(Collection<Candidature> all) throws IOException {
+        awaitCompaction();
+        closeWriter();
+
+        long size = writeSnapshot(all);
+
+        Files.deleteIfExists(compacting);
+        Files.deleteIfExists(active);
+        entries = 0;
+        return size;
+    }
+
+    synchronized void close() {
+        awaitCompaction();
+        try {
+            closeWriter();
+        } catch (IOException e) {
+            System.err.println("Fermeture du journal impossible : " + e.getMessage());
+        }
+        compactor.shutdown();
+    }
+
+    private void awaitCompaction() {
+        if (compaction == null) return;
+        try {
+            compaction.get();
+        } catch (Exception e) {
+            System.err.println("Compaction interrompue : " + e.getMessage());
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package app.repository;
 
 import app.model.Candidature;
+import app.service.FileSystemService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 public class CandidatureRepository {
 
@@ -16,35 +23,158 @@ public class CandidatureRepository {
             .registerModule(new JavaTimeModule()) // support Java 8 Date/Time
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // écrire en ISO-8601
 
-    private static final File FILE = new File(System.getProperty("user.home"), "candidatures.json");
+    // Snapshot binaire ; l'ancien fichier JSON ne sert plus qu'à la migration et à l'import/export
+    private static final File FILE = new File(System.getProperty("user.home"), "candidatures.bin");
+    private static final File JSON_FILE = new File(System.getProperty("user.home"), "candidatures.json");
+    private static final CandidatureJournal journal =
+            new CandidatureJournal(FILE.toPath(), FileSystemService.getRoot(), mapper);
+
+    // Fenêtre de regroupement des sauvegardes (ms), réglable avec -Dcandidatures.save.window=...
+    private static final long SAVE_WINDOW_MS = Long.getLong("candidatures.save.window", 300);
+    private static final PersistenceWriter writer = new PersistenceWriter(journal, mapper, SAVE_WINDOW_MS);
     private static List<Candidature> candidatures = new ArrayList<>();
 
+    private static final int FIRST_BATCH_SIZE = 100;
+    private static final int BATCH_SIZE = 2_000;
+
     public static List<Candidature> getAll() {
         return candidatures;
     }
 
     public static void add(Candidature c) {
         candidatures.add(c);
-        save(candidatures);
+        save(c);
     }
 
+    // Sauvegarde d'une seule candidature : une ligne ajoutée au journal (en différé)
+    public static void save(Candidature c) {
+        writer.markDirty(c);
+    }
+
+    public static void delete(Candidature c) {
+        writer.markDeleted(c.getId());
+    }
+
+    // Sauvegarde complète : réécrit le snapshot (fichier temporaire + déplacement atomique)
     public static void save(List<Candidature> list) {
+        writer.markAll(list);
+    }
+
+
+    public static List<Candidature> load() {
+        return load(batch -> {});
+    }
+
+    /**
+     * Lecture en flux du snapshot puis application du journal. Les candidatures sont
+     * transmises à {@code sink} par lots au fil de la lecture (le premier lot est petit
+     * pour un affichage immédiat) ; leurs documents ne sont décodés qu'au premier accès.
+     * <p>
+     * Sans snapshot binaire, l'ancien {@code candidatures.json} est lu puis converti.
+     */
+    public static List<Candidature> load(Consumer<List<Candidature>> sink) {
         try {
-            mapper.writeValue(FILE, list);
+            Map<String, JsonNode> tail = new LinkedHashMap<>();
+            boolean migration = !FILE.exists() && JSON_FILE.exists();
+            if (migration) {
+                // Journal éventuellement laissé à côté de l'ancien snapshot JSON
+                tail.putAll(new CandidatureJournal(JSON_FILE.toPath(), FileSystemService.getRoot(), mapper).readTail());
+            }
+            tail.putAll(journal.readTail());
+
+            List<Candidature> all = new ArrayList<>();
+            List<Candidature> batch = new ArrayList<>();
+            int batchSize = FIRST_BATCH_SIZE;
+            boolean missingIds = false;
+
+            try (SnapshotReader reader = openSnapshot()) {
+                Candidature c;
+                while (reader != null && (c = reader.next()) != null) {
+                    if (c.getId() == null || c.getId().isEmpty()) {
+                        c.setId(UUID.randomUUID().toString());
+                        missingIds = true;
+                    }
+                    if (tail.containsKey(c.getId())) {
+                        JsonNode latest = tail.remove(c.getId());
+                        if (latest == null) continue; // supprimée depuis le snapshot
+                        c = journal.decode(latest);
+                    }
+
+                    batch.add(c);
+                    if (batch.size() >= batchSize) {
+                        all.addAll(batch);
+                        sink.accept(batch);
+                        batch = new ArrayList<>();
+                        batchSize = BATCH_SIZE;
+                    }
+                }
+            }
+
+            // Candidatures créées depuis le dernier snapshot
+            for (JsonNode latest : tail.values()) {
+                if (latest != null) batch.add(journal.decode(latest));
+            }
+            if (!batch.isEmpty()) {
+                all.addAll(batch);
+                sink.accept(batch);
+            }
+
+            candidatures = all;
+            journal.resumeCompaction();
+            if (migration || missingIds) {
+                // Premier snapshot binaire / ids attribués aux anciennes données
+                writer.markAll(all);
+            }
+            return candidatures;  // <-- retourner la liste
         } catch (IOException e) {
-            throw new RuntimeException("Erreur écriture JSON", e);
+            throw new RuntimeException("Erreur lecture des candidatures", e);
         }
     }
 
+    private static SnapshotReader openSnapshot() throws IOException {
+        if (FILE.exists()) {
+            return new CandidatureBinaryReader(FILE.toPath(), FileSystemService.getRoot());
+        }
+        if (JSON_FILE.exists()) {
+            return new CandidatureStreamReader(JSON_FILE.toPath(), mapper);
+        }
+        return null;
+    }
 
-    public static List<Candidature> load() {
-        if (!FILE.exists()) return new ArrayList<>();
+    /* =========================
+       IMPORT / EXPORT JSON
+       ========================= */
+    public static void exportJson(Path target, List<Candidature> list) {
         try {
-            candidatures = mapper.readValue(FILE,
-                    mapper.getTypeFactory().constructCollectionType(List.class, Candidature.class));
-            return candidatures;  // <-- retourner la liste
+            mapper.writerWithDefaultPrettyPrinter().writeValue(target.toFile(), list);
+        } catch (IOException e) {
+            throw new RuntimeException("Erreur écriture JSON", e);
+        }
+    }
+
+    public static List<Candidature> importJson(Path source) {
+        List<Candidature> imported = new ArrayList<>();
+        try (SnapshotReader reader = new CandidatureStreamReader(source, mapper)) {
+            Candidature c;
+            while ((c = reader.next()) != null) {
+                if (c.getId() == null || c.getId().isEmpty()) {
+                    c.setId(UUID.randomUUID().toString());
+                }
+                imported.add(c);
+            }
+            return imported;
         } catch (IOException e) {
             throw new RuntimeException("Erreur lecture JSON", e);
         }
     }
+
+    public static PersistenceStats getPersistenceStats() {
+        return writer.getStats();
+    }
+
+    // À appeler à la fermeture : écrit les modifications en attente puis ferme le journal
+    public static void close() {
+        writer.close();
+        journal.close();
+    }
 }
@@ -0,0 +1,128 @@
+package app.repository;
+
+import app.model.Candidature;
+import app.model.DocumentFile;
+import app.model.StatutCandidature;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture en flux d'un fichier JSON de candidatures (ancien snapshot {@code candidatures.json},
+ * import) avec le {@link JsonParser} de Jackson.
+ * <p>
+ * Chaque candidature est lue champ par champ sans passer par la réflexion de databind.
+ * La liste des documents n'est pas décodée : ses octets JSON sont conservés tels quels
+ * et ne seront transformés en {@link DocumentFile} qu'au premier accès
+ * (sélection de la candidature dans la table).
+ */
+class CandidatureStreamReader implements SnapshotReader {
+
+    private final ObjectMapper mapper;
+    private final JavaType documentListType;
+    private final JsonParser parser;
+
+    CandidatureStreamReader(Path file, ObjectMapper mapper) throws IOException {
+        this.mapper = mapper;
+        this.documentListType = mapper.getTypeFactory().constructCollectionType(List.class, DocumentFile.class);
+        this.parser = mapper.createParser(file.toFile());
+
+        JsonToken first = parser.nextToken();
+        if (first != null && first != JsonToken.START_ARRAY) {
+            throw new IOException("Format JSON inattendu : tableau de candidatures attendu");
+        }
+    }
+
+    @Override
+    public Candidature next() throws IOException {
+        JsonToken token = parser.nextToken();
+        while (token == JsonToken.START_ARRAY || isScalar(token)) {
+            parser.skipChildren(); // élément inattendu dans le tableau
+            token = parser.nextToken();
+        }
+        if (token != JsonToken.START_OBJECT) return null;
+
+        Candidature c = new Candidature();
+        byte[] documents = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) continue;
+
+            switch (field) {
+                case "id" -> c.setId(parser.getText());
+                case "entreprise" -> c.setEntreprise(parser.getText());
+                case "poste" -> c.setPoste(parser.getText());
+                case "notes" -> c.setNotes(parser.getText());
+                case "statut" -> c.setStatut(parser.readValueAs(StatutCandidature.class));
+                case "dateEnvoi" -> c.setDateEnvoi(parser.readValueAs(LocalDate.class));
+                case "dateRelance" -> c.setDateRelance(parser.readValueAs(LocalDate.class));
+                case "dossier" -> c.setDossier(parser.readValueAs(Path.class));
+                case "documents" -> documents = copyDocuments();
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (documents == null) {
+            c.setDocuments(new ArrayList<>());
+        } else {
+            byte[] raw = documents;
+            c.deferDocuments(raw.length > 2, () -> decodeDocuments(raw, c)); // "[]" = aucun document
+        }
+        return c;
+    }
+
+    private static boolean isScalar(JsonToken token) {
+        return token != null && token.isScalarValue();
+    }
+
+    // Conserve le tableau "documents" sous forme d'octets JSON compacts
+    private byte[] copyDocuments() throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+
+    private List<DocumentFile> decodeDocuments(byte[] raw, Candidature c) {
+        try {
+            List<DocumentFile> docs = mapper.readValue(raw, documentListType);
+            resyncPaths(c, docs);
+            return docs;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Documents illisibles pour " + c.getEntreprise(), e);
+        }
+    }
+
+    /**
+     * Le dossier de la candidature fait foi : les fichiers sont recherchés dedans.
+     */
+    static void resyncPaths(Candidature c, List<DocumentFile> docs) {
+        if (c.getDossier() == null || docs == null) return;
+        for (DocumentFile doc : docs) {
+            if (doc.getFichier() != null) {
+                doc.setFichier(c.getDossier().resolve(doc.getFichier().getFileName()));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,16 @@
+package app.repository;
+
+/**
+ * Compteurs de l'écrivain de sauvegardes à un instant donné.
+ *
+ * @param avoided demandes remplacées par une demande plus récente avant d'être écrites
+ */
+public record PersistenceStats(long requested, long written, long avoided, long bytes,
+                               double averageLatencyMs, double maxLatencyMs) {
+
+    @Override
+    public String toString() {
+        return String.format("%d demandes, %d écritures (%d évitées), %d octets, latence moy. %.1f ms / max %.1f ms",
+                requested, written, avoided, bytes, averageLatencyMs, maxLatencyMs);
+    }
+}
@@ -0,0 +1,207 @@
+package app.repository;
+
+import app.model.Candidature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Écrivain unique des sauvegardes.
+ * <p>
+ * Les demandes de sauvegarde (thread UI) ne font qu'une copie de la candidature
+ * modifiée ; les demandes reçues pendant la fenêtre de regroupement sont fusionnées
+ * puis sérialisées et écrites par un seul thread d'arrière-plan. Une demande reçue après
+ * {@link #close()} est écrite tout de suite, sur le thread appelant.
+ */
+class PersistenceWriter {
+
+    private final CandidatureJournal journal;
+    private final ObjectMapper mapper;
+    private final long windowMillis;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "candidatures-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // État en attente, protégé par "this"
+    private Map<String, Candidature> pendingPuts = new LinkedHashMap<>();
+    private Set<String> pendingDeletes = new LinkedHashSet<>();
+    private List<Candidature> pendingSnapshot;
+    private ScheduledFuture<?> scheduled;
+    private boolean closed;
+
+    // Une seule écriture à la fois : thread writer, ou thread appelant après la fermeture
+    private final Object flushLock = new Object();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong avoided = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong latencyTotalNanos = new AtomicLong();
+    private final AtomicLong latencyMaxNanos = new AtomicLong();
+
+    PersistenceWriter(CandidatureJournal journal, ObjectMapper mapper, long windowMillis) {
+        this.journal = journal;
+        this.mapper = mapper;
+        this.windowMillis = windowMillis;
+    }
+
+    /* =========================
+       DEMANDES (thread appelant)
+       ========================= */
+    void markDirty(Candidature c) {
+        synchronized (this) {
+            requested.incrementAndGet();
+            if (pendingDeletes.remove(c.getId())) avoided.incrementAndGet();
+            if (pendingPuts.put(c.getId(), c.copy()) != null) avoided.incrementAndGet();
+            c.clearDirty(); // la copie porte désormais ces modifications
+            if (schedule()) return;
+        }
+        flush();
+    }
+
+    void markDeleted(String id) {
+        synchronized (this) {
+            requested.incrementAndGet();
+            if (pendingPuts.remove(id) != null) avoided.incrementAndGet();
+            if (!pendingDeletes.add(id)) avoided.incrementAndGet();
+            if (schedule()) return;
+        }
+        flush();
+    }
+
+    // Sauvegarde complète : remplace toutes les modifications en attente
+    void markAll(List<Candidature> all) {
+        synchronized (this) {
+            requested.incrementAndGet();
+            // Tout ce qui attendait est couvert par la nouvelle sauvegarde complète
+            avoided.addAndGet((pendingSnapshot != null ? 1 : 0) + pendingPuts.size() + pendingDeletes.size());
+            List<Candidature> copies = new ArrayList<>(all.size());
+            for (Candidature c : all) {
+                copies.add(c.copy());
+            }
+            pendingSnapshot = copies;
+            pendingPuts = new LinkedHashMap<>();
+            pendingDeletes = new LinkedHashSet<>();
+            if (schedule()) return;
+        }
+        flush();
+    }
+
+    // Faux une fois fermé : l'appelant écrit lui-même, hors du verrou
+    private boolean schedule() {
+        if (closed) return false;
+        if (scheduled == null) {
+            scheduled = executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /* =========================
+       ÉCRITURE (thread writer)
+       ========================= */
+    private void flush() {
+        synchronized (flushLock) {
+            write();
+        }
+    }
+
+    private void write() {
+        List<Candidature> snapshot;
+        Map<String, Candidature> puts;
+        Set<String> deletes;
+        synchronized (this) {
+            snapshot = pendingSnapshot;
+            puts = pendingPuts;
+            deletes = pendingDeletes;
+            pendingSnapshot = null;
+            pendingPuts = new LinkedHashMap<>();
+            pendingDeletes = new LinkedHashSet<>();
+            scheduled = null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (snapshot != null) {
+                bytes.addAndGet(journal.rewrite(snapshot));
+            }
+            for (Candidature c : puts.values()) {
+                bytes.addAndGet(journal.put(c.getId(), mapper.valueToTree(c)));
+            }
+            for (String id : deletes) {
+                bytes.addAndGet(journal.delete(id));
+            }
+        } catch (Exception e) {
+            System.err.println("Sauvegarde impossible, nouvelle tentative : " + e.getMessage());
+            requeue(snapshot, puts, deletes);
+            return;
+        }
+
+        if (snapshot == null && puts.isEmpty() && deletes.isEmpty()) return;
+        // Compté une fois le lot entièrement écrit : un lot réessayé ne compte pas double
+        written.addAndGet((snapshot != null ? 1 : 0) + puts.size() + deletes.size());
+        long elapsed = System.nanoTime() - start;
+        flushes.incrementAndGet();
+        latencyTotalNanos.addAndGet(elapsed);
+        latencyMaxNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    // Remet en attente ce qui n'a pas été remplacé entre-temps
+    private synchronized void requeue(List<Candidature> snapshot, Map<String, Candidature> puts, Set<String> deletes) {
+        if (snapshot != null) {
+            if (pendingSnapshot == null) {
+                pendingSnapshot = snapshot;
+            } else {
+                avoided.incrementAndGet();
+            }
+        }
+        puts.forEach((id, c) -> {
+            if (pendingDeletes.contains(id) || pendingPuts.putIfAbsent(id, c) != null) avoided.incrementAndGet();
+        });
+        deletes.forEach(id -> {
+            if (pendingPuts.containsKey(id) || !pendingDeletes.add(id)) avoided.incrementAndGet();
+        });
+        if (closed) {
+            // Plus de thread writer : réessayé à la prochaine demande
+            System.err.println("Sauvegarde non écrite, en attente de la prochaine demande");
+        } else if (scheduled == null) {
+            scheduled = executor.schedule(this::flush, Math.max(windowMillis, 1000), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /* =========================
+       FERMETURE
+       ========================= */
+    void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            if (scheduled != null) scheduled.cancel(false);
+        }
+        try {
+            executor.submit(this::flush).get();
+        } catch (Exception e) {
+            System.err.println("Sauvegarde finale impossible : " + e.getMessage());
+        }
+        executor.shutdown();
+    }
+
+    PersistenceStats getStats() {
+        return new PersistenceStats(requested.get(), written.get(), avoided.get(), bytes.get(),
+                latencyTotalNanos.get() / 1e6 / Math.max(1, flushes.get()),
+                latencyMaxNanos.get() / 1e6);
+    }
+}
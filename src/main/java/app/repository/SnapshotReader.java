@@ -0,0 +1,17 @@
+package app.repository;
+
+import app.model.Candidature;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Lecture en flux d'un snapshot de candidatures (binaire ou JSON).
+ */
+interface SnapshotReader extends Closeable {
+
+    /**
+     * Candidature suivante, ou {@code null} en fin de fichier.
+     */
+    Candidature next() throws IOException;
+}
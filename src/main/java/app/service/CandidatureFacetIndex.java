@@ -0,0 +1,160 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.CandidatureField;
+import app.model.CandidatureListener;
+import app.model.StatutCandidature;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Index des filtres de la barre d'outils (statut, mois d'envoi, avec PDF, avec réponse).
+ * <p>
+ * Chaque valeur de filtre possède un {@link BitSet} des numéros de lignes
+ * ({@link CandidatureRowIds}) qui la vérifient. Une sélection est l'intersection des
+ * bitsets actifs ; {@link #counts} donne pour chaque option le nombre de lignes qu'elle
+ * afficherait compte tenu des autres filtres et de la recherche.
+ * <p>
+ * Mis à jour sur le thread UI par les événements de {@code MainController} ; les
+ * sélections et les comptes sont calculés par le thread de filtrage ({@code FilterPipeline}).
+ */
+public class CandidatureFacetIndex implements CandidatureListener {
+
+    private static final int INDEXED_FIELDS = CandidatureField.STATUT.bit()
+            | CandidatureField.DATE_ENVOI.bit() | CandidatureField.DOCUMENTS.bit();
+
+    /**
+     * Filtres choisis ; {@code month} vaut 0 pour tous les mois.
+     */
+    public record Selection(StatutCandidature statut, int month, boolean withDocuments, boolean withResponse) {
+
+        public static final Selection ALL = new Selection(StatutCandidature.TOUTES, 0, false, false);
+
+        boolean filtersStatut() {
+            return statut != null && statut != StatutCandidature.TOUTES;
+        }
+
+        public boolean isActive() {
+            return filtersStatut() || month != 0 || withDocuments || withResponse;
+        }
+    }
+
+    /**
+     * Nombre de lignes par option ; {@code months[0]} correspond à "Tous".
+     */
+    public record Counts(Map<StatutCandidature, Integer> statut, int[] months, int withDocuments, int withResponse) {
+    }
+
+    private enum Facet { STATUT, MONTH, DOCUMENTS, RESPONSE }
+
+    private final CandidatureRowIds rowIds;
+
+    private final BitSet all = new BitSet();
+    private final BitSet[] byStatut = new BitSet[StatutCandidature.values().length];
+    private final BitSet[] byMonth = new BitSet[13];
+    private final BitSet withDocuments = new BitSet();
+    private final BitSet withResponse = new BitSet();
+
+    public CandidatureFacetIndex(CandidatureRowIds rowIds) {
+        this.rowIds = rowIds;
+        for (int i = 0; i < byStatut.length; i++) byStatut[i] = new BitSet();
+        for (int m = 1; m < byMonth.length; m++) byMonth[m] = new BitSet();
+    }
+
+    /* =========================
+       MISE À JOUR
+       ========================= */
+    @Override
+    public synchronized void onChange(CandidatureEvent event) {
+        Candidature c = event.candidature();
+        int id = rowIds.idOf(c);
+        if (id < 0) return;
+
+        switch (event.type()) {
+            case ADDED -> index(id, c);
+            case REMOVED -> clear(id);
+            case UPDATED -> {
+                if (event.field().isIn(INDEXED_FIELDS)) index(id, c);
+            }
+        }
+    }
+
+    private void index(int id, Candidature c) {
+        clear(id);
+        all.set(id);
+        if (c.getStatut() != null) byStatut[c.getStatut().ordinal()].set(id);
+        if (c.getDateEnvoi() != null) byMonth[c.getDateEnvoi().getMonthValue()].set(id);
+        if (c.hasDocuments()) withDocuments.set(id);
+        if (c.getStatut() != StatutCandidature.EN_ATTENTE) withResponse.set(id);
+    }
+
+    private void clear(int id) {
+        all.clear(id);
+        for (BitSet bits : byStatut) bits.clear(id);
+        for (int m = 1; m < byMonth.length; m++) byMonth[m].clear(id);
+        withDocuments.clear(id);
+        withResponse.clear(id);
+    }
+
+    // Vérification d'une seule ligne (après sa modification)
+    public synchronized boolean rowMatches(int id, Selection s) {
+        return all.get(id)
+                && (!s.filtersStatut() || byStatut[s.statut().ordinal()].get(id))
+                && (s.month() == 0 || byMonth[s.month()].get(id))
+                && (!s.withDocuments() || withDocuments.get(id))
+                && (!s.withResponse() || withResponse.get(id));
+    }
+
+    /* =========================
+       SÉLECTION
+       ========================= */
+    // Lignes retenues par les filtres, null si aucun filtre n'est actif
+    public synchronized BitSet select(Selection selection) {
+        return selection.isActive() ? intersect(selection, null, null) : null;
+    }
+
+    /**
+     * Comptes par option : chaque filtre est compté avec les autres filtres actifs et
+     * le résultat de la recherche ({@code search}, null si aucune recherche).
+     */
+    public synchronized Counts counts(Selection s, BitSet search) {
+        Map<StatutCandidature, Integer> statut = new EnumMap<>(StatutCandidature.class);
+        BitSet base = intersect(s, search, Facet.STATUT);
+        for (StatutCandidature value : StatutCandidature.values()) {
+            statut.put(value, value == StatutCandidature.TOUTES
+                    ? base.cardinality()
+                    : countAnd(base, byStatut[value.ordinal()]));
+        }
+
+        int[] months = new int[13];
+        base = intersect(s, search, Facet.MONTH);
+        months[0] = base.cardinality();
+        for (int m = 1; m < months.length; m++) {
+            months[m] = countAnd(base, byMonth[m]);
+        }
+
+        int documents = countAnd(intersect(s, search, Facet.DOCUMENTS), withDocuments);
+        int response = countAnd(intersect(s, search, Facet.RESPONSE), withResponse);
+        return new Counts(statut, months, documents, response);
+    }
+
+    // Intersection des filtres actifs (sauf exclude) et de la recherche
+    private BitSet intersect(Selection s, BitSet search, Facet exclude) {
+        BitSet result = (BitSet) all.clone();
+        if (search != null) result.and(search);
+        if (exclude != Facet.STATUT && s.filtersStatut()) result.and(byStatut[s.statut().ordinal()]);
+        if (exclude != Facet.MONTH && s.month() != 0) result.and(byMonth[s.month()]);
+        if (exclude != Facet.DOCUMENTS && s.withDocuments()) result.and(withDocuments);
+        if (exclude != Facet.RESPONSE && s.withResponse()) result.and(withResponse);
+        return result;
+    }
+
+    private static int countAnd(BitSet a, BitSet b) {
+        BitSet copy = (BitSet) a.clone();
+        copy.and(b);
+        return copy.cardinality();
+    }
+}
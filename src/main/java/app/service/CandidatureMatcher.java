@@ -0,0 +1,342 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.CandidatureField;
+import app.model.CandidatureListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Candidature à laquelle se rapporte un mail, d'après son texte.
+ * <p>
+ * Trois index inversés sur les numéros de ligne ({@link CandidatureRowIds}) : mots de
+ * l'entreprise, mots du poste, et clés de domaine (nom de l'entreprise attaché :
+ * « Société Générale » → {@code societegenerale}, et ses mots longs). Le texte du mail
+ * n'est parcouru qu'une fois : chaque mot distinct est cherché dans les index, les
+ * domaines des adresses e-mail dans l'index des domaines. Seules les candidatures dont un
+ * mot d'entreprise ou un domaine figure dans le mail sont notées ; aucune n'est relue en
+ * entier.
+ * <p>
+ * Note (0 à 1) : part de l'entreprise retrouvée (pondérée par la rareté des mots), part
+ * du poste, et bonus si un domaine d'adresse correspond. Un mail daté d'avant l'envoi
+ * de la candidature est pénalisé.
+ * <p>
+ * Mis à jour sur le thread UI par les événements de {@code MainController} ; les
+ * recherches se font depuis les threads d'import.
+ */
+public class CandidatureMatcher implements CandidatureListener {
+
+    // Note à partir de laquelle le rattachement est automatique (avec une avance suffisante)
+    public static final double AUTO_THRESHOLD = 0.7;
+    public static final double AUTO_MARGIN = 0.15;
+    // Note à partir de laquelle une candidature est proposée
+    public static final double PROPOSE_THRESHOLD = 0.35;
+
+    private static final int INDEXED_FIELDS = CandidatureField.ENTREPRISE.bit() | CandidatureField.POSTE.bit();
+    private static final int MAX_TEXT = 20_000;   // en-tête et début du corps : assez pour reconnaître
+    private static final int MAX_CANDIDATES = 5;
+    private static final int MIN_DOMAIN_KEY = 4;
+
+    private static final double ENTREPRISE_WEIGHT = 0.55;
+    private static final double POSTE_WEIGHT = 0.2;
+    private static final double DOMAIN_WEIGHT = 0.35;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "de", "des", "du", "la", "le", "les", "et", "en", "au", "aux", "un", "une", "pour", "sur", "par",
+            "the", "and", "of", "for", "in", "at", "to",
+            "sa", "sas", "sasu", "sarl", "eurl", "inc", "ltd", "llc", "gmbh", "group", "groupe", "france",
+            "hf", "fh", "cdi", "cdd", "stage", "alternance", "junior", "senior");
+
+    // Messageries et plateformes de recrutement : leur domaine ne dit rien de l'entreprise
+    private static final Set<String> GENERIC_DOMAINS = Set.of(
+            "gmail", "googlemail", "hotmail", "outlook", "live", "msn", "yahoo", "icloud", "me", "aol",
+            "laposte", "free", "sfr", "wanadoo", "neuf", "protonmail", "proton", "gmx",
+            "linkedin", "indeed", "welcometothejungle", "myworkday", "workday", "greenhouse", "lever",
+            "smartrecruiters", "teamtailor", "jobteaser", "apec", "francetravail", "poleemploi", "hellowork",
+            "mail", "email", "noreply", "no-reply", "notifications", "careers", "jobs", "recrutement", "rh");
+
+    /**
+     * @param reason éléments retrouvés, pour l'affichage
+     */
+    public record Candidate(Candidature candidature, double score, String reason) {
+    }
+
+    /**
+     * Candidatures proposées, la meilleure d'abord (vide si aucune n'atteint
+     * {@link #PROPOSE_THRESHOLD}).
+     */
+    public record Result(List<Candidate> candidates, boolean confident) {
+
+        public Candidate best() {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+
+        // Candidature à rattacher sans demander, null sinon
+        public Candidature automatic() {
+            return confident ? candidates.get(0).candidature() : null;
+        }
+    }
+
+    // Mots indexés d'une ligne
+    private record Keys(String[] entreprise, String[] poste, String[] domains) {
+    }
+
+    private final CandidatureRowIds rowIds;
+    private final Map<String, Postings> entreprisePostings = new HashMap<>();
+    private final Map<String, Postings> postePostings = new HashMap<>();
+    private final Map<String, Postings> domainPostings = new HashMap<>();
+    private Keys[] keys = new Keys[1024];
+
+    public CandidatureMatcher(CandidatureRowIds rowIds) {
+        this.rowIds = rowIds;
+    }
+
+    /* =========================
+       MISE À JOUR
+       ========================= */
+    @Override
+    public synchronized void onChange(CandidatureEvent event) {
+        Candidature c = event.candidature();
+        switch (event.type()) {
+            case ADDED -> index(c);
+            case REMOVED -> remove(c);
+            case UPDATED -> {
+                if (event.field().isIn(INDEXED_FIELDS)) index(c);
+            }
+        }
+    }
+
+    private void index(Candidature c) {
+        int id = rowIds.idOf(c);
+        if (id < 0) return;
+        remove(id);
+        if (id >= keys.length) keys = Arrays.copyOf(keys, Math.max(id + 1, keys.length * 2));
+
+        String[] entreprise = words(c.getEntreprise());
+        String[] poste = words(c.getPoste());
+        Set<String> domains = new LinkedHashSet<>();
+        String joined = String.join("", entreprise);
+        if (joined.length() >= MIN_DOMAIN_KEY) domains.add(joined);
+        // Forme juridique comprise : « Dupont SAS » → dupontsas
+        String compact = TextNormalizer.normalize(c.getEntreprise()).replaceAll("[^a-z0-9]", "");
+        if (compact.length() >= MIN_DOMAIN_KEY) domains.add(compact);
+        for (String w : entreprise) {
+            if (w.length() >= MIN_DOMAIN_KEY) domains.add(w);
+        }
+        Keys k = new Keys(entreprise, poste, domains.toArray(new String[0]));
+
+        for (String w : k.entreprise()) entreprisePostings.computeIfAbsent(w, x -> new Postings()).add(id);
+        for (String w : k.poste()) postePostings.computeIfAbsent(w, x -> new Postings()).add(id);
+        for (String d : k.domains()) domainPostings.computeIfAbsent(d, x -> new Postings()).add(id);
+        keys[id] = k;
+    }
+
+    private void remove(Candidature c) {
+        int id = rowIds.idOf(c);
+        if (id >= 0) remove(id);
+    }
+
+    private void remove(int id) {
+        if (id >= keys.length || keys[id] == null) return;
+        Keys k = keys[id];
+        unpost(entreprisePostings, k.entreprise(), id);
+        unpost(postePostings, k.poste(), id);
+        unpost(domainPostings, k.domains(), id);
+        keys[id] = null;
+    }
+
+    private static void unpost(Map<String, Postings> postings, String[] words, int id) {
+        for (String w : words) {
+            Postings p = postings.get(w);
+            if (p != null && p.remove(id) && p.size == 0) postings.remove(w);
+        }
+    }
+
+    /* =========================
+       RECHERCHE
+       ========================= */
+
+    /**
+     * Candidatures qui correspondent au mail (texte par page, date si connue).
+     */
+    public Result match(List<String> pages, LocalDateTime mailDate) {
+        // Un seul parcours du texte : mots distincts et domaines des adresses
+        Set<String> words = new HashSet<>();
+        Set<String> domains = new HashSet<>();
+        int budget = MAX_TEXT;
+        for (String page : pages) {
+            if (budget <= 0) break;
+            String text = TextNormalizer.normalize(page.length() > budget ? page.substring(0, budget) : page);
+            budget -= text.length();
+            scan(text, words, domains);
+        }
+
+        List<Candidate> candidates;
+        synchronized (this) {
+            candidates = score(words, domains, mailDate);
+        }
+        candidates.sort((a, b) -> Double.compare(b.score(), a.score()));
+        if (candidates.size() > MAX_CANDIDATES) candidates = new ArrayList<>(candidates.subList(0, MAX_CANDIDATES));
+
+        boolean confident = !candidates.isEmpty() && candidates.get(0).score() >= AUTO_THRESHOLD
+                && (candidates.size() == 1 || candidates.get(0).score() - candidates.get(1).score() >= AUTO_MARGIN);
+        return new Result(candidates, confident);
+    }
+
+    // Appelé sous verrou
+    private List<Candidate> score(Set<String> words, Set<String> domains, LocalDateTime mailDate) {
+        int rows = Math.max(1, rowIds.size());
+        Map<Integer, double[]> found = new HashMap<>(); // ligne → {entreprise, domaine}
+
+        // Le poste seul ne peut pas atteindre le seuil : seules l'entreprise et le domaine désignent
+        // les lignes à noter (les mots de poste, fréquents, ont de longues listes)
+        for (String w : words) {
+            Postings p = entreprisePostings.get(w);
+            if (p == null) continue;
+            double weight = idf(p, rows);
+            for (int i = 0; i < p.size; i++) found.computeIfAbsent(p.ids[i], x -> new double[2])[0] += weight;
+        }
+        for (String d : domains) {
+            Postings p = domainPostings.get(d);
+            if (p == null) continue;
+            for (int i = 0; i < p.size; i++) found.computeIfAbsent(p.ids[i], x -> new double[2])[1] = 1;
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (Map.Entry<Integer, double[]> e : found.entrySet()) {
+            int id = e.getKey();
+            Keys k = id < keys.length ? keys[id] : null;
+            Candidature c = rowIds.get(id);
+            if (k == null || c == null) continue;
+
+            double[] hit = e.getValue();
+            double posteFound = 0;
+            for (String w : k.poste()) {
+                if (words.contains(w)) posteFound += idf(postePostings.get(w), rows);
+            }
+            double entreprise = coverage(hit[0], entreprisePostings, k.entreprise(), rows);
+            double poste = coverage(posteFound, postePostings, k.poste(), rows);
+            double score = ENTREPRISE_WEIGHT * entreprise + POSTE_WEIGHT * poste + DOMAIN_WEIGHT * hit[1];
+            // Réponse datée d'avant l'envoi : peu probable
+            if (mailDate != null && c.getDateEnvoi() != null
+                    && mailDate.toLocalDate().isBefore(c.getDateEnvoi().minusDays(1))) {
+                score *= 0.5;
+            }
+            score = Math.min(1, score);
+            if (score < PROPOSE_THRESHOLD) continue;
+            candidates.add(new Candidate(c, score, reason(entreprise, poste, hit[1] > 0)));
+        }
+        return candidates;
+    }
+
+    // Mot rare (peu de candidatures) : pèse davantage
+    private static double idf(Postings p, int rows) {
+        return p == null ? 0 : Math.log(1 + (double) rows / p.size);
+    }
+
+    private static double coverage(double found, Map<String, Postings> postings, String[] words, int rows) {
+        if (words.length == 0) return 0;
+        double total = 0;
+        for (String w : words) total += idf(postings.get(w), rows);
+        return total == 0 ? 0 : Math.min(1, found / total);
+    }
+
+    private static String reason(double entreprise, double poste, boolean domain) {
+        List<String> parts = new ArrayList<>(3);
+        if (entreprise > 0) parts.add(String.format(Locale.FRENCH, "entreprise %.0f %%", entreprise * 100));
+        if (poste > 0) parts.add(String.format(Locale.FRENCH, "poste %.0f %%", poste * 100));
+        if (domain) parts.add("domaine");
+        return String.join(", ", parts);
+    }
+
+    /* =========================
+       DÉCOUPAGE
+       ========================= */
+
+    // Mots normalisés d'un champ, sans mots vides ni doublons
+    static String[] words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        scan(TextNormalizer.normalize(text), words, null);
+        return words.toArray(new String[0]);
+    }
+
+    // Mots (lettres et chiffres) ; après un '@', les libellés du domaine sauf l'extension
+    private static void scan(String text, Set<String> words, Set<String> domains) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char ch = text.charAt(i);
+            if (ch == '@' && domains != null) {
+                int end = i + 1;
+                while (end < length && isDomainChar(text.charAt(end))) end++;
+                addDomain(text.substring(i + 1, end), domains);
+                i = end;
+                continue;
+            }
+            if (!Character.isLetterOrDigit(ch)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i - start >= 2) {
+                String w = text.substring(start, i);
+                if (!STOP_WORDS.contains(w)) words.add(w);
+            }
+        }
+    }
+
+    private static void addDomain(String domain, Set<String> domains) {
+        String[] labels = domain.split("\\.");
+        if (labels.length < 2) return;
+        for (int l = 0; l < labels.length - 1; l++) { // sans l'extension (.fr, .com)
+            String label = labels[l].replace("-", "");
+            if (label.length() >= MIN_DOMAIN_KEY && !GENERIC_DOMAINS.contains(label)) domains.add(label);
+        }
+    }
+
+    // Messagerie ou plateforme : le libellé ne désigne pas l'entreprise
+    static boolean isGenericDomain(String label) {
+        return GENERIC_DOMAINS.contains(label);
+    }
+
+    private static boolean isDomainChar(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9') || ch == '.' || ch == '-';
+    }
+
+    /* =========================
+       LISTE TRIÉE DE NUMÉROS
+       ========================= */
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return false;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+}
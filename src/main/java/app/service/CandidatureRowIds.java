@@ -0,0 +1,84 @@
+package app.service;
+
+import app.model.Candidature;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Numéro de ligne compact (0, 1, 2...) attribué à chaque candidature affichée.
+ * <p>
+ * Les index (recherche, filtres, statistiques) travaillent sur ces numéros plutôt que
+ * sur les objets : listes d'entiers triées, {@link java.util.BitSet}... Le numéro est
+ * aussi posé sur la candidature ({@link Candidature#getRowId()}) pour que les prédicats
+ * de filtrage le retrouvent sans table de hachage. Les numéros libérés sont réutilisés
+ * pour que les index restent denses.
+ * <p>
+ * Mis à jour sur le thread UI par {@code MainController} et lu aussi par le thread de
+ * filtrage et le rattachement automatique : toutes les méthodes sont synchronisées.
+ */
+public class CandidatureRowIds {
+
+    private Candidature[] rows = new Candidature[1024];
+    private final Map<String, Integer> byCandidatureId = new HashMap<>();
+    private int[] free = new int[64];
+    private int freeCount;
+    private int next;
+    private int size;
+
+    public synchronized int register(Candidature c) {
+        int existing = idOf(c);
+        if (existing >= 0) return existing;
+
+        int id;
+        if (freeCount > 0) {
+            id = free[--freeCount];
+        } else {
+            id = next++;
+            if (id == rows.length) rows = Arrays.copyOf(rows, rows.length * 2);
+        }
+        rows[id] = c;
+        c.setRowId(id);
+        if (c.getId() != null) byCandidatureId.put(c.getId(), id);
+        size++;
+        return id;
+    }
+
+    public synchronized int release(Candidature c) {
+        int id = idOf(c);
+        if (id < 0) return -1;
+        rows[id] = null;
+        c.setRowId(-1);
+        if (c.getId() != null) byCandidatureId.remove(c.getId(), id);
+        if (freeCount == free.length) free = Arrays.copyOf(free, free.length * 2);
+        free[freeCount++] = id;
+        size--;
+        return id;
+    }
+
+    // -1 si la candidature n'est pas enregistrée ici
+    public synchronized int idOf(Candidature c) {
+        int id = c.getRowId();
+        return id >= 0 && id < next && rows[id] == c ? id : -1;
+    }
+
+    // Numéro de la candidature portant cet id (Candidature#getId), -1 si absente
+    public synchronized int idOf(String candidatureId) {
+        Integer id = byCandidatureId.get(candidatureId);
+        return id != null ? id : -1;
+    }
+
+    public synchronized Candidature get(int id) {
+        return id >= 0 && id < next ? rows[id] : null;
+    }
+
+    // Borne supérieure (exclue) des numéros attribués
+    public synchronized int capacity() {
+        return next;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,241 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.CandidatureField;
+import app.model.CandidatureListener;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Index trigrammes pour la recherche instantanée sur entreprise, poste et notes.
+ * <p>
+ * Les textes sont normalisés ({@link TextNormalizer}) puis découpés en trigrammes ;
+ * chaque trigramme pointe vers la liste triée des lignes qui le contiennent. Une requête
+ * intersecte les listes de ses trigrammes (la plus courte d'abord) puis vérifie la
+ * sous-chaîne sur les seuls candidats restants. Les requêtes de moins de trois
+ * caractères parcourent directement les textes normalisés gardés en mémoire.
+ * <p>
+ * Mis à jour sur le thread UI par les événements de {@code MainController} ; les
+ * recherches sont faites par le thread de filtrage ({@code FilterPipeline}).
+ */
+public class CandidatureSearchIndex implements CandidatureListener {
+
+    private static final int INDEXED_FIELDS =
+            CandidatureField.ENTREPRISE.bit() | CandidatureField.POSTE.bit() | CandidatureField.NOTES.bit();
+
+    // Fréquence de vérification de l'annulation (lignes parcourues)
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    // Séparateur des champs : une requête ne peut pas chevaucher deux champs
+    private static final char SEPARATOR = '\u0000';
+
+    private final CandidatureRowIds rowIds;
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private String[] texts = new String[1024];
+
+
+    public CandidatureSearchIndex(CandidatureRowIds rowIds) {
+        this.rowIds = rowIds;
+    }
+
+    /* =========================
+       MISE À JOUR
+       ========================= */
+    @Override
+    public synchronized void onChange(CandidatureEvent event) {
+        Candidature c = event.candidature();
+        switch (event.type()) {
+            case ADDED -> index(c);
+            case REMOVED -> remove(c);
+            case UPDATED -> {
+                if (event.field().isIn(INDEXED_FIELDS)) index(c);
+            }
+        }
+    }
+
+    private void index(Candidature c) {
+        int id = rowIds.idOf(c);
+        if (id < 0) return;
+        if (id >= texts.length) texts = Arrays.copyOf(texts, Math.max(id + 1, texts.length * 2));
+
+        String text = textOf(c);
+        String old = texts[id];
+        if (text.equals(old)) return;
+
+        if (old != null) {
+            for (long trigram : trigrams(old)) {
+                Postings p = postings.get(trigram);
+                if (p != null && p.remove(id) && p.size == 0) postings.remove(trigram);
+            }
+        }
+        for (long trigram : trigrams(text)) {
+            postings.computeIfAbsent(trigram, k -> new Postings()).add(id);
+        }
+        texts[id] = text;
+    }
+
+    private void remove(Candidature c) {
+        int id = rowIds.idOf(c);
+        if (id < 0 || id >= texts.length || texts[id] == null) return;
+
+        for (long trigram : trigrams(texts[id])) {
+            Postings p = postings.get(trigram);
+            if (p != null && p.remove(id) && p.size == 0) postings.remove(trigram);
+        }
+        texts[id] = null;
+    }
+
+    private static String textOf(Candidature c) {
+        return TextNormalizer.normalize(c.getEntreprise()) + SEPARATOR
+                + TextNormalizer.normalize(c.getPoste()) + SEPARATOR
+                + TextNormalizer.normalize(c.getNotes());
+    }
+
+    /* =========================
+       RECHERCHE
+       ========================= */
+
+    // Forme normalisée d'une saisie, à passer à search() et rowMatches()
+    public static String normalizeQuery(String text) {
+        return TextNormalizer.normalize(text).strip();
+    }
+
+    /**
+     * Lignes dont le texte contient {@code q} (requête normalisée, non vide).
+     * <p>
+     * Avec {@code within} (résultat d'une requête que {@code q} contient), seules ces
+     * lignes sont vérifiées quand elles sont moins nombreuses que la plus courte liste de
+     * trigrammes : la frappe d'un caractère de plus ne reparcourt pas l'index.
+     * Retourne {@code null} si {@code cancelled} devient vrai en cours de route.
+     */
+    public synchronized BitSet search(String q, BitSet within, BooleanSupplier cancelled) {
+        BitSet found = new BitSet(texts.length);
+
+        if (q.length() < 3) {
+            return within != null ? verify(q, within, found, cancelled) : scan(q, found, cancelled);
+        }
+
+        long[] distinct = trigrams(q);
+        Postings[] lists = new Postings[distinct.length];
+        int n = 0;
+        for (long trigram : distinct) {
+            Postings p = postings.get(trigram);
+            if (p == null) return found; // trigramme absent : aucun résultat
+            lists[n++] = p;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        if (within != null && within.cardinality() <= lists[0].size) {
+            return verify(q, within, found, cancelled);
+        }
+
+        int[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = lists[i].retainIn(candidates, count);
+        }
+
+        // Les trigrammes peuvent être présents sans former la sous-chaîne : vérification
+        for (int i = 0; i < count; i++) {
+            if (i % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) return null;
+            int id = candidates[i];
+            if (texts[id].contains(q)) found.set(id);
+        }
+        return found;
+    }
+
+    private BitSet verify(String q, BitSet within, BitSet found, BooleanSupplier cancelled) {
+        int checked = 0;
+        for (int id = within.nextSetBit(0); id >= 0 && id < texts.length; id = within.nextSetBit(id + 1)) {
+            if (++checked % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) return null;
+            String text = texts[id];
+            if (text != null && text.contains(q)) found.set(id);
+        }
+        return found;
+    }
+
+    private BitSet scan(String q, BitSet found, BooleanSupplier cancelled) {
+        for (int id = 0; id < texts.length; id++) {
+            if (id % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) return null;
+            String text = texts[id];
+            if (text != null && text.contains(q)) found.set(id);
+        }
+        return found;
+    }
+
+    // Vérification d'une seule ligne (après sa modification)
+    public synchronized boolean rowMatches(int id, String q) {
+        return id >= 0 && id < texts.length && texts[id] != null && texts[id].contains(q);
+    }
+
+    /* =========================
+       TRIGRAMMES
+       ========================= */
+    // Trigrammes distincts, codés sur un long (3 caractères de 16 bits)
+    private static long[] trigrams(String text) {
+        int n = Math.max(0, text.length() - 2);
+        long[] result = new long[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            char a = text.charAt(i), b = text.charAt(i + 1), c = text.charAt(i + 2);
+            if (a == SEPARATOR || b == SEPARATOR || c == SEPARATOR) continue;
+            result[count++] = ((long) a << 32) | ((long) b << 16) | c;
+        }
+        Arrays.sort(result, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || result[distinct - 1] != result[i]) result[distinct++] = result[i];
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    /**
+     * Liste triée de numéros de lignes.
+     */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            // Les numéros croissent le plus souvent : ajout en fin de liste
+            if (size > 0 && ids[size - 1] >= id) {
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) return;
+                insertAt(-pos - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        private void insertAt(int pos, int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return false;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        // Garde dans candidates[0..count) les numéros présents ici ; retourne le nouveau compte
+        int retainIn(int[] candidates, int count) {
+            int kept = 0, j = 0;
+            for (int i = 0; i < count && j < size; i++) {
+                int id = candidates[i];
+                while (j < size && ids[j] < id) j++;
+                if (j < size && ids[j] == id) candidates[kept++] = id;
+            }
+            return kept;
+        }
+    }
+}
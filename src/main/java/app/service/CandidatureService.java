@@ -9,7 +9,6 @@ import lombok.Setter;
 import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Getter
 @Setter
@@ -19,35 +18,41 @@ public class CandidatureService {
     // Accès à toutes les candidatures
     private List<Candidature> candidatures;
 
+    // Compteurs : tenus à jour par les événements, ou calculés en une passe sur la liste
+    private CandidatureStats stats;
+
     public CandidatureService(List<Candidature> candidatures) {
         this.candidatures = candidatures;
+        this.stats = CandidatureStats.of(candidatures);
+    }
+
+    public CandidatureService(CandidatureStats stats) {
+        this.stats = stats;
+    }
+
+    public void setCandidatures(List<Candidature> candidatures) {
+        this.candidatures = candidatures;
+        this.stats = CandidatureStats.of(candidatures);
     }
 
     // Nombre total de candidatures
     public int getTotal() {
-        return candidatures.size();
+        return stats.getTotal();
     }
 
     // Nombre de candidatures par statut
     public long countByStatut(StatutCandidature statut) {
-        return candidatures.stream()
-                .filter(c -> c.getStatut() == statut)
-                .count();
+        return stats.count(statut);
     }
 
     // Nombre de candidatures par entreprise
     public Map<String, Long> countByEntreprise() {
-        return candidatures.stream()
-                .collect(Collectors.groupingBy(Candidature::getEntreprise, Collectors.counting()));
+        return stats.byEntreprise();
     }
 
     // Nombre de candidatures par mois
     public Map<YearMonth, Long> countByMonth() {
-        return candidatures.stream()
-                .collect(Collectors.groupingBy(
-                        c -> YearMonth.from(c.getDateEnvoi()),
-                        Collectors.counting()
-                ));
+        return stats.byMonth();
     }
 
 }
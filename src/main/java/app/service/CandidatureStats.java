@@ -0,0 +1,108 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.CandidatureListener;
+import app.model.StatutCandidature;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compteurs des candidatures (total, par statut, par entreprise, par mois d'envoi).
+ * <p>
+ * Alimentés une fois au chargement puis tenus à jour en O(1) par les événements du
+ * modèle : ajout, suppression, changement de statut, d'entreprise ou de date. Les
+ * lectures ne parcourent jamais les candidatures ; les tables renvoyées sont des vues
+ * en lecture seule. {@link #of(Iterable)} calcule les mêmes compteurs en une passe
+ * sur un sous-ensemble (candidatures affichées par le filtre).
+ * <p>
+ * Confiné au thread UI, comme les événements de {@code MainController}.
+ */
+public class CandidatureStats implements CandidatureListener {
+
+    private int total;
+    private final long[] byStatut = new long[StatutCandidature.values().length];
+    private final Map<String, Long> byEntreprise = new HashMap<>();
+    private final Map<YearMonth, Long> byMonth = new HashMap<>();
+
+    public static CandidatureStats of(Iterable<Candidature> candidatures) {
+        CandidatureStats stats = new CandidatureStats();
+        for (Candidature c : candidatures) {
+            stats.add(c, 1);
+        }
+        return stats;
+    }
+
+    /* =========================
+       MISE À JOUR
+       ========================= */
+    @Override
+    public void onChange(CandidatureEvent event) {
+        Candidature c = event.candidature();
+        switch (event.type()) {
+            case ADDED -> add(c, 1);
+            case REMOVED -> add(c, -1);
+            case UPDATED -> {
+                switch (event.field()) {
+                    case STATUT -> {
+                        statut((StatutCandidature) event.oldValue(), -1);
+                        statut((StatutCandidature) event.newValue(), 1);
+                    }
+                    case ENTREPRISE -> {
+                        adjust(byEntreprise, (String) event.oldValue(), -1);
+                        adjust(byEntreprise, (String) event.newValue(), 1);
+                    }
+                    case DATE_ENVOI -> {
+                        adjust(byMonth, month((LocalDate) event.oldValue()), -1);
+                        adjust(byMonth, month((LocalDate) event.newValue()), 1);
+                    }
+                    default -> { }
+                }
+            }
+        }
+    }
+
+    private void add(Candidature c, int delta) {
+        total += delta;
+        statut(c.getStatut(), delta);
+        adjust(byEntreprise, c.getEntreprise(), delta);
+        adjust(byMonth, month(c.getDateEnvoi()), delta);
+    }
+
+    private void statut(StatutCandidature statut, int delta) {
+        if (statut != null) byStatut[statut.ordinal()] += delta;
+    }
+
+    private static <K> void adjust(Map<K, Long> counts, K key, int delta) {
+        if (key == null) return;
+        Long count = counts.merge(key, (long) delta, Long::sum);
+        if (count != null && count <= 0) counts.remove(key);
+    }
+
+    private static YearMonth month(LocalDate date) {
+        return date != null ? YearMonth.from(date) : null;
+    }
+
+    /* =========================
+       LECTURE
+       ========================= */
+    public int getTotal() {
+        return total;
+    }
+
+    public long count(StatutCandidature statut) {
+        return byStatut[statut.ordinal()];
+    }
+
+    public Map<String, Long> byEntreprise() {
+        return Collections.unmodifiableMap(byEntreprise);
+    }
+
+    public Map<YearMonth, Long> byMonth() {
+        return Collections.unmodifiableMap(byMonth);
+    }
+}
@@ -0,0 +1,285 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.CandidatureListener;
+import app.model.DocumentFile;
+import app.model.StatutCandidature;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Séries temporelles des candidatures, pré-agrégées par jour, semaine et mois.
+ * <p>
+ * Chaque candidature compte dans le seau de sa date d'envoi (cohorte) : un envoi, et
+ * selon son statut une réponse, un entretien ou un refus. Le délai de première réponse
+ * est l'écart entre la date d'envoi et le premier mail ({@link DocumentFile#getDateMail()})
+ * daté d'un jour postérieur ; il n'est compté que pour les candidatures ayant reçu une
+ * réponse. Chaque seau garde l'histogramme de ces délais, ce qui donne la médiane d'une
+ * période sans revenir aux candidatures.
+ * <p>
+ * La contribution de chaque candidature est recalculée sur le thread UI à chaque
+ * événement utile, puis retirée/ajoutée aux trois granularités par un thread
+ * d'arrière-plan (qui décode sur une copie les documents encore différés). Les requêtes sur une période ne lisent que les seaux : mois
+ * entiers au milieu, jours aux extrémités.
+ */
+public class CandidatureTimeline implements CandidatureListener {
+
+    // Délais au-delà : comptés dans la dernière case de l'histogramme
+    private static final int MAX_DAYS = 365;
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        public LocalDate start(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+
+        public LocalDate next(LocalDate start) {
+            return switch (this) {
+                case DAY -> start.plusDays(1);
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+    }
+
+    /**
+     * Valeurs d'un seau ou d'une période ; {@code medianDaysToResponse} vaut -1 sans réponse datée.
+     */
+    public record Point(LocalDate start, int sends, int responses, int interviews, int refusals,
+                        double medianDaysToResponse) {
+
+        public double responseRate() {
+            return sends == 0 ? 0 : (double) responses / sends;
+        }
+    }
+
+    private record Contribution(LocalDate sent, StatutCandidature statut, int responseDays) {
+    }
+
+    private static final class Bucket {
+        int sends, responses, interviews, refusals;
+        int[] days; // histogramme des délais de première réponse
+
+        void apply(Contribution c, int delta) {
+            sends += delta;
+            if (c.statut() == StatutCandidature.ENTRETIEN || c.statut() == StatutCandidature.REFUS) responses += delta;
+            if (c.statut() == StatutCandidature.ENTRETIEN) interviews += delta;
+            if (c.statut() == StatutCandidature.REFUS) refusals += delta;
+            if (c.responseDays() >= 0) {
+                if (days == null) days = new int[MAX_DAYS + 1];
+                days[Math.min(c.responseDays(), MAX_DAYS)] += delta;
+            }
+        }
+
+        boolean isEmpty() {
+            return sends == 0;
+        }
+
+        void addTo(Bucket total) {
+            total.sends += sends;
+            total.responses += responses;
+            total.interviews += interviews;
+            total.refusals += refusals;
+            if (days != null) {
+                if (total.days == null) total.days = new int[MAX_DAYS + 1];
+                for (int i = 0; i < days.length; i++) total.days[i] += days[i];
+            }
+        }
+
+        Point toPoint(LocalDate start) {
+            return new Point(start, sends, responses, interviews, refusals, median());
+        }
+
+        private double median() {
+            if (days == null) return -1;
+            int count = 0;
+            for (int d : days) count += d;
+            if (count == 0) return -1;
+
+            // Moyenne des deux valeurs centrales quand le nombre est pair
+            int low = (count - 1) / 2, high = count / 2;
+            int seen = 0, lowValue = -1;
+            for (int day = 0; day < days.length; day++) {
+                seen += days[day];
+                if (lowValue < 0 && seen > low) lowValue = day;
+                if (seen > high) return (lowValue + day) / 2.0;
+            }
+            return -1;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "candidatures-timeline");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    // État protégé par "this"
+    private final Map<Granularity, TreeMap<LocalDate, Bucket>> buckets = new EnumMap<>(Granularity.class);
+    private final Map<Candidature, Contribution> contributions = new IdentityHashMap<>();
+
+    public CandidatureTimeline() {
+        for (Granularity g : Granularity.values()) {
+            buckets.put(g, new TreeMap<>());
+        }
+    }
+
+    /* =========================
+       MISE À JOUR
+       ========================= */
+    @Override
+    public void onChange(CandidatureEvent event) {
+        Candidature c = event.candidature();
+        switch (event.type()) {
+            case ADDED -> update(c);
+            case REMOVED -> executor.execute(() -> remove(c));
+            case UPDATED -> {
+                switch (event.field()) {
+                    case STATUT, DATE_ENVOI, DOCUMENTS -> update(c);
+                    default -> { }
+                }
+            }
+        }
+    }
+
+    // Thread UI : seules des valeurs immuables passent au thread d'arrière-plan
+    private void update(Candidature c) {
+        LocalDate sent = c.getDateEnvoi();
+        StatutCandidature statut = c.getStatut();
+        List<DocumentFile> docs = c.documentsSnapshot();
+        if (docs == null && c.hasDocuments() && sent != null && statut != StatutCandidature.EN_ATTENTE) {
+            // Documents différés : décodés sur une copie, l'original reste encodé
+            Candidature copy = c.copy();
+            executor.execute(() -> refresh(c, contributionOf(sent, statut, mailDates(copy.getDocuments()))));
+        } else {
+            Contribution next = contributionOf(sent, statut, mailDates(docs));
+            executor.execute(() -> refresh(c, next));
+        }
+    }
+
+    private synchronized void refresh(Candidature c, Contribution next) {
+        if (!contributions.containsKey(c) && next == null) return;
+        Contribution previous = contributions.put(c, next);
+        if (Objects.equals(previous, next)) return;
+        apply(previous, -1);
+        apply(next, 1);
+    }
+
+    private synchronized void remove(Candidature c) {
+        apply(contributions.remove(c), -1);
+    }
+
+    // Appelé sous verrou
+    private void apply(Contribution c, int delta) {
+        if (c == null) return;
+        for (Granularity g : Granularity.values()) {
+            TreeMap<LocalDate, Bucket> series = buckets.get(g);
+            LocalDate start = g.start(c.sent());
+            Bucket bucket = series.computeIfAbsent(start, k -> new Bucket());
+            bucket.apply(c, delta);
+            if (bucket.isEmpty()) series.remove(start);
+        }
+    }
+
+    private static List<LocalDateTime> mailDates(List<DocumentFile> docs) {
+        if (docs == null) return List.of();
+        List<LocalDateTime> dates = new ArrayList<>(docs.size());
+        for (DocumentFile doc : docs) {
+            if (doc.getDateMail() != null) dates.add(doc.getDateMail());
+        }
+        return dates;
+    }
+
+    private static Contribution contributionOf(LocalDate sent, StatutCandidature statut, List<LocalDateTime> mails) {
+        if (sent == null) return null;
+
+        int days = -1;
+        if (statut != StatutCandidature.EN_ATTENTE) {
+            LocalDateTime first = null;
+            for (LocalDateTime mail : mails) {
+                if (mail.toLocalDate().isAfter(sent) && (first == null || mail.isBefore(first))) {
+                    first = mail;
+                }
+            }
+            if (first != null) days = (int) ChronoUnit.DAYS.between(sent, first.toLocalDate());
+        }
+        return new Contribution(sent, statut, days);
+    }
+
+    /* =========================
+       REQUÊTES
+       ========================= */
+
+    /**
+     * Seaux non vides de {@code from} à {@code to} inclus.
+     */
+    public synchronized List<Point> series(Granularity g, LocalDate from, LocalDate to) {
+        List<Point> points = new ArrayList<>();
+        for (Map.Entry<LocalDate, Bucket> e : buckets.get(g).subMap(g.start(from), true, to, true).entrySet()) {
+            points.add(e.getValue().toPoint(e.getKey()));
+        }
+        return points;
+    }
+
+    /**
+     * Cumul de {@code from} à {@code to} inclus, médiane comprise.
+     */
+    public synchronized Point total(LocalDate from, LocalDate to) {
+        Bucket total = new Bucket();
+        TreeMap<LocalDate, Bucket> days = buckets.get(Granularity.DAY);
+        TreeMap<LocalDate, Bucket> months = buckets.get(Granularity.MONTH);
+
+        LocalDate cursor = from;
+        while (!cursor.isAfter(to)) {
+            LocalDate monthEnd = cursor.with(TemporalAdjusters.lastDayOfMonth());
+            if (cursor.getDayOfMonth() == 1 && !monthEnd.isAfter(to)) {
+                Bucket month = months.get(cursor);
+                if (month != null) month.addTo(total);
+                cursor = monthEnd.plusDays(1);
+            } else {
+                // Début ou fin de période : jours non vides du mois entamé
+                LocalDate end = monthEnd.isAfter(to) ? to : monthEnd;
+                for (Bucket day : days.subMap(cursor, true, end, true).values()) {
+                    day.addTo(total);
+                }
+                cursor = end.plusDays(1);
+            }
+        }
+        return total.toPoint(from);
+    }
+
+    // Date d'envoi la plus ancienne, null si aucune candidature datée
+    public synchronized LocalDate firstDate() {
+        TreeMap<LocalDate, Bucket> days = buckets.get(Granularity.DAY);
+        return days.isEmpty() ? null : days.firstKey();
+    }
+
+    public synchronized LocalDate lastDate() {
+        TreeMap<LocalDate, Bucket> days = buckets.get(Granularity.DAY);
+        return days.isEmpty() ? null : days.lastKey();
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,282 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.CandidatureField;
+import app.model.CandidatureListener;
+import app.model.DocumentFile;
+import app.model.DocumentMetadata;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Empreinte SHA-256 → documents, toutes candidatures confondues.
+ * <p>
+ * Les empreintes sont celles des {@link DocumentMetadata}, enregistrées avec les
+ * candidatures dans le snapshot : l'index se reconstruit à partir des événements
+ * (chargement, imports, suppressions) sans fichier à lui. Les listes de documents sont
+ * copiées sur le thread UI puis indexées sur un thread d'arrière-plan ; celles encore
+ * différées au chargement y sont décodées sur une copie, et leurs entrées sont remplacées
+ * par les documents de la candidature à sa première modification. Les documents sans
+ * empreinte (ou dont le fichier a changé) la reçoivent du rattrapage des métadonnées
+ * ({@link DocumentMetadataBackfill}), qui les calcule en arrière-plan : la modification
+ * qui en résulte les fait entrer dans l'index. Les recherches se font depuis n'importe
+ * quel thread.
+ * <p>
+ * L'import ({@link PdfImportService}) consulte l'index avant de déplacer un fichier et y
+ * ajoute aussitôt le document créé : un doublon dans le même lot est reconnu. Tant que
+ * ce document n'est pas rattaché à sa candidature, l'index retient le thread qui l'a
+ * ajouté ; un import abandonné retire ainsi ses documents ({@link #discardUnattached}).
+ */
+public class DocumentHashIndex implements CandidatureListener {
+
+    public record Location(Candidature candidature, DocumentFile doc) {
+    }
+
+    /**
+     * Documents de même contenu.
+     *
+     * @param copies nombre de fichiers distincts sur le disque (les liens physiques comptent pour un)
+     */
+    public record Group(String sha256, long bytes, List<Location> locations, int copies) {
+
+        public long reclaimable() {
+            return bytes * (copies - 1);
+        }
+    }
+
+    // État protégé par "this"
+    private final Map<String, List<Location>> bySha = new HashMap<>();
+    private final Map<DocumentFile, String> shaByDoc = new IdentityHashMap<>();
+    private final Map<Candidature, Set<DocumentFile>> docsByCandidature = new IdentityHashMap<>();
+    // Document ajouté par un import, pas encore rattaché → id du thread de l'import
+    private final Map<DocumentFile, Long> unattached = new IdentityHashMap<>();
+
+    // Doublons évités à l'import depuis le démarrage
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong linked = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "documents-hashes");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    @Override
+    public void onChange(CandidatureEvent event) {
+        Candidature c = event.candidature();
+        switch (event.type()) {
+            case ADDED -> {
+                List<DocumentFile> docs = c.documentsSnapshot();
+                if (docs == null && c.hasDocuments()) {
+                    // Documents encore différés : décodés sur une copie, par le thread des empreintes
+                    Candidature copy = c.copy();
+                    executor.execute(() -> scan(c, copy.getDocuments()));
+                } else if (docs != null && !docs.isEmpty()) {
+                    executor.execute(() -> scan(c, docs));
+                }
+            }
+            case REMOVED -> executor.execute(() -> removeCandidature(c));
+            case UPDATED -> {
+                if (event.field() != CandidatureField.DOCUMENTS) return;
+                if (event.newValue() instanceof DocumentFile) {
+                    // Toute la liste : remplace aussi les documents décodés sur une copie au chargement
+                    List<DocumentFile> docs = List.copyOf(c.getDocuments());
+                    executor.execute(() -> scan(c, docs));
+                } else if (event.oldValue() instanceof DocumentFile doc) {
+                    executor.execute(() -> remove(doc));
+                } else {
+                    List<DocumentFile> docs = List.copyOf(c.getDocuments()); // liste remplacée
+                    executor.execute(() -> scan(c, docs));
+                }
+            }
+        }
+    }
+
+    /* =========================
+       MISE À JOUR
+       ========================= */
+    // docs : copie prise sur le thread UI, ou documents décodés sur une copie
+    private synchronized void scan(Candidature c, List<DocumentFile> docs) {
+        Set<DocumentFile> previous = docsByCandidature.get(c);
+        if (previous != null) {
+            Set<DocumentFile> current = Collections.newSetFromMap(new IdentityHashMap<>());
+            current.addAll(docs);
+            for (DocumentFile doc : new ArrayList<>(previous)) {
+                // Un document importé pas encore rattaché n'est pas dans la liste : il reste
+                if (!current.contains(doc) && !unattached.containsKey(doc)) remove(doc);
+            }
+        }
+        docs.forEach(doc -> update(c, doc));
+    }
+
+    // Document rattaché à sa candidature
+    private synchronized void update(Candidature c, DocumentFile doc) {
+        unattached.remove(doc);
+        DocumentMetadata m = doc.getMetadata();
+        if (m != null && m.sha256() != null) put(c, doc, m.sha256());
+    }
+
+    /**
+     * Ajoute un document importé sous cette empreinte, avant qu'il ne soit rattaché à sa
+     * candidature (sur le thread de l'import).
+     */
+    public synchronized void add(Candidature c, DocumentFile doc, String sha256) {
+        put(c, doc, sha256);
+        unattached.put(doc, Thread.currentThread().threadId());
+    }
+
+    /**
+     * Import abandonné (échec, annulation) : retire les documents ajoutés par le thread
+     * {@code importThreadId} et jamais rattachés. Retourne leur nombre.
+     */
+    public synchronized int discardUnattached(long importThreadId) {
+        List<DocumentFile> discarded = new ArrayList<>();
+        unattached.forEach((doc, thread) -> {
+            if (thread == importThreadId) discarded.add(doc);
+        });
+        discarded.forEach(this::remove);
+        return discarded.size();
+    }
+
+    // Ajoute (ou déplace) un document sous cette empreinte
+    private void put(Candidature c, DocumentFile doc, String sha256) {
+        String previous = shaByDoc.get(doc);
+        if (sha256.equals(previous)) return;
+        if (previous != null) remove(doc);
+
+        shaByDoc.put(doc, sha256);
+        bySha.computeIfAbsent(sha256, k -> new ArrayList<>(1)).add(new Location(c, doc));
+        docsByCandidature.computeIfAbsent(c, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(doc);
+    }
+
+    private synchronized void remove(DocumentFile doc) {
+        unattached.remove(doc);
+        String sha = shaByDoc.remove(doc);
+        if (sha == null) return;
+        List<Location> locations = bySha.get(sha);
+        Candidature owner = null;
+        for (int i = 0; i < locations.size(); i++) {
+            if (locations.get(i).doc() == doc) {
+                owner = locations.remove(i).candidature();
+                break;
+            }
+        }
+        if (locations.isEmpty()) bySha.remove(sha);
+        Set<DocumentFile> docs = owner != null ? docsByCandidature.get(owner) : null;
+        if (docs != null) {
+            docs.remove(doc);
+            if (docs.isEmpty()) docsByCandidature.remove(owner);
+        }
+    }
+
+    private synchronized void removeCandidature(Candidature c) {
+        Set<DocumentFile> docs = docsByCandidature.get(c);
+        if (docs != null) new ArrayList<>(docs).forEach(this::remove);
+    }
+
+    /* =========================
+       RECHERCHE
+       ========================= */
+
+    // Documents de ce contenu dont le fichier existe encore
+    public List<Location> find(String sha256) {
+        List<Location> locations;
+        synchronized (this) {
+            locations = new ArrayList<>(bySha.getOrDefault(sha256, List.of()));
+        }
+        locations.removeIf(l -> l.doc().getFichier() == null || !Files.isRegularFile(l.doc().getFichier()));
+        return locations;
+    }
+
+    public synchronized int size() {
+        return shaByDoc.size();
+    }
+
+    /**
+     * Contenus présents plusieurs fois, les plus coûteux d'abord. Lit les attributs des
+     * fichiers : hors du thread UI.
+     */
+    public List<Group> duplicates() {
+        List<Map.Entry<String, List<Location>>> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, List<Location>> e : bySha.entrySet()) {
+                if (e.getValue().size() > 1) candidates.add(Map.entry(e.getKey(), new ArrayList<>(e.getValue())));
+            }
+        }
+
+        List<Group> groups = new ArrayList<>();
+        for (Map.Entry<String, List<Location>> e : candidates) {
+            Set<Object> files = new HashSet<>();
+            long bytes = 0;
+            List<Location> present = new ArrayList<>();
+            for (Location l : e.getValue()) {
+                Path file = l.doc().getFichier();
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    // Même fichier physique (lien) : même clé ; sans clé, le chemin
+                    files.add(attrs.fileKey() != null ? attrs.fileKey() : file.toAbsolutePath().normalize());
+                    bytes = attrs.size();
+                    present.add(l);
+                } catch (IOException | RuntimeException ignored) {
+                    // fichier disparu : ni doublon ni place à récupérer
+                }
+            }
+            if (present.size() > 1) groups.add(new Group(e.getKey(), bytes, present, files.size()));
+        }
+        groups.sort((a, b) -> Long.compare(b.reclaimable(), a.reclaimable()));
+        return groups;
+    }
+
+    /* =========================
+       DOUBLONS ÉVITÉS À L'IMPORT
+       ========================= */
+    void recordSkipped(long bytes) {
+        skipped.incrementAndGet();
+        savedBytes.addAndGet(bytes);
+    }
+
+    void recordLinked(long bytes) {
+        linked.incrementAndGet();
+        savedBytes.addAndGet(bytes);
+    }
+
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    public long getLinkedCount() {
+        return linked.get();
+    }
+
+    public long getSavedBytes() {
+        return savedBytes.get();
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.FRENCH, "%d documents indexés ; à l'import : %d ignorés, %d liés, %.1f Mo évités",
+                size(), skipped.get(), linked.get(), savedBytes.get() / 1048576.0);
+    }
+}
@@ -0,0 +1,125 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.CandidatureField;
+import app.model.CandidatureListener;
+import app.model.DocumentFile;
+import app.model.DocumentMetadata;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calcule en arrière-plan les métadonnées manquantes ou périmées des documents.
+ * <p>
+ * Chaque document ajouté (à l'import ou au chargement) est vérifié sur un thread de
+ * basse priorité : un simple accès aux attributs du fichier quand les métadonnées sont à
+ * jour, sinon un calcul complet. Les listes sont copiées sur le thread UI avant de lui
+ * être confiées ; celles encore différées au chargement sont décodées sur une copie par
+ * ce thread, ce qui couvre les documents existants (anciens fichiers, snapshot). Le
+ * résultat est appliqué au document par {@code publisher} (le thread UI), ce qui
+ * l'enregistre comme toute autre modification ; un document décodé sur une copie est
+ * retrouvé par son fichier dans la candidature.
+ */
+public class DocumentMetadataBackfill implements CandidatureListener {
+
+    private final Executor publisher;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "documents-metadata");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private final AtomicLong computed = new AtomicLong();
+
+    public DocumentMetadataBackfill(Executor publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void onChange(CandidatureEvent event) {
+        Candidature c = event.candidature();
+        switch (event.type()) {
+            case ADDED -> {
+                List<DocumentFile> docs = c.documentsSnapshot();
+                if (docs == null && c.hasDocuments()) {
+                    // Documents encore différés : décodés sur une copie, par le thread des métadonnées
+                    Candidature copy = c.copy();
+                    executor.execute(() -> copy.getDocuments().forEach(doc -> check(c, doc)));
+                } else if (docs != null && !docs.isEmpty()) {
+                    executor.execute(() -> docs.forEach(this::check));
+                }
+            }
+            case UPDATED -> {
+                if (event.field() != CandidatureField.DOCUMENTS) return;
+                if (event.newValue() instanceof DocumentFile doc) {
+                    executor.execute(() -> check(doc));
+                } else if (event.oldValue() == null) {
+                    List<DocumentFile> docs = List.copyOf(c.getDocuments()); // liste remplacée
+                    executor.execute(() -> docs.forEach(this::check));
+                }
+            }
+            default -> { }
+        }
+    }
+
+    /* =========================
+       CALCUL (thread des métadonnées)
+       ========================= */
+    private void check(DocumentFile doc) {
+        DocumentMetadata result = compute(doc);
+        if (result != null) publisher.execute(() -> doc.setMetadata(result));
+    }
+
+    // doc : décodé sur une copie de c ; le résultat va au document de c qui a le même fichier
+    private void check(Candidature c, DocumentFile doc) {
+        DocumentMetadata result = compute(doc);
+        if (result == null) return;
+        publisher.execute(() -> {
+            for (DocumentFile d : c.getDocuments()) {
+                if (Objects.equals(d.getFichier(), doc.getFichier())) {
+                    d.setMetadata(result);
+                    return;
+                }
+            }
+        });
+    }
+
+    // null : métadonnées à jour, fichier absent ou illisible
+    private DocumentMetadata compute(DocumentFile doc) {
+        if (doc.getFichier() == null || !Files.isRegularFile(doc.getFichier())) return null;
+        if (DocumentMetadataService.isCurrent(doc)) return null;
+
+        DocumentMetadata previous = doc.getMetadata();
+        DocumentMetadata metadata;
+        try {
+            metadata = DocumentMetadataService.compute(doc.getFichier(), false);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Métadonnées impossibles pour " + doc.getFichier() + " : " + e.getMessage());
+            return null;
+        }
+        // Même contenu (fichier seulement touché) : le texte extrait reste valable
+        if (previous != null && metadata.sha256().equals(previous.sha256())) {
+            metadata = metadata.withTexteExtrait(previous.texteExtrait());
+        }
+
+        computed.incrementAndGet();
+        return metadata;
+    }
+
+    public long getComputedCount() {
+        return computed.get();
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+}
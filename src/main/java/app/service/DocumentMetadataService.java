@@ -0,0 +1,70 @@
+package app.service;
+
+import app.model.DocumentFile;
+import app.model.DocumentMetadata;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Calcul et vérification des {@link DocumentMetadata} d'un PDF.
+ * <p>
+ * Le calcul lit le fichier (empreinte) et, si le nombre de pages n'est pas fourni,
+ * l'ouvre avec PDFBox : à faire hors du thread UI. La vérification ne lit que les
+ * attributs du fichier.
+ */
+public class DocumentMetadataService {
+
+    // Nombre de pages déjà connu (document ouvert à l'import)
+    public static DocumentMetadata compute(Path file, int pages, boolean texteExtrait) throws IOException {
+        return compute(file, pages, sha256(file), texteExtrait);
+    }
+
+    // Empreinte aussi connue (calculée pendant l'import) : seuls les attributs sont lus
+    public static DocumentMetadata compute(Path file, int pages, String sha256, boolean texteExtrait) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        return new DocumentMetadata(pages, attrs.size(), attrs.lastModifiedTime().toMillis(), sha256, texteExtrait);
+    }
+
+    public static DocumentMetadata compute(Path file, boolean texteExtrait) throws IOException {
+        int pages;
+        try (PDDocument document = PDDocument.load(file.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            pages = document.getNumberOfPages();
+        }
+        return compute(file, pages, texteExtrait);
+    }
+
+    // Métadonnées présentes et fichier inchangé depuis leur calcul
+    public static boolean isCurrent(DocumentFile doc) {
+        DocumentMetadata m = doc.getMetadata();
+        if (m == null || doc.getFichier() == null) return false;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(doc.getFichier(), BasicFileAttributes.class);
+            return m.isCurrent(attrs.size(), attrs.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
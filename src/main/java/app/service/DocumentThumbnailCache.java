@@ -0,0 +1,258 @@
+package app.service;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vignettes et rendus de la première page des PDF, gardés sur le disque (PNG).
+ * <p>
+ * Les images sont nommées d'après l'empreinte SHA-256 du fichier : deux copies d'un même
+ * PDF partagent leurs images. Un index (chemin → taille, date de modification, empreinte)
+ * évite de relire le fichier à chaque démarrage : l'empreinte n'est recalculée que si la
+ * taille ou la date ont changé, et une empreinte différente désigne d'autres images.
+ * <p>
+ * La taille totale est bornée : les images les moins récemment utilisées sont supprimées
+ * au-delà de {@code maxBytes}. Les lectures ({@link #thumbnail}, {@link #firstPage}) ne
+ * font qu'un accès aux attributs du fichier ; le rendu et l'écriture ({@link #store}) se
+ * font sur un thread de rendu.
+ */
+public class DocumentThumbnailCache {
+
+    public static final int THUMBNAIL_WIDTH = 96;
+    public static final int FIRST_PAGE_WIDTH = 1024;
+
+    private static final String INDEX = "index.tsv";
+    private static final int SAVE_EVERY = 20;
+
+    private record Source(long size, long modified, String hash) {
+    }
+
+    private static final class Images {
+        long bytes;
+        long lastUsed;
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // État protégé par "this"
+    private final Map<Path, Source> sources = new HashMap<>();
+    private final Map<String, Images> images = new HashMap<>();
+    private long totalBytes;
+    private int unsaved;
+
+    public DocumentThumbnailCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    /* =========================
+       LECTURE
+       ========================= */
+
+    // Vignette de ce PDF, null si elle n'existe pas encore (ou plus)
+    public Path thumbnail(Path pdf) {
+        return lookup(pdf, "thumb");
+    }
+
+    // Première page à FIRST_PAGE_WIDTH pixels, null si absente
+    public Path firstPage(Path pdf) {
+        return lookup(pdf, "page1");
+    }
+
+    private synchronized Path lookup(Path pdf, String kind) {
+        Source source = sources.get(pdf.toAbsolutePath().normalize());
+        if (source == null || !matches(pdf, source)) return null;
+
+        Images entry = images.get(source.hash());
+        if (entry == null) return null;
+        Path file = imageFile(source.hash(), kind);
+        if (!Files.exists(file)) return null;
+        entry.lastUsed = System.currentTimeMillis();
+        return file;
+    }
+
+    private static boolean matches(Path pdf, Source source) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(pdf, BasicFileAttributes.class);
+            return attrs.size() == source.size() && attrs.lastModifiedTime().toMillis() == source.modified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /* =========================
+       ÉCRITURE (THREAD DE RENDU)
+       ========================= */
+
+    /**
+     * Rend et enregistre la vignette et la première page si elles manquent.
+     * À appeler sur le thread qui possède le document.
+     */
+    public void store(Path pdf, PdfDocumentCache.Handle handle) throws IOException {
+        Path normalized = pdf.toAbsolutePath().normalize();
+        if (thumbnail(normalized) != null && firstPage(normalized) != null) return;
+
+        BasicFileAttributes attrs = Files.readAttributes(normalized, BasicFileAttributes.class);
+        String hash = DocumentMetadataService.sha256(normalized);
+        Source source = new Source(attrs.size(), attrs.lastModifiedTime().toMillis(), hash);
+
+        long written = 0;
+        Path thumb = imageFile(hash, "thumb");
+        Path page1 = imageFile(hash, "page1");
+        if (handle.pageCount() > 0 && (!Files.exists(thumb) || !Files.exists(page1))) {
+            // Un seul rendu : la vignette est réduite à partir de la première page
+            BufferedImage page = render(handle, FIRST_PAGE_WIDTH);
+            if (!Files.exists(page1)) written += write(page, page1);
+            if (!Files.exists(thumb)) written += write(scale(page, THUMBNAIL_WIDTH), thumb);
+        }
+
+        synchronized (this) {
+            sources.put(normalized, source);
+            Images entry = images.computeIfAbsent(hash, h -> new Images());
+            entry.bytes += written;
+            entry.lastUsed = System.currentTimeMillis();
+            totalBytes += written;
+            evict(hash);
+            if (++unsaved >= SAVE_EVERY) save();
+        }
+    }
+
+    private static BufferedImage render(PdfDocumentCache.Handle handle, int width) throws IOException {
+        PDPage page = handle.document().getPage(0);
+        PDRectangle box = page.getCropBox();
+        float pageWidth = page.getRotation() % 180 == 0 ? box.getWidth() : box.getHeight();
+        return handle.renderer().renderImage(0, width / pageWidth);
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width) {
+        int height = Math.max(1, Math.round(image.getHeight() * (float) width / image.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private long write(BufferedImage image, Path file) throws IOException {
+        Files.createDirectories(directory);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        ImageIO.write(image, "png", tmp.toFile());
+        move(tmp, file);
+        return Files.size(file);
+    }
+
+    // Appelé sous verrou : les images les plus anciennes d'abord, sauf celles qu'on vient d'écrire
+    private void evict(String keep) {
+        if (totalBytes <= maxBytes) return;
+
+        List<Map.Entry<String, Images>> byAge = new ArrayList<>(images.entrySet());
+        byAge.sort((a, b) -> Long.compare(a.getValue().lastUsed, b.getValue().lastUsed));
+        for (Map.Entry<String, Images> e : byAge) {
+            if (totalBytes <= maxBytes) break;
+            if (e.getKey().equals(keep)) continue;
+            try {
+                Files.deleteIfExists(imageFile(e.getKey(), "thumb"));
+                Files.deleteIfExists(imageFile(e.getKey(), "page1"));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                continue;
+            }
+            totalBytes -= e.getValue().bytes;
+            images.remove(e.getKey());
+        }
+        sources.values().removeIf(s -> !images.containsKey(s.hash()));
+    }
+
+    private Path imageFile(String hash, String kind) {
+        return directory.resolve(hash + "-" + kind + ".png");
+    }
+
+    /* =========================
+       INDEX
+       ========================= */
+
+    // Lignes "I  empreinte  octets  dernier usage" et "S  taille  date  empreinte  chemin"
+    private synchronized void load() {
+        Path index = directory.resolve(INDEX);
+        if (!Files.exists(index)) return;
+        try {
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                String[] f = line.split("\t", 5);
+                if (f[0].equals("I") && f.length == 4) {
+                    Images entry = new Images();
+                    entry.bytes = Long.parseLong(f[2]);
+                    entry.lastUsed = Long.parseLong(f[3]);
+                    images.put(f[1], entry);
+                    totalBytes += entry.bytes;
+                } else if (f[0].equals("S") && f.length == 5) {
+                    sources.put(Path.of(f[4]), new Source(Long.parseLong(f[1]), Long.parseLong(f[2]), f[3]));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Index illisible : on repart de zéro, les images seront réécrites
+            e.printStackTrace();
+            sources.clear();
+            images.clear();
+            totalBytes = 0;
+        }
+    }
+
+    public synchronized void save() {
+        unsaved = 0;
+        try {
+            Files.createDirectories(directory);
+            Path tmp = directory.resolve(INDEX + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Images> e : images.entrySet()) {
+                    out.write("I\t" + e.getKey() + "\t" + e.getValue().bytes + "\t" + e.getValue().lastUsed);
+                    out.newLine();
+                }
+                for (Map.Entry<Path, Source> e : sources.entrySet()) {
+                    Source s = e.getValue();
+                    out.write("S\t" + s.size() + "\t" + s.modified() + "\t" + s.hash() + "\t" + e.getKey());
+                    out.newLine();
+                }
+            }
+            move(tmp, directory.resolve(INDEX));
+        } catch (IOException e) {
+            // Appelé aussi à la fermeture : ne pas interrompre les sauvegardes suivantes
+            System.err.println("Impossible d'écrire l'index des vignettes : " + e.getMessage());
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+}
@@ -16,10 +16,19 @@ public class FileSystemService {
     private static final Path ROOT =
             Paths.get(System.getProperty("user.home"), "Candidatures");
 
+    // Dossier surveillé : les PDF qui y sont déposés attendent d'être rattachés
+    private static final Path INBOX = System.getProperty("candidatures.inbox") != null
+            ? Paths.get(System.getProperty("candidatures.inbox"))
+            : ROOT.resolve("Boîte de dépôt");
+
     public static Path getRoot() {
         return ROOT;
     }
 
+    public static Path getInbox() {
+        return INBOX;
+    }
+
     public static void init() {
         try {
             Files.createDirectories(ROOT);
@@ -47,10 +56,16 @@ public class FileSystemService {
                 });
     }
 
+    /**
+     * Renomme sur le disque le dossier de la candidature en « date du plus ancien mail,
+     * entreprise, poste ». La candidature n'est pas modifiée (c'est une copie lue hors du
+     * thread UI) : {@link #relocate} applique ensuite le nouveau dossier. Retourne ce
+     * dossier, ou {@code null} s'il n'y a rien à renommer.
+     */
     public static Path renameCandidatureFolderWithOldestPdfDate(Candidature c) throws IOException {
 
         if (c.getDocuments() == null || c.getDocuments().isEmpty()) {
-            return c.getDossier();
+            return null;
         }
 
         var oldestOpt = c.getDocuments().stream()
@@ -59,7 +74,7 @@ public class FileSystemService {
                 .min(LocalDateTime::compareTo);
 
         if (oldestOpt.isEmpty()) {
-            return c.getDossier();
+            return null;
         }
 
         String datePrefix = oldestOpt.get()
@@ -80,11 +95,15 @@ public class FileSystemService {
         Path newPath = oldPath.getParent().resolve(newFolderName);
 
         if (oldPath.equals(newPath)) {
-            return oldPath;
+            return null;
         }
 
         Files.move(oldPath, newPath);
+        return newPath;
+    }
 
+    // Thread UI : la candidature suit son dossier renommé
+    public static void relocate(Candidature c, Path newPath) {
         // 🔴 POINT CRITIQUE : mettre à jour les chemins des documents
         for (DocumentFile doc : c.getDocuments()) {
             Path oldFile = doc.getFichier();
@@ -95,7 +114,6 @@ public class FileSystemService {
         }
 
         c.setDossier(newPath);
-        return newPath;
     }
 
 }
@@ -0,0 +1,266 @@
+package app.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Surveille la boîte de dépôt et prépare les PDF qui y arrivent.
+ * <p>
+ * Trois rôles, un nombre fixe de threads quel que soit le nombre de fichiers :
+ * <ul>
+ *     <li>un thread bloqué sur le {@link WatchService}, qui ne fait que transmettre les
+ *     événements ;</li>
+ *     <li>un thread d'attente qui garde les fichiers en cours d'écriture : un fichier n'est
+ *     analysé qu'après {@code QUIET_MS} sans changement de taille ni de date ;</li>
+ *     <li>quelques threads d'analyse ({@link PdfAnalysis}) : texte, date du mail, empreinte.</li>
+ * </ul>
+ * Les fichiers prêts sont signalés par {@code onReady} (via {@code publisher}), ceux qui
+ * disparaissent (rattachés, supprimés) par {@code onRemoved}. Un fichier modifié après
+ * analyse est réanalysé et signalé de nouveau.
+ */
+public class InboxWatcher implements AutoCloseable {
+
+    private static final long QUIET_MS = 1500;
+    private static final long TICK_MS = 500;
+    private static final int MAX_ATTEMPTS = 3; // PDF illisible : on réessaie, il était peut-être incomplet
+
+    // Taille et date d'un fichier à un instant donné
+    private record Stamp(long size, long modified) {
+
+        static Stamp of(Path file) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                return attrs.isRegularFile() ? new Stamp(attrs.size(), attrs.lastModifiedTime().toMillis()) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    // Fichier en attente de stabilité
+    private static final class Candidate {
+        Stamp stamp;
+        long changedAt;
+        int attempts;
+    }
+
+    private final Path directory;
+    private final int threads;
+    private final Executor publisher;
+
+    private Consumer<PdfAnalysis> onReady = a -> { };
+    private Consumer<Path> onRemoved = p -> { };
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private final ScheduledExecutorService debounce = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "inbox-debounce");
+        t.setDaemon(true);
+        return t;
+    });
+    private ExecutorService analysis;
+
+    // État du thread d'attente
+    private final Map<Path, Candidate> candidates = new HashMap<>();
+    private final Map<Path, Stamp> analysed = new HashMap<>(); // fichiers soumis à l'analyse, par état
+
+    private final AtomicLong ready = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public InboxWatcher(Path directory, int threads, Executor publisher) {
+        this.directory = directory;
+        this.threads = threads;
+        this.publisher = publisher;
+    }
+
+    public void setOnReady(Consumer<PdfAnalysis> onReady) {
+        this.onReady = onReady;
+    }
+
+    public void setOnRemoved(Consumer<Path> onRemoved) {
+        this.onRemoved = onRemoved;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Crée le dossier si besoin, commence la surveillance et prend en compte les fichiers
+     * déjà présents.
+     */
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        analysis = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "inbox-analysis");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+        watchThread = new Thread(this::watch, "inbox-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        debounce.execute(this::rescan);
+        debounce.scheduleWithFixedDelay(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /* =========================
+       SURVEILLANCE (thread du WatchService)
+       ========================= */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Trop d'événements d'un coup : on relit le dossier
+                        debounce.execute(this::rescan);
+                        continue;
+                    }
+                    Path file = directory.resolve((Path) event.context());
+                    if (!isPdf(file)) continue;
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        debounce.execute(() -> removed(file));
+                    } else {
+                        debounce.execute(() -> touched(file));
+                    }
+                }
+                if (!key.reset()) return; // dossier supprimé
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // close()
+        }
+    }
+
+    private static boolean isPdf(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf");
+    }
+
+    /* =========================
+       ATTENTE (thread d'attente)
+       ========================= */
+    private void rescan() {
+        try {
+            for (Path file : PdfBatchImporter.listPdfs(directory)) touched(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        // Fichiers disparus sans événement (débordement)
+        analysed.keySet().removeIf(file -> {
+            if (Files.exists(file)) return false;
+            publish(() -> onRemoved.accept(file));
+            return true;
+        });
+    }
+
+    private void touched(Path file) {
+        Candidate candidate = candidates.computeIfAbsent(file, f -> new Candidate());
+        candidate.stamp = Stamp.of(file);
+        candidate.changedAt = System.currentTimeMillis();
+    }
+
+    private void removed(Path file) {
+        candidates.remove(file);
+        if (analysed.remove(file) != null) publish(() -> onRemoved.accept(file));
+    }
+
+    // Fichiers stables depuis QUIET_MS : analysés, sauf s'ils n'ont pas changé depuis la dernière fois
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<Path, Candidate>> it = candidates.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Candidate> e = it.next();
+            Path file = e.getKey();
+            Candidate candidate = e.getValue();
+
+            Stamp stamp = Stamp.of(file);
+            if (stamp == null) {
+                it.remove();
+                continue;
+            }
+            if (!stamp.equals(candidate.stamp)) {
+                candidate.stamp = stamp;
+                candidate.changedAt = now;
+                continue;
+            }
+            if (now - candidate.changedAt < QUIET_MS) continue;
+
+            it.remove();
+            if (stamp.equals(analysed.get(file))) continue;
+            analysed.put(file, stamp);
+            int attempts = candidate.attempts;
+            analysis.execute(() -> analyse(file, stamp, attempts));
+        }
+    }
+
+    /* =========================
+       ANALYSE (threads d'analyse)
+       ========================= */
+    private void analyse(Path file, Stamp stamp, int attempts) {
+        PdfAnalysis result = PdfAnalysis.of(file);
+
+        // Réécrit pendant l'analyse : le résultat ne vaut plus rien
+        if (!stamp.equals(Stamp.of(file))) {
+            debounce.execute(() -> retry(file, attempts));
+            return;
+        }
+        if (!result.isValid() && attempts + 1 < MAX_ATTEMPTS) {
+            debounce.execute(() -> retry(file, attempts + 1));
+            return;
+        }
+
+        (result.isValid() ? ready : failed).incrementAndGet();
+        publish(() -> onReady.accept(result));
+    }
+
+    private void retry(Path file, int attempts) {
+        analysed.remove(file);
+        touched(file);
+        candidates.get(file).attempts = attempts;
+    }
+
+    private void publish(Runnable action) {
+        publisher.execute(action);
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (watchService != null) watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (watchThread != null) watchThread.interrupt();
+        debounce.shutdownNow();
+        if (analysis != null) analysis.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d PDF prêts, %d illisibles, dossier %s", ready.get(), failed.get(), directory);
+    }
+}
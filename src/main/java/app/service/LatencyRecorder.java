@@ -0,0 +1,44 @@
+package app.service;
+
+import java.util.Arrays;
+
+/**
+ * Dernières durées mesurées (fenêtre glissante) et leurs percentiles.
+ */
+public class LatencyRecorder {
+
+    private final long[] samples;
+    private int next;
+    private int size;
+    private long count;
+
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) size++;
+        count++;
+    }
+
+    // Percentile (0-100) en millisecondes sur la fenêtre courante, 0 sans mesure
+    public synchronized double percentileMs(double percentile) {
+        if (size == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))] / 1_000_000.0;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d mesures, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms",
+                getCount(), percentileMs(50), percentileMs(90), percentileMs(99), percentileMs(100));
+    }
+}
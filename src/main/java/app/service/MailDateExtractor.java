@@ -0,0 +1,80 @@
+package app.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Date d'envoi d'un mail imprimé en PDF, lue dans son texte.
+ * <p>
+ * Les formats reconnus forment une liste ordonnée ({@link MailDateScanner.Layout}),
+ * cherchés ensemble en une passe par page : le format le plus prioritaire présent sur la
+ * page l'emporte, et la première date d'en-tête trouvée est retenue aussitôt. L'en-tête
+ * d'un mail est en haut de la première page : les pages suivantes (pièces jointes,
+ * messages cités) ne sont lues que si rien n'y a été trouvé, et jamais au-delà de
+ * {@code maxPages}. Une date qui n'est pas d'en-tête (ISO) ne sert qu'en dernier recours.
+ */
+public class MailDateExtractor {
+
+    public static final int DEFAULT_MAX_PAGES = 5;
+
+    public static final MailDateExtractor DEFAULT = new MailDateExtractor(List.of(
+            MailDateScanner.Layout.FRENCH, MailDateScanner.Layout.OUTLOOK,
+            MailDateScanner.Layout.GMAIL, MailDateScanner.Layout.ISO), DEFAULT_MAX_PAGES);
+
+    private final MailDateScanner scanner;
+    private final int maxPages;
+
+    public MailDateExtractor(List<MailDateScanner.Layout> layouts, int maxPages) {
+        this.scanner = new MailDateScanner(layouts);
+        this.maxPages = maxPages;
+    }
+
+    /* =========================
+       EXTRACTION
+       ========================= */
+
+    /**
+     * Extrait le texte page par page et s'arrête à la première date d'en-tête.
+     * Null si aucune date dans les {@code maxPages} premières pages.
+     */
+    public LocalDateTime extract(PDDocument document) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        int last = Math.min(maxPages, document.getNumberOfPages());
+        LocalDateTime fallback = null;
+        for (int page = 1; page <= last; page++) {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            MailDateScanner.Match match = scanner.scan(stripper.getText(document));
+            if (match != null && match.layout().isHeader()) return match.date();
+            if (fallback == null && match != null) fallback = match.date();
+        }
+        return fallback;
+    }
+
+    // Même recherche sur un texte déjà extrait, page par page
+    public LocalDateTime extract(List<? extends CharSequence> pages) {
+        LocalDateTime fallback = null;
+        for (int page = 0; page < Math.min(maxPages, pages.size()); page++) {
+            MailDateScanner.Match match = scanner.scan(pages.get(page));
+            if (match != null && match.layout().isHeader()) return match.date();
+            if (fallback == null && match != null) fallback = match.date();
+        }
+        return fallback;
+    }
+
+    public LocalDateTime extract(CharSequence text) {
+        return extract(List.of(text));
+    }
+
+    public List<MailDateScanner.Layout> getLayouts() {
+        return scanner.getOrder();
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+}
@@ -0,0 +1,354 @@
+package app.service;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recherche en une seule passe de toutes les dates de mail reconnues.
+ * <p>
+ * Les noms de mois (français, anglais, abrégés, sans accents) sont reconnus ensemble par
+ * un automate d'Aho-Corasick : chaque caractère du texte coûte une transition, quel que
+ * soit le nombre de formats. Sur un nom de mois entier, le format correspondant est lu
+ * autour de lui (jour avant, année et heure après) ; les dates ISO sont essayées au début
+ * de chaque nombre. La date est construite directement à partir des chiffres, sans chaîne
+ * intermédiaire ni exception : une date impossible (« 32 mars ») est simplement ignorée.
+ */
+public class MailDateScanner {
+
+    public enum Layout {
+        FRENCH(true),   // « 3 mars 2024 à 14:05 »
+        OUTLOOK(true),  // « March 3, 2024 2:05 PM »
+        GMAIL(true),    // « Mar 3, 2024 at 2:05 PM »
+        ISO(false);     // « 2024-03-03 14:05 », « 2024-03-03T14:05 »
+
+        private final boolean header;
+
+        Layout(boolean header) {
+            this.header = header;
+        }
+
+        // Date d'en-tête de mail (sinon : date quelconque du texte)
+        public boolean isHeader() {
+            return header;
+        }
+    }
+
+    /**
+     * @param start position du premier caractère de la date dans le texte
+     */
+    public record Match(LocalDateTime date, Layout layout, int start) {
+    }
+
+    /* =========================
+       AUTOMATE DES NOMS DE MOIS
+       ========================= */
+
+    private static final int FRENCH_NAME = 0;
+    private static final int ENGLISH_NAME = 1;
+
+    private static final String[][] FRENCH_MONTHS = {
+            {"janvier"}, {"février", "fevrier"}, {"mars"}, {"avril"}, {"mai"}, {"juin"}, {"juillet"},
+            {"août", "aout"}, {"septembre"}, {"octobre"}, {"novembre"}, {"décembre", "decembre"}
+    };
+    private static final String[][] ENGLISH_MONTHS = {
+            {"january", "jan"}, {"february", "feb"}, {"march", "mar"}, {"april", "apr"}, {"may"},
+            {"june", "jun"}, {"july", "jul"}, {"august", "aug"}, {"september", "sep", "sept"},
+            {"october", "oct"}, {"november", "nov"}, {"december", "dec"}
+    };
+
+    // Lettres des noms de mois → colonne de la table de transitions (0 : autre caractère)
+    private static final int[] CLASS = new int[256];
+    private static final int ALPHABET;
+
+    // Table de transitions complète : next[état * ALPHABET + classe]
+    private static final int[] NEXT;
+    // Mot reconnu en fin d'état : mois (1-12) << 16 | langue << 8 | longueur, 0 si aucun
+    private static final int[] OUTPUT;
+
+    static {
+        int alphabet = 1;
+        for (String[][] names : List.of(FRENCH_MONTHS, ENGLISH_MONTHS)) {
+            for (String[] variants : names) {
+                for (String name : variants) {
+                    for (char ch : name.toCharArray()) {
+                        if (CLASS[ch] == 0) CLASS[ch] = alphabet++;
+                    }
+                }
+            }
+        }
+        ALPHABET = alphabet;
+
+        // Trie
+        List<int[]> gotos = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        gotos.add(new int[ALPHABET]);
+        outputs.add(0);
+        for (int lang = FRENCH_NAME; lang <= ENGLISH_NAME; lang++) {
+            String[][] names = lang == FRENCH_NAME ? FRENCH_MONTHS : ENGLISH_MONTHS;
+            for (int month = 1; month <= 12; month++) {
+                for (String name : names[month - 1]) {
+                    int state = 0;
+                    for (char ch : name.toCharArray()) {
+                        int c = CLASS[ch];
+                        if (gotos.get(state)[c] == 0) {
+                            gotos.get(state)[c] = gotos.size();
+                            gotos.add(new int[ALPHABET]);
+                            outputs.add(0);
+                        }
+                        state = gotos.get(state)[c];
+                    }
+                    outputs.set(state, month << 16 | lang << 8 | name.length());
+                }
+            }
+        }
+
+        // Liens d'échec, résolus en largeur : chaque état a une transition pour chaque classe
+        int states = gotos.size();
+        int[] next = new int[states * ALPHABET];
+        int[] output = new int[states];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 1; c < ALPHABET; c++) {
+            int child = gotos.get(0)[c];
+            next[c] = child;
+            if (child != 0) queue.add(child);
+        }
+        for (int s = 0; s < states; s++) output[s] = outputs.get(s);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            // Pas de mot propre : celui, plus court, qui termine le suffixe le plus long
+            if (output[state] == 0) output[state] = output[fail[state]];
+            for (int c = 1; c < ALPHABET; c++) {
+                int child = gotos.get(state)[c];
+                if (child != 0) {
+                    fail[child] = next[fail[state] * ALPHABET + c];
+                    next[state * ALPHABET + c] = child;
+                    queue.add(child);
+                } else {
+                    next[state * ALPHABET + c] = next[fail[state] * ALPHABET + c];
+                }
+            }
+        }
+        NEXT = next;
+        OUTPUT = output;
+    }
+
+    /* =========================
+       RECHERCHE
+       ========================= */
+
+    private final Layout[] order;
+    private final int[] rank = new int[Layout.values().length]; // -1 : format non retenu
+
+    /**
+     * @param order formats retenus, par priorité décroissante
+     */
+    public MailDateScanner(List<Layout> order) {
+        this.order = order.toArray(new Layout[0]);
+        Arrays.fill(rank, -1);
+        for (int i = 0; i < this.order.length; i++) rank[this.order[i].ordinal()] = i;
+    }
+
+    public List<Layout> getOrder() {
+        return List.of(order);
+    }
+
+    /**
+     * Date du format le plus prioritaire présent dans le texte (la première de ce format),
+     * null si aucune.
+     */
+    public Match scan(CharSequence text) {
+        Match[] found = new Match[order.length];
+        int isoRank = rank[Layout.ISO.ordinal()];
+        boolean searchIso = isoRank >= 0;
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+
+            if (searchIso && isDigit(ch) && (i == 0 || !isDigit(text.charAt(i - 1))) && found[isoRank] == null) {
+                Match iso = iso(text, i);
+                if (iso != null && keep(found, iso)) return iso;
+            }
+
+            char lower = Character.toLowerCase(ch);
+            state = NEXT[state * ALPHABET + (lower < 256 ? CLASS[lower] : 0)];
+            int out = OUTPUT[state];
+            if (out == 0) continue;
+
+            int end = i + 1;
+            int start = end - (out & 0xff);
+            if (isLetter(text, start - 1) || isLetter(text, end)) continue; // « mail », « marsupial »
+            int month = out >>> 16;
+            Match match = (out >>> 8 & 0xff) == FRENCH_NAME
+                    ? french(text, start, end, month)
+                    : english(text, start, end, month);
+            if (match != null && keep(found, match)) return match;
+        }
+        for (Match m : found) {
+            if (m != null) return m;
+        }
+        return null;
+    }
+
+    // Garde la première date de chaque format ; vrai si c'est celle du format prioritaire (arrêt)
+    private boolean keep(Match[] found, Match match) {
+        int r = rank[match.layout().ordinal()];
+        if (r < 0 || found[r] != null) return false;
+        found[r] = match;
+        return r == 0;
+    }
+
+    /* =========================
+       FORMATS
+       ========================= */
+
+    // <jour> <mois> <année> à <h>:<mm>
+    private static Match french(CharSequence text, int start, int end, int month) {
+        int p = skipSpacesBackward(text, start - 1);
+        if (p == start - 1) return null;
+        int dayEnd = p + 1;
+        while (p >= 0 && dayEnd - p <= 2 && isDigit(text.charAt(p))) p--;
+        int dayStart = p + 1;
+        if (dayStart == dayEnd || (p >= 0 && isDigit(text.charAt(p)))) return null;
+        int day = number(text, dayStart, dayEnd);
+
+        int q = skipSpaces(text, end);
+        if (q == end) return null;
+        int year = digits(text, q, 4);
+        if (year < 0) return null;
+        q += 4;
+        int r = skipSpaces(text, q);
+        if (r == q || r >= text.length()) return null;
+        char a = Character.toLowerCase(text.charAt(r));
+        if (a != 'à' && a != 'a') return null;
+        int s = skipSpaces(text, r + 1);
+        if (s == r + 1) return null;
+        long time = time(text, s);
+        if (time < 0) return null;
+
+        return build(year, month, day, (int) (time >>> 32 & 0xff), (int) (time >>> 40), Layout.FRENCH, dayStart);
+    }
+
+    // <mois> <jour>, <année> [at] <h>:<mm> AM|PM
+    private static Match english(CharSequence text, int start, int end, int month) {
+        int p = end;
+        if (p < text.length() && text.charAt(p) == '.') p++; // « Sept. »
+        int q = skipSpaces(text, p);
+        if (q == p) return null;
+        int dayStart = q;
+        while (q < text.length() && q - dayStart < 2 && isDigit(text.charAt(q))) q++;
+        if (q == dayStart || (q < text.length() && isDigit(text.charAt(q)))) return null;
+        int day = number(text, dayStart, q);
+        if (q >= text.length() || text.charAt(q) != ',') return null;
+        int r = skipSpaces(text, q + 1);
+        int year = digits(text, r, 4);
+        if (year < 0) return null;
+        r += 4;
+        int s = skipSpaces(text, r);
+        if (s == r) return null;
+
+        Layout layout = Layout.OUTLOOK;
+        if (s + 2 < text.length() && Character.toLowerCase(text.charAt(s)) == 'a'
+                && Character.toLowerCase(text.charAt(s + 1)) == 't' && isSpace(text.charAt(s + 2))) {
+            layout = Layout.GMAIL;
+            s = skipSpaces(text, s + 2);
+        }
+        long time = time(text, s);
+        if (time < 0) return null;
+        int hour = (int) (time >>> 32 & 0xff);
+        int t = skipSpaces(text, (int) time);
+        if (t + 1 >= text.length() || Character.toLowerCase(text.charAt(t + 1)) != 'm') return null;
+        char meridiem = Character.toLowerCase(text.charAt(t));
+        if (hour < 1 || hour > 12 || (meridiem != 'a' && meridiem != 'p')) return null;
+        hour = hour % 12 + (meridiem == 'p' ? 12 : 0);
+
+        return build(year, month, day, hour, (int) (time >>> 40), layout, start);
+    }
+
+    // <aaaa>-<mm>-<jj>[ T]<hh>:<mm>
+    private static Match iso(CharSequence text, int start) {
+        int year = digits(text, start, 4);
+        if (year < 0 || !charAt(text, start + 4, '-')) return null;
+        int month = digits(text, start + 5, 2);
+        if (month < 0 || !charAt(text, start + 7, '-')) return null;
+        int day = digits(text, start + 8, 2);
+        if (day < 0 || start + 10 >= text.length()) return null;
+        char sep = text.charAt(start + 10);
+        if (sep != 'T' && sep != ' ') return null;
+        int hour = digits(text, start + 11, 2);
+        if (hour < 0 || !charAt(text, start + 13, ':')) return null;
+        int minute = digits(text, start + 14, 2);
+        if (minute < 0) return null;
+        return build(year, month, day, hour, minute, Layout.ISO, start);
+    }
+
+    // Date construite seulement si elle existe : pas d'exception
+    private static Match build(int year, int month, int day, int hour, int minute, Layout layout, int start) {
+        if (month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) return null;
+        if (hour > 23 || minute > 59) return null;
+        return new Match(LocalDateTime.of(year, month, day, hour, minute), layout, start);
+    }
+
+    /* =========================
+       LECTURE DES CARACTÈRES
+       ========================= */
+
+    // <h>:<mm> à partir de from : fin << 0 | heure << 32 | minutes << 40, -1 si absent
+    private static long time(CharSequence text, int from) {
+        int p = from;
+        while (p < text.length() && p - from < 2 && isDigit(text.charAt(p))) p++;
+        if (p == from || !charAt(text, p, ':')) return -1;
+        int hour = number(text, from, p);
+        int minute = digits(text, p + 1, 2);
+        if (minute < 0) return -1;
+        return (long) minute << 40 | (long) hour << 32 | (p + 3);
+    }
+
+    // Exactement count chiffres (pas un de plus), -1 sinon
+    private static int digits(CharSequence text, int from, int count) {
+        if (from < 0 || from + count > text.length()) return -1;
+        if (from + count < text.length() && isDigit(text.charAt(from + count))) return -1;
+        for (int i = from; i < from + count; i++) {
+            if (!isDigit(text.charAt(i))) return -1;
+        }
+        return number(text, from, from + count);
+    }
+
+    private static int number(CharSequence text, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) n = n * 10 + (text.charAt(i) - '0');
+        return n;
+    }
+
+    private static int skipSpaces(CharSequence text, int from) {
+        while (from < text.length() && isSpace(text.charAt(from))) from++;
+        return from;
+    }
+
+    private static int skipSpacesBackward(CharSequence text, int from) {
+        while (from >= 0 && isSpace(text.charAt(from))) from--;
+        return from;
+    }
+
+    private static boolean isSpace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r' || ch == '\u00a0' || ch == '\u202f';
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean isLetter(CharSequence text, int index) {
+        return index >= 0 && index < text.length() && Character.isLetter(text.charAt(index));
+    }
+
+    private static boolean charAt(CharSequence text, int index, char expected) {
+        return index < text.length() && text.charAt(index) == expected;
+    }
+}
@@ -0,0 +1,329 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.DocumentFile;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Import de mails exportés (boîtes mbox, dossiers de .eml) sans passer par des PDF.
+ * <p>
+ * Chaque message est lu en flux par un {@link MailboxReader} : date, expéditeur et objet
+ * viennent des en-têtes, aucun texte n'est extrait. La candidature est reconnue par le
+ * {@link CandidatureMatcher} (expéditeur et objet, le domaine de l'adresse comptant comme
+ * un mot) ; à défaut, et si demandé, une candidature est créée par expéditeur. Les pièces
+ * jointes PDF du message sont enregistrées dans son dossier, ou le message lui-même
+ * (.eml) s'il n'en a pas. Le rangement passe par {@link PdfImportService} : un contenu déjà
+ * présent n'est pas recopié.
+ * <p>
+ * Bloquant : à appeler hors du thread UI. Les candidatures existantes ne sont pas
+ * modifiées ici ; le {@link Report} liste les documents et candidatures pour le thread UI.
+ * Une instance par import.
+ */
+public class MailImportService {
+
+    private static final int PROGRESS_EVERY = 200;
+    private static final int MAX_NAME = 80;
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH'h'mm");
+
+    public record Progress(long messages, long bytesDone, long bytesTotal, Path file) {
+    }
+
+    /**
+     * Document enregistré, à rattacher à sa candidature.
+     *
+     * @param pages texte à indexer pour un message (.eml), null pour un PDF (extrait par l'index)
+     */
+    public record Stored(Candidature candidature, DocumentFile doc, List<String> pages) {
+    }
+
+    /**
+     * @param created    candidatures nouvelles (documents compris dans {@code documents})
+     * @param unassigned messages sans candidature reconnue, laissés de côté
+     */
+    public record Report(List<Stored> documents, List<Candidature> created, long messages, long unassigned,
+                         long duplicates, List<String> errors, long bytes, long nanos) {
+
+        public double messagesPerSecond() {
+            return nanos == 0 ? 0 : messages / (nanos / 1e9);
+        }
+
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes / 1048576.0 / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.FRENCH, "%d messages, %.1f Mo en %.2f s : %.0f messages/s, %.1f Mo/s"
+                            + " ; %d documents, %d candidatures créées, %d non rattachés, %d doublons, %d erreurs",
+                    messages, bytes / 1048576.0, nanos / 1e9, messagesPerSecond(), megabytesPerSecond(),
+                    documents.size(), created.size(), unassigned, duplicates, errors.size());
+        }
+    }
+
+    // Écrit un fichier à ranger
+    private interface Writer {
+        void write(Path target) throws IOException;
+    }
+
+    private final CandidatureMatcher matcher;
+    private final DocumentHashIndex hashes;
+    private final boolean createMissing;
+    private final Path staging = FileSystemService.getRoot().resolve(".import-mails"); // même disque : rangement par renommage
+
+    // État d'un import
+    private final Map<String, Candidature> createdBySender = new HashMap<>();
+    private final List<Candidature> created = new ArrayList<>();
+    private final Set<Path> usedFolders = new HashSet<>();
+    private final List<Stored> stored = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+    private long unassigned;
+    private long duplicates;
+
+    /**
+     * @param createMissing créer une candidature pour chaque expéditeur non reconnu
+     */
+    public MailImportService(CandidatureMatcher matcher, DocumentHashIndex hashes, boolean createMissing) {
+        this.matcher = matcher;
+        this.hashes = hashes;
+        this.createMissing = createMissing;
+    }
+
+    /**
+     * Importe des boîtes mbox et des fichiers .eml ; les dossiers sont parcourus à la recherche
+     * de .eml. Un fichier illisible est noté dans le rapport et n'arrête pas l'import.
+     */
+    public Report importAll(List<Path> sources, Consumer<Progress> progress) throws IOException {
+        long start = System.nanoTime();
+        List<Path> files = expand(sources);
+        long total = 0;
+        for (Path f : files) total += Files.size(f);
+        Files.createDirectories(staging);
+
+        long messages = 0;
+        long done = 0;
+        for (Path file : files) {
+            if (Thread.currentThread().isInterrupted()) break; // import annulé
+            try (MailboxReader reader = new MailboxReader(file)) {
+                MailboxReader.Message m;
+                while (!Thread.currentThread().isInterrupted() && (m = reader.next()) != null) {
+                    messages++;
+                    handle(reader, m, file);
+                    if (messages % PROGRESS_EVERY == 0) {
+                        progress.accept(new Progress(messages, done + reader.position(), total, file));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                errors.add(file.getFileName() + " : " + e.getMessage());
+            }
+            done += Files.size(file);
+            progress.accept(new Progress(messages, done, total, file));
+        }
+        return new Report(List.copyOf(stored), List.copyOf(created), messages, unassigned, duplicates,
+                List.copyOf(errors), done, System.nanoTime() - start);
+    }
+
+    private static List<Path> expand(List<Path> sources) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path source : sources) {
+            if (!Files.isDirectory(source)) {
+                files.add(source);
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(source)) {
+                walk.filter(Files::isRegularFile)
+                        .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".eml"))
+                        .sorted()
+                        .forEach(files::add);
+            }
+        }
+        return files;
+    }
+
+    /* =========================
+       UN MESSAGE
+       ========================= */
+    private void handle(MailboxReader reader, MailboxReader.Message m, Path file) {
+        Candidature c = target(m);
+        if (c == null) {
+            unassigned++;
+            return;
+        }
+        try {
+            if (!m.pdfs().isEmpty()) {
+                for (MailboxReader.Attachment a : m.pdfs()) {
+                    store(c, m, safeName(a.fileName(), ".pdf"), reader.sha256(a), target -> {
+                        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+                            reader.copyAttachment(a, out);
+                        }
+                    }, null);
+                }
+            } else {
+                store(c, m, messageName(m), reader.sha256(m), target -> {
+                    try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        reader.copyMessage(m, out);
+                    }
+                }, List.of(headerText(m)));
+            }
+        } catch (IOException | RuntimeException e) {
+            errors.add(file.getFileName() + " @" + m.start() + " (" + m.subject() + ") : " + e.getMessage());
+        }
+    }
+
+    // Empreinte calculée sur le fichier projeté : un contenu déjà rangé n'est pas écrit (réimport)
+    private void store(Candidature c, MailboxReader.Message m, String name, String sha256, Writer writer,
+                       List<String> pages) throws IOException {
+        for (DocumentHashIndex.Location l : hashes.find(sha256)) {
+            if (l.candidature() == c) {
+                duplicates++;
+                hashes.recordSkipped(0);
+                return;
+            }
+        }
+
+        Path staged = staging.resolve(name);
+        try {
+            writer.write(staged);
+            PdfImportService.Imported imported = PdfImportService.importer(staged, c, m.date(), hashes, sha256);
+            if (imported.outcome() != PdfImportService.Outcome.IMPORTED) duplicates++;
+            if (imported.doc() == null) return; // déjà dans cette candidature
+
+            if (pages != null) {
+                // Pas de PDF à ouvrir : métadonnées posées ici, le rattrapage n'a rien à faire
+                imported.doc().setMetadata(DocumentMetadataService.compute(
+                        imported.doc().getFichier(), pages.size(), sha256, true));
+            }
+            stored.add(new Stored(c, imported.doc(), pages));
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    /* =========================
+       CANDIDATURE DU MESSAGE
+       ========================= */
+    private Candidature target(MailboxReader.Message m) {
+        CandidatureMatcher.Result match = matcher.match(List.of(matchText(m)), m.date());
+        if (match.automatic() != null) return match.automatic();
+
+        String sender = senderKey(m);
+        if (sender == null) return null;
+        Candidature c = createdBySender.get(sender);
+        if (c == null && createMissing) {
+            c = create(m, sender);
+            createdBySender.put(sender, c);
+            created.add(c);
+        } else if (c != null && m.date() != null
+                && (c.getDateEnvoi() == null || m.date().toLocalDate().isBefore(c.getDateEnvoi()))) {
+            c.setDateEnvoi(m.date().toLocalDate()); // premier échange avec cet expéditeur
+        }
+        return c;
+    }
+
+    // Expéditeur et objet ; les libellés du domaine comptent aussi comme mots (rh@dupont.fr → dupont)
+    private static String matchText(MailboxReader.Message m) {
+        StringBuilder sb = new StringBuilder(256);
+        if (m.from() != null) sb.append("De : ").append(m.from());
+        if (m.address() != null) {
+            sb.append(" <").append(m.address()).append("> ");
+            String[] labels = m.domain().split("\\.");
+            for (int i = 0; i < labels.length - 1; i++) sb.append(labels[i]).append(' ');
+        }
+        if (m.subject() != null) sb.append("\nObjet : ").append(m.subject());
+        return sb.toString();
+    }
+
+    // Texte indexé d'un message enregistré en .eml
+    private static String headerText(MailboxReader.Message m) {
+        return "De : " + (m.from() != null ? m.from() : "")
+                + (m.address() != null && !m.address().equals(m.from()) ? " <" + m.address() + ">" : "")
+                + "\nObjet : " + (m.subject() != null ? m.subject() : "");
+    }
+
+    // Entreprise de l'expéditeur : libellé de son domaine, ou son adresse pour une messagerie
+    private static String senderKey(MailboxReader.Message m) {
+        String label = organisation(m.domain());
+        return label != null ? label : m.address();
+    }
+
+    // « rh.dupont.co.uk » → dupont ; null pour une messagerie ou une plateforme
+    private static String organisation(String domain) {
+        if (domain == null) return null;
+        String[] labels = domain.split("\\.");
+        if (labels.length < 2) return null;
+        int i = labels.length - 2;
+        if (labels[i].length() <= 3 && i > 0 && labels[labels.length - 1].length() == 2) i--; // co.uk, com.au
+        String label = labels[i].replace("-", "");
+        return label.length() < 2 || CandidatureMatcher.isGenericDomain(label) ? null : label;
+    }
+
+    private Candidature create(MailboxReader.Message m, String sender) {
+        String label = organisation(m.domain());
+        String entreprise;
+        if (label != null) {
+            entreprise = Character.toUpperCase(label.charAt(0)) + label.substring(1);
+        } else {
+            String name = m.from() != null ? m.from() : sender;
+            int via = name.toLowerCase(Locale.ROOT).indexOf(" via ");
+            entreprise = (via > 0 ? name.substring(0, via) : name).trim();
+        }
+        String poste = m.subject() == null ? "" : m.subject()
+                .replaceFirst("(?i)^\\s*((re|tr|fw|fwd|aw|réf|ref)\\s*:\\s*)+", "")
+                .trim();
+        if (poste.isEmpty()) poste = "Candidature";
+        if (poste.length() > MAX_NAME) poste = poste.substring(0, MAX_NAME).trim();
+
+        Candidature c = new Candidature(entreprise, poste);
+        c.setDateEnvoi(m.date() != null ? m.date().toLocalDate() : LocalDate.now());
+        c.setDossier(freeFolder((entreprise + "_" + poste).replaceAll("\\W+", "_")));
+        return c;
+    }
+
+    // Deux expéditeurs au même nom de dossier : suffixe
+    private Path freeFolder(String name) {
+        Path folder = FileSystemService.createCandidatureFolder(name);
+        for (int n = 2; usedFolders.contains(folder) || Files.exists(folder); n++) {
+            folder = FileSystemService.createCandidatureFolder(name + "_" + n);
+        }
+        usedFolders.add(folder);
+        return folder;
+    }
+
+    /* =========================
+       NOMS DE FICHIERS
+       ========================= */
+    private static String messageName(MailboxReader.Message m) {
+        LocalDateTime date = m.date() != null ? m.date() : LocalDateTime.now();
+        String subject = m.subject() != null && !m.subject().isBlank() ? m.subject() : "message";
+        return safeName(date.format(FILE_DATE) + " " + subject, ".eml");
+    }
+
+    private static String safeName(String name, String extension) {
+        String base = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        if (base.toLowerCase(Locale.ROOT).endsWith(extension)) {
+            base = base.substring(0, base.length() - extension.length());
+        }
+        if (base.length() > MAX_NAME) base = base.substring(0, MAX_NAME).trim();
+        if (base.isEmpty() || base.startsWith(".")) base = "message" + base;
+        return base + extension;
+    }
+}
@@ -0,0 +1,690 @@
+package app.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lecture en flux d'une boîte mbox ou d'un fichier .eml, sans charger les messages.
+ * <p>
+ * Le fichier est projeté en mémoire par fenêtres de {@code WINDOW} octets, remplacées au fil
+ * de la lecture : la mémoire utilisée ne dépend pas de la taille de la boîte. Pour chaque
+ * message, seuls les en-têtes (date, expéditeur, objet) sont décodés ; les pièces jointes PDF
+ * sont repérées par leurs positions et décodées directement vers leur fichier, le message
+ * brut est recopié sans passer par le tas ({@link FileChannel#transferTo}).
+ * <p>
+ * Un fichier qui commence par {@code "From "} est lu comme une boîte mbox : un message
+ * commence à chaque ligne {@code "From "} précédée d'une ligne vide. Sinon le fichier
+ * entier est un seul message. Les lignes {@code ">From "} du corps sont laissées telles
+ * quelles. Un lecteur par fichier, utilisé par un seul thread.
+ */
+public class MailboxReader implements AutoCloseable {
+
+    private static final long WINDOW = 128L << 20;
+    private static final int MAX_HEADER = 256 * 1024; // au-delà : message mal formé, en-têtes tronqués
+    private static final int MAX_DEPTH = 5;           // multipart imbriqués (transferts)
+
+    private static final byte[] FROM = "From ".getBytes(StandardCharsets.US_ASCII);
+    private static final Pattern ENCODED_WORD = Pattern.compile("=\\?([^?\\s]+)\\?([bBqQ])\\?([^?]*)\\?=");
+
+    private static final String[] MONTHS = {"jan", "feb", "mar", "apr", "may", "jun",
+            "jul", "aug", "sep", "oct", "nov", "dec"};
+    private static final Map<String, Integer> ZONES = Map.ofEntries(
+            Map.entry("ut", 0), Map.entry("utc", 0), Map.entry("gmt", 0), Map.entry("z", 0),
+            Map.entry("est", -5), Map.entry("edt", -4), Map.entry("cst", -6), Map.entry("cdt", -5),
+            Map.entry("mst", -7), Map.entry("mdt", -6), Map.entry("pst", -8), Map.entry("pdt", -7),
+            Map.entry("cet", 1), Map.entry("cest", 2), Map.entry("bst", 1));
+
+    /**
+     * Pièce jointe PDF : contenu entre {@code start} et {@code end}, encodé en base64 ou brut.
+     */
+    public record Attachment(String fileName, long start, long end, boolean base64) {
+    }
+
+    /**
+     * Message entre {@code start} et {@code end} (sans la ligne {@code "From "} de la boîte).
+     *
+     * @param date    en-tête Date à l'heure locale, null s'il est absent ou illisible
+     * @param from    nom affiché de l'expéditeur (décodé), ou son adresse
+     * @param address adresse de l'expéditeur en minuscules, null si introuvable
+     */
+    public record Message(long start, long end, LocalDateTime date, String from, String address, String subject,
+                          List<Attachment> pdfs) {
+
+        public long bytes() {
+            return end - start;
+        }
+
+        // Domaine de l'adresse (« rh@mail.societe.fr » → mail.societe.fr), null sans adresse
+        public String domain() {
+            int at = address != null ? address.lastIndexOf('@') : -1;
+            return at >= 0 ? address.substring(at + 1) : null;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final boolean mbox;
+
+    private MappedByteBuffer window;
+    private long base;
+    private long limit;
+
+    private long position;
+
+    public MailboxReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+        mbox = startsWith(0, FROM, size);
+    }
+
+    public boolean isMbox() {
+        return mbox;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // Octets déjà parcourus, pour l'avancement
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Message suivant, null en fin de fichier.
+     */
+    public Message next() throws IOException {
+        if (position >= size) return null;
+        long start = position;
+        long end;
+        if (mbox) {
+            start = lineEnd(position, size); // ligne "From " de la boîte
+            end = nextSeparator(start);
+        } else {
+            end = size;
+        }
+        position = end;
+        if (start >= end) return next();
+        return parse(start, end);
+    }
+
+    /* =========================
+       DÉCOUPAGE DE LA BOÎTE
+       ========================= */
+
+    // Début de la prochaine ligne "From " précédée d'une ligne vide, ou fin du fichier
+    private long nextSeparator(long from) throws IOException {
+        long p = from;
+        while (p < size) {
+            long nl = indexOf((byte) '\n', p, size);
+            if (nl < 0) return size;
+            p = nl + 1;
+            if (startsWith(p, FROM, size) && blankLineBefore(nl)) return p;
+        }
+        return size;
+    }
+
+    private boolean blankLineBefore(long newline) throws IOException {
+        long q = newline - 1;
+        if (q >= 0 && at(q) == '\r') q--;
+        return q >= 0 && at(q) == '\n';
+    }
+
+    /* =========================
+       EN-TÊTES
+       ========================= */
+    private Message parse(long start, long end) throws IOException {
+        long bodyStart = headerEnd(start, end);
+        Headers headers = headers(start, Math.min(bodyStart, start + MAX_HEADER));
+
+        String fromHeader = decodeWords(headers.from);
+        String address = address(fromHeader);
+        String name = displayName(fromHeader, address);
+
+        List<Attachment> pdfs = new ArrayList<>();
+        collect(headers, bodyStart, end, pdfs, 0);
+        return new Message(start, end, parseDate(headers.date), name, address,
+                decodeWords(headers.subject), pdfs);
+    }
+
+    // Première ligne vide : fin des en-têtes
+    private long headerEnd(long start, long end) throws IOException {
+        long p = start;
+        while (p < end) {
+            byte b = at(p);
+            if (b == '\n') return p + 1;
+            if (b == '\r' && p + 1 < end && at(p + 1) == '\n') return p + 2;
+            long nl = indexOf((byte) '\n', p, end);
+            if (nl < 0) return end;
+            p = nl + 1;
+        }
+        return end;
+    }
+
+    // En-têtes dépliés ; seules les valeurs utiles sont gardées
+    private Headers headers(long start, long end) throws IOException {
+        String text = decodeBytes(bytes(start, end));
+        Headers headers = new Headers();
+        String name = null; // en-tête en cours, null s'il n'est pas gardé
+        StringBuilder value = new StringBuilder();
+        int length = text.length();
+        for (int from = 0; from < length; ) {
+            int nl = text.indexOf('\n', from);
+            int lineEnd = nl < 0 ? length : nl;
+            int next = nl < 0 ? length : nl + 1;
+            if (lineEnd > from && text.charAt(lineEnd - 1) == '\r') lineEnd--;
+            char first = lineEnd > from ? text.charAt(from) : '\n';
+            if (first == ' ' || first == '\t') {
+                if (name != null) {
+                    int i = from;
+                    while (i < lineEnd && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) i++;
+                    value.append(' ').append(text, i, lineEnd);
+                }
+            } else {
+                if (name != null) headers.put(name, value.toString().trim());
+                int colon = text.indexOf(':', from);
+                name = colon > from && colon < lineEnd ? Headers.kept(text.substring(from, colon).trim()) : null;
+                value.setLength(0);
+                if (name != null) value.append(text, colon + 1, lineEnd);
+            }
+            from = next;
+        }
+        if (name != null) headers.put(name, value.toString().trim());
+        return headers;
+    }
+
+    // Champs lus dans les en-têtes d'un message ou d'une partie
+    private static final class Headers {
+        String date, from, subject, contentType, encoding, disposition;
+
+        private static final String[] KEPT = {"date", "from", "subject", "content-type",
+                "content-transfer-encoding", "content-disposition"};
+
+        // Nom en minuscules si l'en-tête est utile, sinon null
+        static String kept(String name) {
+            for (String k : KEPT) {
+                if (k.equalsIgnoreCase(name)) return k;
+            }
+            return null;
+        }
+
+        void put(String name, String value) {
+            switch (name) {
+                case "date" -> date = date == null ? value : date;
+                case "from" -> from = from == null ? value : from;
+                case "subject" -> subject = subject == null ? value : subject;
+                case "content-type" -> contentType = value;
+                case "content-transfer-encoding" -> encoding = value.toLowerCase(Locale.ROOT);
+                case "content-disposition" -> disposition = value;
+                default -> {
+                }
+            }
+        }
+
+        String mimeType() {
+            if (contentType == null) return "text/plain";
+            int semi = contentType.indexOf(';');
+            return (semi >= 0 ? contentType.substring(0, semi) : contentType).trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /* =========================
+       PIÈCES JOINTES
+       ========================= */
+    private void collect(Headers headers, long bodyStart, long end, List<Attachment> pdfs, int depth)
+            throws IOException {
+        String type = headers.mimeType();
+        if (type.startsWith("multipart/")) {
+            String boundary = parameter(headers.contentType, "boundary");
+            if (boundary != null && depth < MAX_DEPTH) parts(boundary, bodyStart, end, pdfs, depth);
+            return;
+        }
+        String fileName = fileName(headers);
+        boolean pdf = type.equals("application/pdf")
+                || (fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".pdf"));
+        if (!pdf) return;
+        String encoding = headers.encoding != null ? headers.encoding : "7bit";
+        boolean base64 = encoding.equals("base64");
+        if (!base64 && !encoding.equals("binary") && !encoding.equals("8bit") && !encoding.equals("7bit")) return;
+        pdfs.add(new Attachment(fileName != null ? fileName : "piece-jointe.pdf", bodyStart, end, base64));
+    }
+
+    // Parties délimitées par "--boundary" en début de ligne ; "--boundary--" termine
+    private void parts(String boundary, long from, long end, List<Attachment> pdfs, int depth) throws IOException {
+        byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        long p = findLine(from, end, delimiter);
+        while (p >= 0) {
+            long after = p + delimiter.length;
+            if (after + 1 < end && at(after) == '-' && at(after + 1) == '-') return; // fin
+            long partStart = lineEnd(after, end);
+            long next = findLine(partStart, end, delimiter);
+            long partEnd = next >= 0 ? trimNewline(partStart, next) : end;
+
+            long partBody = headerEnd(partStart, partEnd);
+            Headers headers = headers(partStart, Math.min(partBody, partStart + MAX_HEADER));
+            collect(headers, partBody, partEnd, pdfs, depth + 1);
+            p = next;
+        }
+    }
+
+    // Le saut de ligne avant le délimiteur appartient au délimiteur
+    private long trimNewline(long start, long delimiter) throws IOException {
+        long p = delimiter;
+        if (p > start && at(p - 1) == '\n') p--;
+        if (p > start && at(p - 1) == '\r') p--;
+        return p;
+    }
+
+    /**
+     * Écrit le PDF décodé dans {@code out}.
+     */
+    public void copyAttachment(Attachment attachment, OutputStream out) throws IOException {
+        InputStream in = new RangeInputStream(attachment.start(), attachment.end());
+        if (attachment.base64()) in = Base64.getMimeDecoder().wrap(in);
+        in.transferTo(out);
+    }
+
+    // Empreinte SHA-256 du PDF décodé, sans l'écrire
+    public String sha256(Attachment attachment) throws IOException {
+        MessageDigest digest = sha256();
+        copyAttachment(attachment, new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Empreinte SHA-256 du message brut
+    public String sha256(Message message) throws IOException {
+        MessageDigest digest = sha256();
+        new RangeInputStream(message.start(), message.end())
+                .transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Recopie le message brut (fichier .eml) sans le charger.
+     */
+    public void copyMessage(Message message, FileChannel target) throws IOException {
+        long done = 0;
+        while (done < message.bytes()) {
+            long n = channel.transferTo(message.start() + done, message.bytes() - done, target);
+            if (n <= 0) throw new IOException("Copie interrompue à l'octet " + (message.start() + done));
+            done += n;
+        }
+    }
+
+    // Lecture d'une plage du fichier à travers les fenêtres projetées
+    private final class RangeInputStream extends InputStream {
+        private long pos;
+        private final long end;
+
+        RangeInputStream(long start, long end) {
+            this.pos = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return pos < end ? at(pos++) & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (pos >= end) return -1;
+            map(pos);
+            int n = (int) Math.min(len, Math.min(end, limit) - pos);
+            window.get((int) (pos - base), b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+
+    /* =========================
+       DÉCODAGE DES VALEURS
+       ========================= */
+
+    /**
+     * Mots encodés (RFC 2047) : {@code =?utf-8?B?...?=} ou {@code =?iso-8859-1?Q?...?=}.
+     */
+    static String decodeWords(String value) {
+        if (value == null) return null;
+        if (!value.contains("=?")) return value;
+        Matcher m = ENCODED_WORD.matcher(value);
+        StringBuilder sb = new StringBuilder(value.length());
+        int last = 0;
+        boolean previousEncoded = false;
+        while (m.find()) {
+            String between = value.substring(last, m.start());
+            if (!(previousEncoded && between.isBlank())) sb.append(between); // espaces entre deux mots encodés : ignorés
+            Charset charset = charset(m.group(1));
+            byte[] bytes = m.group(2).equalsIgnoreCase("b") ? base64(m.group(3)) : quotedPrintable(m.group(3));
+            sb.append(new String(bytes, charset));
+            last = m.end();
+            previousEncoded = true;
+        }
+        sb.append(value, last, value.length());
+        return sb.toString();
+    }
+
+    private static Charset charset(String name) {
+        int star = name.indexOf('*'); // langue (RFC 2231) : =?utf-8*fr?...
+        try {
+            return Charset.forName(star >= 0 ? name.substring(0, star) : name);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private static byte[] base64(String text) {
+        try {
+            return Base64.getMimeDecoder().decode(text);
+        } catch (IllegalArgumentException e) {
+            return text.getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static byte[] quotedPrintable(String text) {
+        byte[] out = new byte[text.length()];
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '_') {
+                out[n++] = ' ';
+            } else if (ch == '=' && i + 2 < text.length()
+                    && Character.digit(text.charAt(i + 1), 16) >= 0 && Character.digit(text.charAt(i + 2), 16) >= 0) {
+                out[n++] = (byte) HexFormat.fromHexDigits(text, i + 1, i + 3);
+                i += 2;
+            } else {
+                out[n++] = (byte) ch;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // En-têtes en UTF-8 brut si valides, sinon Latin-1 (anciens clients)
+    private static String decodeBytes(byte[] bytes) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    static String address(String from) {
+        if (from == null) return null;
+        int lt = from.lastIndexOf('<');
+        int gt = lt >= 0 ? from.indexOf('>', lt) : -1;
+        String candidate;
+        if (lt >= 0 && gt > lt) {
+            candidate = from.substring(lt + 1, gt).trim();
+        } else {
+            // Adresse seule : le mot qui contient '@'
+            int at = from.lastIndexOf('@');
+            if (at < 0) return null;
+            int start = at, end = at;
+            while (start > 0 && !isAddressBreak(from.charAt(start - 1))) start--;
+            while (end < from.length() && !isAddressBreak(from.charAt(end))) end++;
+            candidate = from.substring(start, end);
+        }
+        int at = candidate.indexOf('@');
+        return at > 0 && at < candidate.length() - 1 ? candidate.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static boolean isAddressBreak(char ch) {
+        return Character.isWhitespace(ch) || ch == '"' || ch == '<' || ch == '>' || ch == ',' || ch == ';';
+    }
+
+    private static String displayName(String from, String address) {
+        if (from == null) return null;
+        int lt = from.lastIndexOf('<');
+        String name = (lt > 0 ? from.substring(0, lt) : "").replace("\"", "").trim();
+        return !name.isEmpty() ? name : address != null ? address : from.trim();
+    }
+
+    // Paramètre d'un en-tête : boundary="...", name=..., filename*=utf-8''...
+    static String parameter(String header, String name) {
+        if (header == null) return null;
+        String lower = header.toLowerCase(Locale.ROOT);
+        int from = 0;
+        while (true) {
+            int i = lower.indexOf(name, from);
+            if (i < 0) return null;
+            from = i + name.length();
+            boolean start = i == 0 || lower.charAt(i - 1) == ';' || Character.isWhitespace(lower.charAt(i - 1));
+            if (!start) continue;
+            int j = from;
+            boolean extended = j < lower.length() && lower.charAt(j) == '*';
+            if (extended) j++;
+            while (j < lower.length() && Character.isWhitespace(lower.charAt(j))) j++;
+            if (j >= lower.length() || lower.charAt(j) != '=') continue;
+            j++;
+            while (j < lower.length() && Character.isWhitespace(lower.charAt(j))) j++;
+
+            String value;
+            if (j < header.length() && header.charAt(j) == '"') {
+                int close = header.indexOf('"', j + 1);
+                value = header.substring(j + 1, close > 0 ? close : header.length());
+            } else {
+                int semi = header.indexOf(';', j);
+                value = header.substring(j, semi >= 0 ? semi : header.length()).trim();
+            }
+            return extended ? extendedValue(value) : decodeWords(value);
+        }
+    }
+
+    // RFC 2231 : charset'langue'valeur-encodée-en-pourcent
+    private static String extendedValue(String value) {
+        int first = value.indexOf('\'');
+        int second = first >= 0 ? value.indexOf('\'', first + 1) : -1;
+        if (second < 0) return value;
+        Charset charset = charset(value.substring(0, first));
+        String encoded = value.substring(second + 1);
+        byte[] out = new byte[encoded.length()];
+        int n = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            char ch = encoded.charAt(i);
+            if (ch == '%' && i + 2 < encoded.length()
+                    && Character.digit(encoded.charAt(i + 1), 16) >= 0 && Character.digit(encoded.charAt(i + 2), 16) >= 0) {
+                out[n++] = (byte) HexFormat.fromHexDigits(encoded, i + 1, i + 3);
+                i += 2;
+            } else {
+                out[n++] = (byte) ch;
+            }
+        }
+        return new String(out, 0, n, charset);
+    }
+
+    private static String fileName(Headers headers) {
+        String name = parameter(headers.disposition, "filename");
+        if (name == null) name = parameter(headers.contentType, "name");
+        return name == null || name.isBlank() ? null : name.trim();
+    }
+
+    /**
+     * Date d'un en-tête (RFC 5322) à l'heure locale : {@code "Tue, 4 Jun 2024 09:12:45 +0200 (CEST)"}.
+     * Sans exception : null si la date est illisible.
+     */
+    static LocalDateTime parseDate(String value) {
+        if (value == null) return null;
+        int day = -1, month = -1, year = -1, hour = -1, minute = -1, second = 0;
+        ZoneOffset offset = ZoneOffset.UTC;
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            char ch = value.charAt(i);
+            if (ch == '(') { // commentaire : (CEST)
+                int close = value.indexOf(')', i);
+                i = close < 0 ? length : close + 1;
+                continue;
+            }
+            if (Character.isWhitespace(ch) || ch == ',') {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(value.charAt(i)) && value.charAt(i) != ','
+                    && value.charAt(i) != '(') {
+                i++;
+            }
+            String t = value.substring(start, i);
+            char first = t.charAt(0);
+            int colon = t.indexOf(':');
+            if (colon > 0 && hour < 0) {
+                int colon2 = t.indexOf(':', colon + 1);
+                hour = number(t.substring(0, colon));
+                minute = number(t.substring(colon + 1, colon2 > 0 ? colon2 : t.length()));
+                second = colon2 > 0 ? Math.max(0, number(t.substring(colon2 + 1))) : 0;
+            } else if ((first == '+' || first == '-') && t.length() == 5 && hour >= 0) {
+                int hhmm = number(t.substring(1));
+                if (hhmm < 0) continue;
+                int seconds = (hhmm / 100 * 3600 + hhmm % 100 * 60) * (first == '-' ? -1 : 1);
+                if (Math.abs(seconds) <= 18 * 3600) offset = ZoneOffset.ofTotalSeconds(seconds);
+            } else if (Character.isDigit(first)) {
+                int n = number(t);
+                if (n < 0) continue;
+                if (day < 0 && month < 0 && t.length() <= 2) day = n;
+                else if (year < 0 && month >= 0) year = t.length() <= 2 ? (n < 50 ? 2000 + n : 1900 + n) : n;
+            } else if (Character.isLetter(first)) {
+                String lower = t.toLowerCase(Locale.ROOT);
+                if (month < 0 && lower.length() >= 3) {
+                    for (int m = 0; m < 12; m++) {
+                        if (lower.startsWith(MONTHS[m])) month = m + 1;
+                    }
+                }
+                Integer zone = hour >= 0 && lower.length() <= 4 ? ZONES.get(lower) : null;
+                if (zone != null) offset = ZoneOffset.ofHours(zone);
+            }
+        }
+        if (day < 1 || day > 31 || month < 1 || year < 1970 || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second > 60) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.of(year, month, day, hour, minute, Math.min(second, 59), 0, offset)
+                    .withZoneSameInstant(ZoneId.systemDefault())
+                    .toLocalDateTime();
+        } catch (DateTimeException e) {
+            return null; // 31 juin...
+        }
+    }
+
+    private static int number(String s) {
+        if (s.isEmpty() || s.length() > 9) return -1;
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            n = n * 10 + d;
+        }
+        return n;
+    }
+
+    /* =========================
+       ACCÈS AU FICHIER PROJETÉ
+       ========================= */
+    private byte at(long pos) throws IOException {
+        if (pos < base || pos >= limit) map(pos);
+        return window.get((int) (pos - base));
+    }
+
+    // Fenêtre qui contient pos ; l'ancienne est libérée par le ramasse-miettes
+    private void map(long pos) throws IOException {
+        if (window != null && pos >= base && pos < limit) return;
+        base = pos;
+        limit = Math.min(size, pos + WINDOW);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, base, limit - base);
+    }
+
+    private byte[] bytes(long start, long end) throws IOException {
+        byte[] bytes = new byte[(int) (end - start)];
+        int done = 0;
+        while (done < bytes.length) {
+            map(start + done);
+            int n = (int) Math.min(bytes.length - done, limit - (start + done));
+            window.get((int) (start + done - base), bytes, done, n);
+            done += n;
+        }
+        return bytes;
+    }
+
+    private long indexOf(byte b, long from, long to) throws IOException {
+        long p = from;
+        while (p < to) {
+            map(p);
+            int end = (int) (Math.min(to, limit) - base);
+            int i = (int) (p - base);
+            for (; i < end; i++) {
+                if (window.get(i) == b) return base + i;
+            }
+            p = base + end;
+        }
+        return -1;
+    }
+
+    private boolean startsWith(long pos, byte[] prefix, long to) throws IOException {
+        if (pos + prefix.length > to) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (at(pos + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    // Ligne commençant par prefix, à partir de from (qui doit être un début de ligne)
+    private long findLine(long from, long to, byte[] prefix) throws IOException {
+        long p = from;
+        while (p < to) {
+            if (startsWith(p, prefix, to)) return p;
+            long nl = indexOf((byte) '\n', p, to);
+            if (nl < 0) return -1;
+            p = nl + 1;
+        }
+        return -1;
+    }
+
+    private long lineEnd(long from, long to) throws IOException {
+        long nl = indexOf((byte) '\n', from, to);
+        return nl < 0 ? to : nl + 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
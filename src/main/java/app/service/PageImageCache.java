@@ -0,0 +1,180 @@
+package app.service;
+
+import javafx.scene.image.Image;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Pages PDF déjà rendues (LRU), bornées par la mémoire de leurs pixels.
+ * <p>
+ * La clé réunit le fichier (et sa date de modification), la page et la largeur rendue
+ * en pixels : revenir sur une page déjà vue l'affiche sans nouveau rendu. Une image occupe
+ * largeur × hauteur × 4 octets ; les moins récemment vues sont retirées dès que le
+ * total dépasse le budget. Partagé entre le thread UI (lecture) et le thread de rendu
+ * (ajout).
+ * <p>
+ * Une image en route vers l'écran ou affichée est épinglée ({@link #pin}, {@link #acquire}) :
+ * elle peut quitter le cache, mais n'est passée à {@code onEvict} qu'à sa dernière
+ * libération ({@link #release}). Son tableau de pixels n'est donc pas réutilisé tant
+ * qu'elle est à l'écran.
+ */
+public class PageImageCache {
+
+    public record Key(Path path, long modified, int page, int width) {
+
+        public Key withWidth(int width) {
+            return new Key(path, modified, page, width);
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Image> images = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private Consumer<Image> onEvict = image -> {};
+
+    // Image épinglée → nombre d'épingles ; retirées du cache en attendant leur libération
+    private final Map<Image, Integer> pins = new IdentityHashMap<>();
+    private final Set<Image> evictedWhilePinned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public PageImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Image retirée du cache et non épinglée (appelé sous verrou, depuis le thread qui ajoute ou libère)
+    public synchronized void setOnEvict(Consumer<Image> onEvict) {
+        this.onEvict = onEvict;
+    }
+
+    public synchronized Image get(Key key) {
+        Image image = images.get(key);
+        if (image != null) hits++;
+        else misses++;
+        return image;
+    }
+
+    // Meilleur rendu disponible de la même page, toutes largeurs confondues (aperçu agrandi)
+    public synchronized Image best(Key key) {
+        Image best = null;
+        for (Map.Entry<Key, Image> e : images.entrySet()) {
+            Key k = e.getKey();
+            if (k.page() != key.page() || k.modified() != key.modified() || !k.path().equals(key.path())) continue;
+            if (best == null || e.getValue().getWidth() > best.getWidth()) best = e.getValue();
+        }
+        return best;
+    }
+
+    // Lue et épinglée d'un coup : ne peut pas être recyclée entre la lecture et l'affichage
+    public synchronized Image acquire(Key key) {
+        Image image = get(key);
+        if (image != null) pin(image);
+        return image;
+    }
+
+    public synchronized Image acquireBest(Key key) {
+        Image image = best(key);
+        if (image != null) pin(image);
+        return image;
+    }
+
+    public synchronized void pin(Image image) {
+        pins.merge(image, 1, Integer::sum);
+    }
+
+    // Sans effet pour une image jamais épinglée
+    public synchronized void release(Image image) {
+        Integer count = image != null ? pins.get(image) : null;
+        if (count == null) return;
+        if (count > 1) {
+            pins.put(image, count - 1);
+            return;
+        }
+        pins.remove(image);
+        if (evictedWhilePinned.remove(image)) onEvict.accept(image);
+    }
+
+    // Sans effet sur les statistiques (ex. avant un préchargement)
+    public synchronized boolean contains(Key key) {
+        return images.containsKey(key);
+    }
+
+    public synchronized void put(Key key, Image image) {
+        long size = sizeOf(image);
+        if (size > maxBytes) return; // plus grand que tout le budget : jamais gardé
+
+        Image previous = images.put(key, image);
+        if (previous != null) {
+            bytes -= sizeOf(previous);
+            if (previous != image) evicted(previous);
+        }
+        bytes += size;
+
+        Iterator<Map.Entry<Key, Image>> eldest = images.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Key, Image> e = eldest.next();
+            if (e.getKey().equals(key)) continue;
+            bytes -= sizeOf(e.getValue());
+            eldest.remove();
+            evictions++;
+            evicted(e.getValue());
+        }
+    }
+
+    public synchronized void clear() {
+        images.values().forEach(this::evicted);
+        images.clear();
+        bytes = 0;
+    }
+
+    // Appelé sous verrou : une image épinglée attend sa libération
+    private void evicted(Image image) {
+        if (pins.containsKey(image)) evictedWhilePinned.add(image);
+        else onEvict.accept(image);
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    /* =========================
+       MESURES
+       ========================= */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return images.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return String.format("%d pages, %.1f / %.1f Mo, %d succès, %d échecs (%.0f %%), %d retirées",
+                images.size(), bytes / 1048576.0, maxBytes / 1048576.0, hits, misses,
+                lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions);
+    }
+}
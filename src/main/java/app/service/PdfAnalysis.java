@@ -0,0 +1,40 @@
+package app.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ce qu'on lit d'un PDF de mail avant de le rattacher : texte par page, date du mail,
+ * nombre de pages, empreinte. Calculé hors du thread UI (import par lot, boîte de dépôt).
+ *
+ * @param error null si l'analyse a réussi ; sinon les autres champs sont vides
+ */
+public record PdfAnalysis(Path source, List<String> pages, int pageCount, LocalDateTime date,
+                          String sha256, long bytes, Exception error) {
+
+    public static PdfAnalysis of(Path file) {
+        long bytes = 0;
+        try {
+            bytes = Files.size(file);
+            List<String> pages;
+            int pageCount;
+            try (PDDocument document = PDDocument.load(file.toFile())) {
+                pageCount = document.getNumberOfPages();
+                pages = PdfTextExtractor.extractPages(document);
+            }
+            LocalDateTime date = MailDateExtractor.DEFAULT.extract(pages);
+            return new PdfAnalysis(file, pages, pageCount, date, DocumentMetadataService.sha256(file), bytes, null);
+        } catch (IOException | RuntimeException e) {
+            return new PdfAnalysis(file, null, 0, null, null, bytes, e);
+        }
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
@@ -0,0 +1,240 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.DocumentFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Import d'un lot de PDF (dossier entier ou sélection multiple) dans une candidature.
+ * <p>
+ * Deux étapes :
+ * <ol>
+ *     <li>analyse en parallèle, sur un nombre borné de threads : texte par page, date du
+ *     mail, nombre de pages, empreinte ;</li>
+ *     <li>déplacement des fichiers un par un avec {@link PdfImportService#importer} (les
+ *     noms en double sont résolus sans concurrence).</li>
+ * </ol>
+ * Les {@link DocumentFile} sont rendus ensemble : l'appelant les ajoute en une fois, ce
+ * qui ne donne qu'une écriture de la candidature. Un fichier illisible est signalé et
+ * laissé en place ; un contenu déjà connu n'est pas stocké deux fois ({@link PdfImportService}).
+ */
+public class PdfBatchImporter {
+
+    /**
+     * Résultat d'un fichier : {@code doc} null en cas d'erreur ({@code error}) ou de contenu
+     * déjà présent dans la candidature ({@code outcome} ALREADY_PRESENT).
+     */
+    public record FileResult(Path source, DocumentFile doc, List<String> pages, boolean dateFound,
+                             long bytes, PdfImportService.Outcome outcome, Exception error) {
+
+        static FileResult failed(Path source, long bytes, Exception error) {
+            return new FileResult(source, null, null, false, bytes, null, error);
+        }
+
+        public boolean isDuplicate() {
+            return outcome == PdfImportService.Outcome.LINKED || outcome == PdfImportService.Outcome.ALREADY_PRESENT;
+        }
+    }
+
+    /**
+     * Avancement après chaque fichier analysé, signalé sur le thread appelant.
+     */
+    public record Progress(int done, int total, Path file) {
+    }
+
+    public record Report(List<FileResult> results, long bytes, long nanos) {
+
+        public long imported() {
+            return results.stream().filter(r -> r.doc() != null).count();
+        }
+
+        public long withoutDate() {
+            return results.stream().filter(r -> r.doc() != null && !r.dateFound()).count();
+        }
+
+        public long failed() {
+            return results.stream().filter(r -> r.error() != null).count();
+        }
+
+        public long duplicates() {
+            return results.stream().filter(FileResult::isDuplicate).count();
+        }
+
+        // Octets non stockés une deuxième fois (doublons ignorés ou liés)
+        public long reclaimedBytes() {
+            return results.stream().filter(FileResult::isDuplicate).mapToLong(FileResult::bytes).sum();
+        }
+
+        public double filesPerSecond() {
+            return nanos == 0 ? 0 : results.size() / (nanos / 1e9);
+        }
+
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes / 1048576.0 / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.FRENCH, "%d fichiers, %.1f Mo en %.2f s : %.1f fichiers/s, %.1f Mo/s"
+                            + " ; %d doublons, %.1f Mo évités",
+                    results.size(), bytes / 1048576.0, nanos / 1e9, filesPerSecond(), megabytesPerSecond(),
+                    duplicates(), reclaimedBytes() / 1048576.0);
+        }
+    }
+
+    /**
+     * Fichier qu'aucune candidature ne reconnaît avec assez de certitude : laissé en place.
+     */
+    public record Unassigned(PdfAnalysis analysis, CandidatureMatcher.Result match) {
+    }
+
+    /**
+     * Rattachement automatique : un rapport par candidature, et les fichiers restants.
+     */
+    public record MatchedReport(Map<Candidature, Report> reports, List<Unassigned> unassigned, long nanos) {
+
+        public long imported() {
+            return reports.values().stream().mapToLong(Report::imported).sum();
+        }
+    }
+
+    private final int threads;
+
+    public PdfBatchImporter(int threads) {
+        this.threads = threads;
+    }
+
+    // Un thread par cœur, au plus 4 : au-delà le disque limite
+    public static int defaultThreads() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    // PDF directement dans ce dossier, triés par nom
+    public static List<Path> listPdfs(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Analyse puis déplace {@code files} dans le dossier de {@code candidature}, sans
+     * dupliquer un contenu déjà connu de {@code hashes}. Bloquant : à appeler hors du
+     * thread UI.
+     */
+    public Report importAll(List<Path> files, Candidature candidature, DocumentHashIndex hashes,
+                            Consumer<Progress> progress) throws InterruptedException {
+        long start = System.nanoTime();
+        return attach(analyse(files, progress), candidature, hashes, start);
+    }
+
+    /**
+     * Sans candidature choisie : chaque fichier est rattaché à celle que {@code matcher}
+     * reconnaît avec certitude ; les autres (et les illisibles) restent en place avec leurs
+     * propositions. Bloquant.
+     */
+    public static MatchedReport attachMatched(List<PdfAnalysis> analyses, CandidatureMatcher matcher,
+                                              DocumentHashIndex hashes) {
+        long start = System.nanoTime();
+        Map<Candidature, List<PdfAnalysis>> groups = new LinkedHashMap<>();
+        List<Unassigned> unassigned = new ArrayList<>();
+        for (PdfAnalysis a : analyses) {
+            if (!a.isValid()) {
+                unassigned.add(new Unassigned(a, null));
+                continue;
+            }
+            CandidatureMatcher.Result match = matcher.match(a.pages(), a.date());
+            if (match.automatic() != null) {
+                groups.computeIfAbsent(match.automatic(), c -> new ArrayList<>()).add(a);
+            } else {
+                unassigned.add(new Unassigned(a, match));
+            }
+        }
+
+        Map<Candidature, Report> reports = new LinkedHashMap<>();
+        groups.forEach((c, files) -> reports.put(c, attach(files, c, hashes)));
+        return new MatchedReport(reports, unassigned, System.nanoTime() - start);
+    }
+
+    /**
+     * Déplace des fichiers déjà analysés (boîte de dépôt). Bloquant.
+     */
+    public static Report attach(List<PdfAnalysis> analyses, Candidature candidature, DocumentHashIndex hashes) {
+        return attach(analyses, candidature, hashes, System.nanoTime());
+    }
+
+    // Déplacements en série, dans l'ordre de la liste
+    private static Report attach(List<PdfAnalysis> analyses, Candidature candidature, DocumentHashIndex hashes,
+                                 long start) {
+        List<FileResult> results = new ArrayList<>(analyses.size());
+        long bytes = 0;
+        for (PdfAnalysis a : analyses) {
+            if (Thread.currentThread().isInterrupted()) break; // import annulé : le reste ne bouge pas
+            bytes += a.bytes();
+            if (a.error() != null) {
+                results.add(FileResult.failed(a.source(), a.bytes(), a.error()));
+                continue;
+            }
+            try {
+                PdfImportService.Imported imported =
+                        PdfImportService.importer(a.source(), candidature, a.date(), hashes, a.sha256());
+                DocumentFile doc = imported.doc();
+                if (doc != null) {
+                    doc.setMetadata(DocumentMetadataService.compute(doc.getFichier(), a.pageCount(), a.sha256(), true));
+                }
+                results.add(new FileResult(a.source(), doc, a.pages(), a.date() != null, a.bytes(),
+                        imported.outcome(), null));
+            } catch (IOException e) {
+                results.add(FileResult.failed(a.source(), a.bytes(), e));
+            }
+        }
+        return new Report(results, bytes, System.nanoTime() - start);
+    }
+
+    // Analyse seule, en parallèle, dans l'ordre de files
+    public List<PdfAnalysis> analyse(List<Path> files, Consumer<Progress> progress) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, files.size())), r -> {
+            Thread t = new Thread(r, "pdf-batch-import");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            CompletionService<Integer> completion = new ExecutorCompletionService<>(pool);
+            PdfAnalysis[] ordered = new PdfAnalysis[files.size()]; // dans l'ordre de la sélection
+            for (int i = 0; i < files.size(); i++) {
+                int index = i;
+                completion.submit(() -> {
+                    ordered[index] = PdfAnalysis.of(files.get(index));
+                    return index;
+                });
+            }
+
+            for (int done = 1; done <= files.size(); done++) {
+                int index = completion.take().get();
+                progress.accept(new Progress(done, files.size(), files.get(index)));
+            }
+            return List.of(ordered);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause()); // PdfAnalysis.of ne lève pas : erreur inattendue
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
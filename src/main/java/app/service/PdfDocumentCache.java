@@ -0,0 +1,123 @@
+package app.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Documents PDF ouverts, gardés pour les pages suivantes (LRU).
+ * <p>
+ * Un fichier n'est analysé qu'une fois : les pages suivantes ne coûtent que le rendu.
+ * La clé comprend la date de modification du fichier, un PDF remplacé sur le disque est
+ * donc rouvert. Le document le moins récemment utilisé est fermé quand la capacité est
+ * dépassée.
+ * <p>
+ * {@link PDDocument} n'étant pas thread-safe, le cache et les documents qu'il renvoie
+ * sont confinés à un seul thread (celui du rendu) : aucune synchronisation ici, et un
+ * appel depuis un autre thread est refusé.
+ */
+public class PdfDocumentCache implements AutoCloseable {
+
+    public record Handle(PDDocument document, PDFRenderer renderer, int pageCount) {
+    }
+
+    private record Key(Path path, long modified) {
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Handle> open = new LinkedHashMap<>(16, 0.75f, true);
+    private Thread owner;
+
+    private long hits;
+    private long misses;
+
+    public PdfDocumentCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Document ouvert pour ce fichier, chargé au premier appel.
+     */
+    public Handle acquire(Path path) throws IOException {
+        checkThread();
+        Path normalized = path.toAbsolutePath().normalize();
+        Key key = new Key(normalized, Files.getLastModifiedTime(normalized).toMillis());
+
+        Handle handle = open.get(key);
+        if (handle != null) {
+            hits++;
+            return handle;
+        }
+        misses++;
+
+        // Ancienne version du même fichier : inutile désormais
+        Iterator<Map.Entry<Key, Handle>> it = open.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Handle> e = it.next();
+            if (e.getKey().path().equals(normalized)) {
+                closeQuietly(e.getValue());
+                it.remove();
+            }
+        }
+
+        PDDocument document = PDDocument.load(normalized.toFile());
+        handle = new Handle(document, new PDFRenderer(document), document.getNumberOfPages());
+        open.put(key, handle);
+
+        while (open.size() > capacity) {
+            Iterator<Handle> eldest = open.values().iterator();
+            closeQuietly(eldest.next());
+            eldest.remove();
+        }
+        return handle;
+    }
+
+    // Ferme le document de ce fichier s'il est ouvert (ex. fichier supprimé)
+    public void invalidate(Path path) {
+        checkThread();
+        Path normalized = path.toAbsolutePath().normalize();
+        open.entrySet().removeIf(e -> {
+            if (!e.getKey().path().equals(normalized)) return false;
+            closeQuietly(e.getValue());
+            return true;
+        });
+    }
+
+    @Override
+    public void close() {
+        checkThread();
+        open.values().forEach(PdfDocumentCache::closeQuietly);
+        open.clear();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    // Le premier thread qui utilise le cache en devient propriétaire
+    private void checkThread() {
+        Thread current = Thread.currentThread();
+        if (owner == null) owner = current;
+        else if (owner != current) {
+            throw new IllegalStateException("PdfDocumentCache utilisé hors de son thread : " + current.getName());
+        }
+    }
+
+    private static void closeQuietly(Handle handle) {
+        try {
+            handle.document().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,39 +1,152 @@
 package app.service;
 
+import app.model.Candidature;
 import app.model.DocumentFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
 
+/**
+ * Rattachement d'un PDF à une candidature : le fichier est déplacé dans son dossier.
+ * <p>
+ * L'empreinte SHA-256 est calculée pendant le déplacement (une seule lecture du fichier)
+ * et cherchée dans le {@link DocumentHashIndex} :
+ * <ul>
+ *     <li>contenu déjà présent dans cette candidature : rien n'est ajouté, la source est
+ *     retirée comme après un déplacement ;</li>
+ *     <li>contenu présent dans une autre candidature : lien physique vers le fichier existant
+ *     (aucun octet copié), ou déplacement normal si le système de fichiers ne le permet pas ;</li>
+ *     <li>sinon : déplacement.</li>
+ * </ul>
+ */
 public class PdfImportService {
 
-    public static DocumentFile importer(Path sourcePdf, Path dossierCandidature, LocalDateTime dateMail) throws IOException {
+    public enum Outcome {
+        IMPORTED,
+        LINKED,          // lien vers le fichier d'une autre candidature
+        ALREADY_PRESENT  // déjà dans cette candidature : doc null
+    }
+
+    /**
+     * @param duplicateOf document de même contenu, null si {@code IMPORTED}
+     */
+    public record Imported(DocumentFile doc, Outcome outcome, String sha256, long bytes, DocumentFile duplicateOf) {
+    }
 
+    /**
+     * Déplace {@code sourcePdf} dans le dossier de {@code candidature}.
+     *
+     * @param sha256 empreinte déjà calculée (analyse préalable), null pour la calculer ici
+     */
+    public static Imported importer(Path sourcePdf, Candidature candidature, LocalDateTime dateMail,
+                                    DocumentHashIndex hashes, String sha256) throws IOException {
+        Path dossierCandidature = candidature.getDossier();
         Files.createDirectories(dossierCandidature);
+        long bytes = Files.size(sourcePdf);
 
-        String fileName = sourcePdf.getFileName().toString();
-        Path target = dossierCandidature.resolve(sourcePdf.getFileName());
+        // 1. Empreinte : lue pendant la copie si le fichier change de disque
+        Path pending = sourcePdf;
+        if (sha256 == null) {
+            if (Files.getFileStore(sourcePdf).equals(Files.getFileStore(dossierCandidature))) {
+                sha256 = DocumentMetadataService.sha256(sourcePdf); // le déplacement ne sera qu'un renommage
+            } else {
+                pending = dossierCandidature.resolve(sourcePdf.getFileName() + ".import");
+                sha256 = copyHashing(sourcePdf, pending);
+            }
+        }
 
-        // 2. Éviter écrasement silencieux
-        if (Files.exists(target)) {
-            String base = fileName.replaceFirst("(?i)\\.pdf$", "");
-            String newName = base + "_" + System.currentTimeMillis() + ".pdf";
-            target = dossierCandidature.resolve(newName);
+        // 2. Doublon ?
+        DocumentFile sameCandidature = null;
+        DocumentFile elsewhere = null;
+        List<DocumentHashIndex.Location> existing = hashes.find(sha256);
+        boolean sourceIsDocument = false;
+        for (DocumentHashIndex.Location l : existing) {
+            // Fichier d'une candidature choisi comme source : surtout pas supprimé
+            if (Files.isSameFile(l.doc().getFichier(), sourcePdf)) {
+                sourceIsDocument = true;
+                if (l.candidature() == candidature) sameCandidature = l.doc();
+            } else if (l.candidature() == candidature) {
+                sameCandidature = l.doc();
+            } else if (elsewhere == null) {
+                elsewhere = l.doc();
+            }
+        }
+        if (sameCandidature != null) {
+            if (pending != sourcePdf) Files.deleteIfExists(pending);
+            if (!sourceIsDocument) Files.deleteIfExists(sourcePdf);
+            hashes.recordSkipped(sourceIsDocument ? 0 : bytes);
+            return new Imported(null, Outcome.ALREADY_PRESENT, sha256, bytes, sameCandidature);
         }
 
-        // 3. MOVE réel
-        Files.move(sourcePdf, target, StandardCopyOption.REPLACE_EXISTING);
+        // 3. Éviter écrasement silencieux
+        Path target = freeTarget(dossierCandidature, sourcePdf.getFileName().toString());
 
-        // 4. DocumentFile cohérent
+        // 4. Lien vers l'autre candidature, sinon MOVE réel
+        Outcome outcome = Outcome.IMPORTED;
+        if (elsewhere != null && !sourceIsDocument && link(target, elsewhere.getFichier())) {
+            if (pending != sourcePdf) Files.deleteIfExists(pending);
+            Files.deleteIfExists(sourcePdf);
+            hashes.recordLinked(bytes);
+            outcome = Outcome.LINKED;
+        } else {
+            Files.move(pending, target, StandardCopyOption.REPLACE_EXISTING);
+            if (pending != sourcePdf) Files.deleteIfExists(sourcePdf);
+            elsewhere = null;
+        }
+
+        // 5. DocumentFile cohérent
         DocumentFile doc = new DocumentFile();
         doc.setNom(target.getFileName().toString());
         doc.setFichier(target);
 //        doc.setType(type);
         doc.setDateMail(dateMail != null ? dateMail : LocalDateTime.now());
-        return doc;
+        hashes.add(candidature, doc, sha256); // doublon dans le même lot : reconnu dès maintenant
+        return new Imported(doc, outcome, sha256, bytes, elsewhere);
+    }
+
+    private static Path freeTarget(Path dossierCandidature, String fileName) {
+        Path target = dossierCandidature.resolve(fileName);
+        if (Files.exists(target)) {
+            int dot = fileName.lastIndexOf('.');
+            String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+            String extension = dot > 0 ? fileName.substring(dot) : ".pdf";
+            String newName = base + "_" + System.currentTimeMillis() + extension;
+            target = dossierCandidature.resolve(newName);
+        }
+        return target;
+    }
+
+    private static boolean link(Path target, Path existing) {
+        try {
+            Files.createLink(target, existing);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false; // autre disque, système sans liens : copie normale
+        }
     }
 
+    private static String copyHashing(Path source, Path target) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
 }
@@ -0,0 +1,139 @@
+package app.service;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Rendu d'une page PDF directement dans les pixels d'une image JavaFX.
+ * <p>
+ * Le tableau {@code int[]} est partagé entre un {@link BufferedImage} (où PDFBox dessine)
+ * et un {@link PixelBuffer} (lu par JavaFX), au format ARGB prémultiplié des deux côtés :
+ * aucune copie entre le rendu et l'affichage.
+ * <p>
+ * Les tableaux sont réutilisés par dimensions : une image qui ne sert plus (retirée du
+ * cache et plus épinglée, voir {@link PageImageCache}) est rendue par {@link #recycle(Image)}. L'appelant garantit
+ * qu'elle ne sera plus affichée ensuite, sans quoi son contenu serait écrasé par un
+ * rendu suivant.
+ */
+public class PdfPageRasterizer {
+
+    private static final DirectColorModel ARGB_PRE = new DirectColorModel(
+            ColorSpace.getInstance(ColorSpace.CS_sRGB), 32,
+            0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000, true, DataBufferInt.TYPE_INT);
+
+    private final int maxPooledPerSize;
+    private final long maxPooledBytes;
+
+    // Tableaux libres par dimensions (largeur << 32 | hauteur)
+    private final Map<Long, ArrayDeque<int[]>> pool = new HashMap<>();
+    private long pooledBytes;
+
+    // Tableau de chaque image produite, pour le recycler (clé faible : l'image peut disparaître)
+    private final Map<Image, int[]> buffers = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private long allocated;
+    private long reused;
+
+    public PdfPageRasterizer(int maxPooledPerSize, long maxPooledBytes) {
+        this.maxPooledPerSize = maxPooledPerSize;
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    /**
+     * Page rendue à {@code width} pixels de large (hauteur selon les proportions).
+     * À appeler sur le thread qui possède le document.
+     */
+    public WritableImage render(PdfDocumentCache.Handle handle, int page, int width) throws IOException {
+        PDPage pdPage = handle.document().getPage(page);
+        PDRectangle box = pdPage.getCropBox();
+        boolean rotated = pdPage.getRotation() % 180 != 0;
+        float pageWidth = rotated ? box.getHeight() : box.getWidth();
+        float pageHeight = rotated ? box.getWidth() : box.getHeight();
+        float scale = width / pageWidth;
+        int height = Math.max(1, Math.round(pageHeight * scale));
+
+        int[] pixels = acquire(width, height);
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length), width, height,
+                width, ARGB_PRE.getMasks(), null);
+        BufferedImage target = new BufferedImage(ARGB_PRE, raster, true, null);
+
+        Graphics2D g = target.createGraphics();
+        try {
+            // Comme PDFRenderer.renderImage : fond blanc, rendu lissé
+            g.setBackground(Color.WHITE);
+            g.clearRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            handle.renderer().renderPageToGraphics(page, g, scale);
+        } finally {
+            g.dispose();
+        }
+
+        PixelBuffer<IntBuffer> buffer = new PixelBuffer<>(width, height, IntBuffer.wrap(pixels),
+                PixelFormat.getIntArgbPreInstance());
+        WritableImage image = new WritableImage(buffer);
+        buffers.put(image, pixels);
+        return image;
+    }
+
+    /* =========================
+       RÉUTILISATION DES TABLEAUX
+       ========================= */
+    private synchronized int[] acquire(int width, int height) {
+        ArrayDeque<int[]> free = pool.get(key(width, height));
+        if (free != null && !free.isEmpty()) {
+            int[] pixels = free.pop();
+            pooledBytes -= pixels.length * 4L;
+            reused++;
+            return pixels;
+        }
+        allocated++;
+        return new int[width * height];
+    }
+
+    // L'image ne sera plus affichée : son tableau peut servir au prochain rendu de même taille
+    public void recycle(Image image) {
+        int[] pixels = buffers.remove(image);
+        if (pixels == null) return;
+
+        synchronized (this) {
+            long size = pixels.length * 4L;
+            ArrayDeque<int[]> free = pool.computeIfAbsent(key((int) image.getWidth(), (int) image.getHeight()),
+                    k -> new ArrayDeque<>());
+            if (free.size() >= maxPooledPerSize || pooledBytes + size > maxPooledBytes) return;
+            free.push(pixels);
+            pooledBytes += size;
+        }
+    }
+
+    private static long key(int width, int height) {
+        return (long) width << 32 | height;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d tableaux alloués, %d réutilisés, %.1f Mo en réserve",
+                allocated, reused, pooledBytes / 1048576.0);
+    }
+}
@@ -0,0 +1,167 @@
+package app.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File de rendu des pages PDF, servie par un petit nombre de threads.
+ * <p>
+ * Règles de la file :
+ * <ul>
+ *     <li>la page visible passe avant le préchargement ;</li>
+ *     <li>une nouvelle page visible annule celles qui attendent encore (la dernière
+ *     demande gagne) : un clic rapide d'une candidature à l'autre ne rend que la
+ *     dernière page demandée ;</li>
+ *     <li>le préchargement et les travaux de fond sont bornés : au-delà de
+ *     {@link #MAX_PENDING_PREFETCH} (resp. {@link #MAX_PENDING_BACKGROUND}) travaux en
+ *     attente, les plus anciens sont abandonnés.</li>
+ * </ul>
+ * Un travail annulé n'est jamais commencé ; un rendu déjà lancé va à son terme (PDFBox ne
+ * s'interrompt pas), son résultat est simplement ignoré par l'appelant.
+ * <p>
+ * Chaque thread possède son propre {@link PdfDocumentCache} : les documents ouverts
+ * restent confinés au thread qui les a chargés.
+ */
+public class PdfRenderScheduler implements AutoCloseable {
+
+    private static final int MAX_PENDING_PREFETCH = 8;
+    private static final int MAX_PENDING_BACKGROUND = 64;
+
+    public enum Priority {
+        VISIBLE, PREFETCH,
+        // Travaux de fond (vignettes...) : jamais annulés par un changement de document
+        BACKGROUND
+    }
+
+    @FunctionalInterface
+    public interface RenderJob<T> {
+        T render(PdfDocumentCache documents) throws Exception;
+    }
+
+    // Sans travail : signal d'arrêt du thread
+    private record Job<T>(Priority priority, long sequence, RenderJob<T> work, CompletableFuture<T> result) {
+        boolean isStop() {
+            return work == null;
+        }
+    }
+
+    private final PriorityBlockingQueue<Job<?>> queue = new PriorityBlockingQueue<>(16,
+            Comparator.<Job<?>, Priority>comparing(Job::priority).thenComparingLong(Job::sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public PdfRenderScheduler(int threads, int documentsPerThread) {
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(() -> work(documentsPerThread), "pdf-render-" + i);
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+    }
+
+    // Un ou deux threads : le rendu ne doit pas priver l'interface de processeur
+    public static int defaultThreads() {
+        return Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /* =========================
+       SOUMISSION
+       ========================= */
+    public synchronized <T> CompletableFuture<T> submit(Priority priority, RenderJob<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        switch (priority) {
+            case VISIBLE -> cancelPending(Priority.VISIBLE);
+            case PREFETCH -> trim(Priority.PREFETCH, MAX_PENDING_PREFETCH);
+            case BACKGROUND -> trim(Priority.BACKGROUND, MAX_PENDING_BACKGROUND);
+        }
+        queue.add(new Job<>(priority, sequence.incrementAndGet(), work, result));
+        return result;
+    }
+
+    // Abandonne le préchargement en attente (ex. autre document affiché)
+    public synchronized void cancelPrefetch() {
+        cancelPending(Priority.PREFETCH);
+    }
+
+    private void cancelPending(Priority priority) {
+        queue.removeIf(job -> {
+            if (job.priority() != priority || job.isStop()) return false;
+            job.result().cancel(false);
+            cancelled.incrementAndGet();
+            return true;
+        });
+    }
+
+    private void trim(Priority priority, int max) {
+        List<Job<?>> pending = new ArrayList<>();
+        for (Job<?> job : queue) {
+            if (job.priority() == priority && !job.isStop()) pending.add(job);
+        }
+        if (pending.size() < max) return;
+
+        pending.sort(Comparator.comparingLong(Job::sequence));
+        for (int i = 0; i <= pending.size() - max; i++) {
+            Job<?> oldest = pending.get(i);
+            if (queue.remove(oldest)) {
+                oldest.result().cancel(false);
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /* =========================
+       THREADS DE RENDU
+       ========================= */
+    private void work(int documentsPerThread) {
+        PdfDocumentCache documents = new PdfDocumentCache(documentsPerThread);
+        try {
+            while (true) {
+                Job<?> job = queue.take();
+                if (job.isStop()) return;
+                run(job, documents);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            documents.close();
+        }
+    }
+
+    private <T> void run(Job<T> job, PdfDocumentCache documents) {
+        if (job.result().isDone()) return; // annulé entre-temps
+        try {
+            job.result().complete(job.work().render(documents));
+            completed.incrementAndGet();
+        } catch (CancellationException e) {
+            job.result().cancel(false);
+        } catch (Throwable e) {
+            job.result().completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Priority priority : Priority.values()) {
+            cancelPending(priority);
+        }
+        for (int i = 0; i < workers.size(); i++) {
+            // Après tout le reste : chaque thread ferme ses documents en sortant
+            queue.add(new Job<>(Priority.BACKGROUND, Long.MAX_VALUE, null, null));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rendus, %d annulés, %d abandonnés (file pleine)",
+                completed.get(), cancelled.get(), dropped.get());
+    }
+}
@@ -0,0 +1,33 @@
+package app.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Texte d'un PDF, page par page.
+ */
+public class PdfTextExtractor {
+
+    public static List<String> extractPages(Path pdf) throws IOException {
+        try (PDDocument document = PDDocument.load(pdf.toFile())) {
+            return extractPages(document);
+        }
+    }
+
+    public static List<String> extractPages(PDDocument document) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        int count = document.getNumberOfPages();
+        List<String> pages = new ArrayList<>(count);
+        for (int page = 1; page <= count; page++) {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            pages.add(stripper.getText(document));
+        }
+        return pages;
+    }
+}
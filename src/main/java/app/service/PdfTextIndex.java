@@ -0,0 +1,587 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.CandidatureField;
+import app.model.CandidatureListener;
+import app.model.DocumentFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index plein texte des PDF importés : terme → (document, page).
+ * <p>
+ * Le texte de chaque document est extrait une seule fois ({@link PdfTextExtractor}),
+ * découpé en termes normalisés ({@link TextNormalizer}) puis oublié ; seules les listes
+ * de postings sont gardées. Un document est identifié par l'id de sa candidature et le
+ * nom de son fichier, ce qui survit au renommage des dossiers.
+ * <p>
+ * Tout le travail (chargement, extraction, sauvegarde) passe par un seul thread
+ * d'arrière-plan ; l'index suit les événements de {@code MainController}, ce qui
+ * couvre les imports et les suppressions. Les listes de documents y sont copiées sur
+ * le thread UI ; celles encore différées au chargement sont décodées sur une copie par
+ * ce même thread. Chaque candidature chargée est ainsi rapprochée de l'index enregistré :
+ * au premier lancement tous les documents existants sont indexés en arrière-plan, ensuite
+ * seuls ceux absents ou modifiés depuis sont relus.
+ * Un document supprimé est seulement marqué : ses postings disparaissent à la
+ * sauvegarde suivante, qui réécrit le fichier (temporaire + déplacement atomique).
+ * <p>
+ * Format du fichier (entiers en varint) :
+ * <pre>
+ * magic, version
+ * nbDocuments, puis par document : idCandidature, nomFichier, taille, dateModif, nbPages
+ * nbTermes, puis par terme (ordre croissant) : préfixe commun avec le terme précédent,
+ *     suffixe, nbPostings, puis par posting : écart de numéro de document, page
+ * </pre>
+ */
+public class PdfTextIndex implements CandidatureListener {
+
+    private static final int MAGIC = 0x50445458; // "PDTX"
+    private static final int VERSION = 1;
+
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final long SAVE_DELAY_MS = 5_000;
+    private static final int PAGE_BITS = 20;
+
+    /**
+     * Document contenant tous les termes de la requête, avec les pages concernées.
+     */
+    public record Hit(String candidatureId, String fileName, int[] pages) {
+    }
+
+    private static final class Doc {
+        final String candidatureId;
+        final String fileName;
+        final long size;
+        final long modified;
+        final int pages;
+        boolean removed;
+
+        Doc(String candidatureId, String fileName, long size, long modified, int pages) {
+            this.candidatureId = candidatureId;
+            this.fileName = fileName;
+            this.size = size;
+            this.modified = modified;
+            this.pages = pages;
+        }
+    }
+
+    private final Path file;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pdf-text-index");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    // État protégé par "this"
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<String, Integer> docByKey = new HashMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private int removedCount;
+    private ScheduledFuture<?> pendingSave;
+
+    private volatile Runnable onUpdate = () -> {};
+
+    public PdfTextIndex(Path file) {
+        this.file = file;
+        executor.execute(this::load);
+    }
+
+    // Appelé (thread d'arrière-plan) après chaque document indexé ou retiré
+    public void setOnUpdate(Runnable onUpdate) {
+        this.onUpdate = onUpdate != null ? onUpdate : () -> {};
+    }
+
+    /* =========================
+       ÉVÉNEMENTS (thread UI)
+       ========================= */
+    @Override
+    public void onChange(CandidatureEvent event) {
+        Candidature c = event.candidature();
+        switch (event.type()) {
+            case ADDED -> {
+                String id = c.getId();
+                List<DocumentFile> current = c.documentsSnapshot();
+                if (current == null && c.hasDocuments()) {
+                    // Documents encore différés : décodés sur une copie, par le thread de l'index
+                    Candidature copy = c.copy();
+                    executor.execute(() -> sync(id, copy.getDocuments()));
+                } else if (current != null && !current.isEmpty()) {
+                    executor.execute(() -> sync(id, current));
+                }
+            }
+            case REMOVED -> {
+                String id = c.getId();
+                executor.execute(() -> removeCandidature(id));
+            }
+            case UPDATED -> {
+                if (event.field() != CandidatureField.DOCUMENTS) return;
+                if (event.oldValue() instanceof DocumentFile removed && event.newValue() == null) {
+                    String id = c.getId();
+                    String fileName = fileName(removed);
+                    executor.execute(() -> remove(id, fileName));
+                } else if (event.newValue() instanceof DocumentFile doc) {
+                    String id = c.getId();
+                    executor.execute(() -> indexIfStale(id, doc, null));
+                } else {
+                    String id = c.getId();
+                    List<DocumentFile> current = List.copyOf(c.getDocuments()); // liste remplacée
+                    executor.execute(() -> sync(id, current));
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexe un document dont le texte vient d'être extrait (import) : évite de relire le PDF.
+     */
+    public void index(String candidatureId, DocumentFile doc, List<String> pages) {
+        executor.execute(() -> indexIfStale(candidatureId, doc, pages));
+    }
+
+    /* =========================
+       INDEXATION (thread de l'index)
+       ========================= */
+    // current : copie prise sur le thread UI, ou documents décodés sur une copie
+    private void sync(String candidatureId, List<DocumentFile> current) {
+        Set<String> names = new HashSet<>();
+        for (DocumentFile doc : current) {
+            names.add(fileName(doc));
+            indexIfStale(candidatureId, doc, null);
+        }
+
+        boolean changed = false;
+        synchronized (this) {
+            for (Doc d : docs) {
+                if (!d.removed && d.candidatureId.equals(candidatureId) && !names.contains(d.fileName)) {
+                    markRemoved(d);
+                    changed = true;
+                }
+            }
+        }
+        if (changed) updated();
+    }
+
+    private void indexIfStale(String candidatureId, DocumentFile doc, List<String> pages) {
+        Path path = doc.getFichier();
+        if (candidatureId == null || path == null) return;
+
+        long size, modified;
+        try {
+            size = Files.size(path);
+            modified = Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return; // fichier absent : rien à indexer
+        }
+
+        String fileName = fileName(doc);
+        synchronized (this) {
+            Integer existing = docByKey.get(key(candidatureId, fileName));
+            if (existing != null) {
+                Doc d = docs.get(existing);
+                if (d.size == size && d.modified == modified) return; // à jour
+            }
+        }
+
+        try {
+            if (pages == null) pages = PdfTextExtractor.extractPages(path);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Texte illisible : " + path + " (" + e.getMessage() + ")");
+            pages = List.of();
+        }
+
+        add(new Doc(candidatureId, fileName, size, modified, pages.size()), pages);
+        updated();
+    }
+
+    private synchronized void add(Doc doc, List<String> pages) {
+        Integer previous = docByKey.get(key(doc.candidatureId, doc.fileName));
+        if (previous != null) markRemoved(docs.get(previous));
+
+        int docNo = docs.size();
+        docs.add(doc);
+        docByKey.put(key(doc.candidatureId, doc.fileName), docNo);
+
+        for (int page = 0; page < pages.size(); page++) {
+            for (String term : terms(pages.get(page))) {
+                terms.computeIfAbsent(term, k -> new Postings()).add(docNo, page + 1);
+            }
+        }
+        scheduleSave();
+    }
+
+    private void remove(String candidatureId, String fileName) {
+        synchronized (this) {
+            Integer docNo = docByKey.get(key(candidatureId, fileName));
+            if (docNo == null) return;
+            markRemoved(docs.get(docNo));
+        }
+        updated();
+    }
+
+    private void removeCandidature(String candidatureId) {
+        boolean changed = false;
+        synchronized (this) {
+            for (Doc d : docs) {
+                if (!d.removed && d.candidatureId.equals(candidatureId)) {
+                    markRemoved(d);
+                    changed = true;
+                }
+            }
+        }
+        if (changed) updated();
+    }
+
+    // Appelé sous verrou
+    private void markRemoved(Doc d) {
+        d.removed = true;
+        removedCount++;
+        docByKey.remove(key(d.candidatureId, d.fileName));
+        scheduleSave();
+    }
+
+    private void updated() {
+        onUpdate.run();
+    }
+
+    /* =========================
+       RECHERCHE
+       ========================= */
+
+    /**
+     * Documents contenant tous les termes de la requête ; le dernier terme est traité
+     * comme un préfixe tant que la saisie n'est pas terminée par un espace.
+     */
+    public synchronized List<Hit> search(String query) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) return List.of();
+        boolean lastIsPrefix = !query.isEmpty() && !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        Map<Integer, Set<Integer>> result = null;
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            boolean prefix = lastIsPrefix && i == words.size() - 1 && word.length() >= MIN_PREFIX_LENGTH;
+
+            Map<Integer, Set<Integer>> found = new LinkedHashMap<>();
+            if (prefix) {
+                for (Postings p : terms.subMap(word, word + Character.MAX_VALUE).values()) {
+                    p.collect(found, docs);
+                }
+            } else {
+                Postings p = terms.get(word);
+                if (p != null) p.collect(found, docs);
+            }
+
+            if (result == null) {
+                result = found;
+            } else {
+                result.keySet().retainAll(found.keySet());
+                for (Map.Entry<Integer, Set<Integer>> e : result.entrySet()) {
+                    e.getValue().addAll(found.get(e.getKey()));
+                }
+            }
+            if (result.isEmpty()) return List.of();
+        }
+
+        List<Hit> hits = new ArrayList<>(result.size());
+        for (Map.Entry<Integer, Set<Integer>> e : result.entrySet()) {
+            Doc d = docs.get(e.getKey());
+            int[] pages = e.getValue().stream().mapToInt(Integer::intValue).sorted().toArray();
+            hits.add(new Hit(d.candidatureId, d.fileName, pages));
+        }
+        return hits;
+    }
+
+    // Ids des candidatures dont un document correspond à la requête
+    public Set<String> searchCandidatures(String query) {
+        Set<String> ids = new HashSet<>();
+        for (Hit hit : search(query)) {
+            ids.add(hit.candidatureId());
+        }
+        return ids;
+    }
+
+    public synchronized int getDocumentCount() {
+        return docs.size() - removedCount;
+    }
+
+    public synchronized int getTermCount() {
+        return terms.size();
+    }
+
+    /* =========================
+       TERMES
+       ========================= */
+    private static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        String normalized = TextNormalizer.normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                int length = i - start;
+                if (length >= MIN_TERM_LENGTH && length <= MAX_TERM_LENGTH) {
+                    words.add(normalized.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> terms(String pageText) {
+        return new HashSet<>(tokenize(pageText));
+    }
+
+    private static String key(String candidatureId, String fileName) {
+        return candidatureId + '/' + fileName;
+    }
+
+    private static String fileName(DocumentFile doc) {
+        return doc.getFichier() != null ? doc.getFichier().getFileName().toString() : doc.getNom();
+    }
+
+    /* =========================
+       PERSISTANCE
+       ========================= */
+    private synchronized void scheduleSave() {
+        if (executor.isShutdown()) return;
+        if (pendingSave == null || pendingSave.isDone()) {
+            pendingSave = executor.schedule(this::save, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Fichier d'index inconnu");
+            int version = readVarInt(in);
+            if (version != VERSION) throw new IOException("Version d'index non supportée : " + version);
+
+            synchronized (this) {
+                int docCount = readVarInt(in);
+                for (int i = 0; i < docCount; i++) {
+                    Doc d = new Doc(in.readUTF(), in.readUTF(), readVarLong(in), readVarLong(in), readVarInt(in));
+                    docByKey.put(key(d.candidatureId, d.fileName), docs.size());
+                    docs.add(d);
+                }
+
+                int termCount = readVarInt(in);
+                String previous = "";
+                for (int i = 0; i < termCount; i++) {
+                    int shared = readVarInt(in);
+                    String term = previous.substring(0, shared) + in.readUTF();
+                    Postings p = new Postings();
+                    int count = readVarInt(in);
+                    int docNo = 0;
+                    for (int j = 0; j < count; j++) {
+                        docNo += readVarInt(in);
+                        p.add(docNo, readVarInt(in));
+                    }
+                    terms.put(term, p);
+                    previous = term;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Premier lancement : l'index se construit à partir des candidatures chargées
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Index plein texte illisible, reconstruction : " + e.getMessage());
+            synchronized (this) {
+                docs.clear();
+                docByKey.clear();
+                terms.clear();
+                removedCount = 0;
+            }
+        }
+    }
+
+    private void save() {
+        byte[] bytes;
+        synchronized (this) {
+            compact();
+            try {
+                bytes = encode();
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // écriture en mémoire
+            }
+        }
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                out.write(bytes);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Sauvegarde de l'index plein texte impossible : " + e.getMessage());
+        }
+    }
+
+    // Retire les documents supprimés et renumérote (sous verrou)
+    private void compact() {
+        if (removedCount == 0) return;
+
+        int[] renumber = new int[docs.size()];
+        List<Doc> kept = new ArrayList<>(docs.size() - removedCount);
+        for (int i = 0; i < docs.size(); i++) {
+            Doc d = docs.get(i);
+            renumber[i] = d.removed ? -1 : kept.size();
+            if (!d.removed) kept.add(d);
+        }
+
+        terms.values().removeIf(p -> !p.renumber(renumber));
+        docs.clear();
+        docs.addAll(kept);
+        docByKey.clear();
+        for (int i = 0; i < docs.size(); i++) {
+            docByKey.put(key(docs.get(i).candidatureId, docs.get(i).fileName), i);
+        }
+        removedCount = 0;
+    }
+
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        writeVarInt(out, VERSION);
+
+        writeVarInt(out, docs.size());
+        for (Doc d : docs) {
+            out.writeUTF(d.candidatureId);
+            out.writeUTF(d.fileName);
+            writeVarLong(out, d.size);
+            writeVarLong(out, d.modified);
+            writeVarInt(out, d.pages);
+        }
+
+        writeVarInt(out, terms.size());
+        String previous = "";
+        for (Map.Entry<String, Postings> e : terms.entrySet()) {
+            String term = e.getKey();
+            int shared = 0;
+            int max = Math.min(previous.length(), term.length());
+            while (shared < max && previous.charAt(shared) == term.charAt(shared)) shared++;
+            writeVarInt(out, shared);
+            out.writeUTF(term.substring(shared));
+            e.getValue().write(out);
+            previous = term;
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // À la fermeture : sauvegarde immédiate si des modifications attendent
+    public void close() {
+        boolean pending;
+        synchronized (this) {
+            pending = pendingSave != null && pendingSave.cancel(false);
+            executor.shutdown();
+        }
+        if (pending) {
+            save();
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarInt(InputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new IOException("Fin de fichier inattendue");
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint trop long");
+    }
+
+    /**
+     * Postings d'un terme : (document, page) codés sur un long, en ordre croissant.
+     */
+    private static final class Postings {
+        long[] entries = new long[2];
+        int size;
+
+        void add(int docNo, int page) {
+            long entry = ((long) docNo << PAGE_BITS) | Math.min(page, (1 << PAGE_BITS) - 1);
+            if (size > 0 && entries[size - 1] == entry) return;
+            if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+            entries[size++] = entry;
+        }
+
+        void collect(Map<Integer, Set<Integer>> into, List<Doc> docs) {
+            for (int i = 0; i < size; i++) {
+                int docNo = (int) (entries[i] >>> PAGE_BITS);
+                if (docs.get(docNo).removed) continue;
+                into.computeIfAbsent(docNo, k -> new HashSet<>()).add((int) (entries[i] & ((1 << PAGE_BITS) - 1)));
+            }
+        }
+
+        // false si plus aucun posting ne subsiste
+        boolean renumber(int[] renumber) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int docNo = renumber[(int) (entries[i] >>> PAGE_BITS)];
+                if (docNo < 0) continue;
+                entries[kept++] = ((long) docNo << PAGE_BITS) | (entries[i] & ((1 << PAGE_BITS) - 1));
+            }
+            size = kept;
+            return size > 0;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            writeVarInt(out, size);
+            int previous = 0;
+            for (int i = 0; i < size; i++) {
+                int docNo = (int) (entries[i] >>> PAGE_BITS);
+                writeVarInt(out, docNo - previous);
+                writeVarInt(out, (int) (entries[i] & ((1 << PAGE_BITS) - 1)));
+                previous = docNo;
+            }
+        }
+    }
+}
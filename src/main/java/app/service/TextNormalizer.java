@@ -0,0 +1,36 @@
+package app.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Forme de comparaison des textes recherchés : minuscules, sans accents
+ * ("Société Générale" → "societe generale").
+ */
+public class TextNormalizer {
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) return "";
+
+        // Cas courant : ASCII pur, une simple mise en minuscules suffit
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (ascii) return text.toLowerCase(Locale.ROOT);
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char ch = decomposed.charAt(i);
+            if (Character.getType(ch) == Character.NON_SPACING_MARK) continue; // accent détaché
+            switch (ch) {
+                case 'œ', 'Œ' -> sb.append("oe");
+                case 'æ', 'Æ' -> sb.append("ae");
+                case 'ß' -> sb.append("ss");
+                default -> sb.append(Character.toLowerCase(ch));
+            }
+        }
+        return sb.toString();
+    }
+}
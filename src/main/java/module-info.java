@@ -3,7 +3,7 @@ module app {
     requires javafx.fxml;
     requires static lombok;
     requires com.fasterxml.jackson.annotation;
-    requires javafx.swing;
+    requires java.desktop;
     requires org.apache.pdfbox;
     requires com.fasterxml.jackson.databind;
     requires com.fasterxml.jackson.datatype.jsr310;
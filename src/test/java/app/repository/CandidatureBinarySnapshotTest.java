@@ -0,0 +1,193 @@
+package app.repository;
+
+import app.model.Candidature;
+import app.model.DocumentFile;
+import app.model.DocumentMetadata;
+import app.model.StatutCandidature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandidatureBinarySnapshotTest {
+
+    private static final String SHA = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @TempDir
+    Path dir;
+
+    private Path root() {
+        return dir.resolve("Candidatures");
+    }
+
+    private List<Candidature> roundTrip(List<Candidature> all, Path readRoot) throws IOException {
+        Path file = dir.resolve("candidatures.bin");
+        new CandidatureBinaryWriter(root()).write(file, all);
+        List<Candidature> read = new ArrayList<>();
+        try (CandidatureBinaryReader reader = new CandidatureBinaryReader(file, readRoot)) {
+            Candidature c;
+            while ((c = reader.next()) != null) read.add(c);
+        }
+        return read;
+    }
+
+    private static void assertSameDocument(DocumentFile expected, DocumentFile actual) {
+        assertEquals(expected.getFichier(), actual.getFichier());
+        assertEquals(expected.getDateMail(), actual.getDateMail());
+        assertEquals(expected.getNom(), actual.getNom());
+        assertEquals(expected.getMetadata(), actual.getMetadata());
+    }
+
+    /* =========================
+       CHAMPS
+       ========================= */
+    @Test
+    void roundTripKeepsEveryField() throws IOException {
+        Path dossier = root().resolve("2024-03-01 Atos Developpeur Java");
+        Candidature full = new Candidature(UUID.randomUUID().toString(), "Atos", "Développeur Java",
+                LocalDate.of(2024, 3, 1), StatutCandidature.ENTRETIEN, dossier, new ArrayList<>(),
+                "Relancer « vite »\nsur deux lignes", LocalDate.of(2024, 3, 15));
+        // Identifiant libre, dates antérieures à l'époque, statut et dossier absents
+        Candidature sparse = new Candidature("ancien-id-42", "Thales", null,
+                LocalDate.of(1969, 12, 31), null, null, new ArrayList<>(), null, null);
+        Candidature empty = new Candidature("vide", null, null, null, StatutCandidature.REFUS,
+                root().resolve("vide"), new ArrayList<>(), "", null);
+
+        List<Candidature> read = roundTrip(List.of(full, sparse, empty), root());
+
+        assertEquals(3, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            Candidature expected = List.of(full, sparse, empty).get(i);
+            Candidature actual = read.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getEntreprise(), actual.getEntreprise());
+            assertEquals(expected.getPoste(), actual.getPoste());
+            assertEquals(expected.getDateEnvoi(), actual.getDateEnvoi());
+            assertEquals(expected.getStatut(), actual.getStatut());
+            assertEquals(expected.getDossier(), actual.getDossier());
+            assertEquals(expected.getNotes(), actual.getNotes());
+            assertEquals(expected.getDateRelance(), actual.getDateRelance());
+        }
+    }
+
+    @Test
+    void roundTripKeepsEachPathKind() throws IOException {
+        Path dossier = root().resolve("Orange");
+        List<DocumentFile> docs = new ArrayList<>();
+        // PATH_IN_FOLDER, nom identique au fichier
+        docs.add(new DocumentFile(dossier.resolve("mail.pdf"), LocalDateTime.of(2024, 5, 2, 14, 3, 7), "mail.pdf"));
+        // PATH_UNDER_ROOT (autre dossier de la racine), nom différent
+        docs.add(new DocumentFile(root().resolve("Depot").resolve("cv.pdf"),
+                LocalDateTime.of(1965, 1, 1, 0, 0, 0, 123_000_000), "CV à jour"));
+        // PATH_ABSOLUTE (hors racine), sans date ni nom
+        docs.add(new DocumentFile(dir.resolve("ailleurs").resolve("lettre.pdf"), null, null));
+        // PATH_NULL
+        docs.add(new DocumentFile(null, LocalDateTime.of(2024, 5, 3, 8, 0), "sans fichier"));
+        Candidature c = new Candidature("c1", "Orange", "Tech Lead", LocalDate.of(2024, 5, 1),
+                StatutCandidature.EN_ATTENTE, dossier, docs, null, null);
+
+        Candidature read = roundTrip(List.of(c), root()).get(0);
+
+        assertEquals(docs.size(), read.getDocuments().size());
+        for (int i = 0; i < docs.size(); i++) {
+            assertSameDocument(docs.get(i), read.getDocuments().get(i));
+        }
+    }
+
+    @Test
+    void roundTripKeepsMetadataFlags() throws IOException {
+        Path dossier = root().resolve("Criteo");
+        List<DocumentFile> docs = new ArrayList<>();
+        String[] names = {"aucune.pdf", "complete.pdf", "sans-empreinte.pdf", "empreinte-invalide.pdf"};
+        DocumentMetadata[] metadata = {
+                null,
+                new DocumentMetadata(3, 48_213, 1_714_000_000_123L, SHA, true),
+                new DocumentMetadata(1, 900, 0, null, false),
+                new DocumentMetadata(2, 1_000, 5, "pas-hexa", true)
+        };
+        for (int i = 0; i < names.length; i++) {
+            DocumentFile doc = new DocumentFile(dossier.resolve(names[i]), null, names[i]);
+            doc.setMetadata(metadata[i]);
+            docs.add(doc);
+        }
+        Candidature c = new Candidature("c2", "Criteo", "Data Engineer", null, null, dossier, docs, null, null);
+
+        List<DocumentFile> read = roundTrip(List.of(c), root()).get(0).getDocuments();
+
+        assertNull(read.get(0).getMetadata());
+        assertEquals(metadata[1], read.get(1).getMetadata());
+        assertEquals(metadata[2], read.get(2).getMetadata());
+        // Empreinte mal formée : non enregistrée, le reste l'est
+        assertNull(read.get(3).getMetadata().sha256());
+        assertEquals(2, read.get(3).getMetadata().pages());
+        assertTrue(read.get(3).getMetadata().texteExtrait());
+    }
+
+    /* =========================
+       DOCUMENTS DIFFÉRÉS
+       ========================= */
+    @Test
+    void documentsAreDecodedOnFirstAccess() throws IOException {
+        Path dossier = root().resolve("Doctolib");
+        List<DocumentFile> docs = new ArrayList<>();
+        docs.add(new DocumentFile(dossier.resolve("mail.pdf"), LocalDateTime.of(2024, 6, 1, 10, 0), "mail.pdf"));
+        Candidature withDocs = new Candidature("d1", "Doctolib", "Tech Lead", null, null, dossier, docs, null, null);
+        Candidature withoutDocs = new Candidature("d2", "Ubisoft", "Tech Lead", null, null,
+                root().resolve("Ubisoft"), new ArrayList<>(), null, null);
+
+        List<Candidature> read = roundTrip(List.of(withDocs, withoutDocs), root());
+
+        Candidature deferred = read.get(0);
+        assertFalse(deferred.isDocumentsLoaded());
+        assertTrue(deferred.hasDocuments());
+        // Une copie partage le bloc encore encodé
+        Candidature copy = deferred.copy();
+        assertFalse(copy.isDocumentsLoaded());
+
+        assertEquals(1, deferred.getDocuments().size());
+        assertTrue(deferred.isDocumentsLoaded());
+        assertSameDocument(docs.get(0), deferred.getDocuments().get(0));
+        assertSameDocument(docs.get(0), copy.getDocuments().get(0));
+
+        // Bloc vide : rien à différer
+        assertTrue(read.get(1).isDocumentsLoaded());
+        assertFalse(read.get(1).hasDocuments());
+    }
+
+    @Test
+    void pathsFollowTheCurrentRoot() throws IOException {
+        Path dossier = root().resolve("Atos");
+        List<DocumentFile> docs = new ArrayList<>();
+        docs.add(new DocumentFile(dossier.resolve("mail.pdf"), null, "mail.pdf"));
+        docs.add(new DocumentFile(root().resolve("Depot").resolve("cv.pdf"), null, "cv.pdf"));
+        Candidature c = new Candidature("a", "Atos", "Tech Lead", null, null, dossier, docs, null, null);
+
+        Path moved = dir.resolve("Deplace");
+        Candidature read = roundTrip(List.of(c), moved).get(0);
+
+        assertEquals(moved.resolve("Atos"), read.getDossier());
+        assertEquals(moved.resolve("Atos").resolve("mail.pdf"), read.getDocuments().get(0).getFichier());
+        assertEquals(moved.resolve("Depot").resolve("cv.pdf"), read.getDocuments().get(1).getFichier());
+    }
+
+    @Test
+    void rejectsForeignFile() throws IOException {
+        Path file = dir.resolve("candidatures.bin");
+        Files.writeString(file, "[{\"id\":\"json\"}]");
+
+        assertThrows(IOException.class, () -> new CandidatureBinaryReader(file, root()).close());
+    }
+}
@@ -0,0 +1,185 @@
+package app.repository;
+
+import app.model.Candidature;
+import app.model.DocumentFile;
+import app.model.StatutCandidature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandidatureJournalTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @TempDir
+    Path dir;
+
+    private Path snapshot() {
+        return dir.resolve("candidatures.bin");
+    }
+
+    private Path root() {
+        return dir.resolve("Candidatures");
+    }
+
+    private Candidature candidature(String id, String entreprise, StatutCandidature statut) {
+        Path dossier = root().resolve(entreprise);
+        List<DocumentFile> docs = new ArrayList<>();
+        docs.add(new DocumentFile(dossier.resolve("mail.pdf"), LocalDateTime.of(2024, 3, 4, 9, 30), "mail.pdf"));
+        return new Candidature(id, entreprise, "Développeur Java", LocalDate.of(2024, 3, 1), statut,
+                dossier, docs, "notes " + id, null);
+    }
+
+    /* =========================
+       REJEU
+       ========================= */
+    @Test
+    void readTailKeepsLastPutAndDeletes() throws IOException {
+        CandidatureJournal journal = new CandidatureJournal(snapshot(), root(), mapper);
+        journal.put("a", mapper.valueToTree(candidature("a", "Atos", StatutCandidature.EN_ATTENTE)));
+        journal.put("b", mapper.valueToTree(candidature("b", "Thales", StatutCandidature.EN_ATTENTE)));
+        journal.put("a", mapper.valueToTree(candidature("a", "Atos", StatutCandidature.ENTRETIEN)));
+        journal.delete("b");
+        journal.close();
+
+        Map<String, JsonNode> tail = new CandidatureJournal(snapshot(), root(), mapper).readTail();
+
+        assertEquals(List.of("a", "b"), new ArrayList<>(tail.keySet()));
+        assertNull(tail.get("b"));
+        Candidature a = journal.decode(tail.get("a"));
+        assertEquals(StatutCandidature.ENTRETIEN, a.getStatut());
+        assertEquals("notes a", a.getNotes());
+        assertEquals(root().resolve("Atos").resolve("mail.pdf"), a.getDocuments().get(0).getFichier());
+        assertEquals(LocalDateTime.of(2024, 3, 4, 9, 30), a.getDocuments().get(0).getDateMail());
+    }
+
+    @Test
+    void readTailSkipsTruncatedLastLine() throws IOException {
+        CandidatureJournal journal = new CandidatureJournal(snapshot(), root(), mapper);
+        journal.put("a", mapper.valueToTree(candidature("a", "Atos", StatutCandidature.EN_ATTENTE)));
+        journal.close();
+        Path active = snapshot().resolveSibling("candidatures.bin.journal");
+        Files.writeString(active, "{\"op\":\"PUT\",\"id\":\"b\",\"da", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        Map<String, JsonNode> tail = new CandidatureJournal(snapshot(), root(), mapper).readTail();
+
+        assertEquals(List.of("a"), new ArrayList<>(tail.keySet()));
+    }
+
+    @Test
+    void readTailReplaysInterruptedCompactionFirst() throws IOException {
+        CandidatureJournal journal = new CandidatureJournal(snapshot(), root(), mapper);
+        journal.put("a", mapper.valueToTree(candidature("a", "Atos", StatutCandidature.EN_ATTENTE)));
+        journal.close();
+        // Journal renommé pour compaction, puis nouvelles entrées dans le journal actif
+        Files.move(snapshot().resolveSibling("candidatures.bin.journal"),
+                snapshot().resolveSibling("candidatures.bin.journal.old"));
+        journal = new CandidatureJournal(snapshot(), root(), mapper);
+        journal.put("a", mapper.valueToTree(candidature("a", "Atos", StatutCandidature.REFUS)));
+        journal.close();
+
+        Map<String, JsonNode> tail = new CandidatureJournal(snapshot(), root(), mapper).readTail();
+
+        assertEquals(StatutCandidature.REFUS, journal.decode(tail.get("a")).getStatut());
+    }
+
+    /* =========================
+       COMPACTION
+       ========================= */
+    @Test
+    void compactionMergesJournalIntoSnapshot() throws IOException {
+        CandidatureJournal journal = new CandidatureJournal(snapshot(), root(), mapper);
+        journal.rewrite(List.of(candidature("s1", "Orange", StatutCandidature.EN_ATTENTE),
+                candidature("s2", "Criteo", StatutCandidature.EN_ATTENTE)));
+
+        // Assez d'entrées pour déclencher la rotation puis la compaction en arrière-plan
+        journal.delete("s2");
+        for (int i = 0; i < 600; i++) {
+            journal.put("n" + (i % 50), mapper.valueToTree(candidature("n" + (i % 50), "Ubisoft " + (i % 50),
+                    i < 550 ? StatutCandidature.EN_ATTENTE : StatutCandidature.ENTRETIEN)));
+        }
+        journal.close(); // attend la fin de la compaction
+
+        assertFalse(Files.exists(snapshot().resolveSibling("candidatures.bin.journal.old")));
+
+        // Snapshot compacté + fin du journal actif = état final
+        Map<String, Candidature> state = new LinkedHashMap<>();
+        try (CandidatureBinaryReader reader = new CandidatureBinaryReader(snapshot(), root())) {
+            Candidature c;
+            while ((c = reader.next()) != null) state.put(c.getId(), c);
+        }
+        CandidatureJournal reopened = new CandidatureJournal(snapshot(), root(), mapper);
+        for (Map.Entry<String, JsonNode> e : reopened.readTail().entrySet()) {
+            if (e.getValue() == null) {
+                state.remove(e.getKey());
+            } else {
+                state.put(e.getKey(), reopened.decode(e.getValue()));
+            }
+        }
+
+        assertEquals(51, state.size());
+        assertTrue(state.containsKey("s1"));
+        assertFalse(state.containsKey("s2"));
+        assertEquals(StatutCandidature.ENTRETIEN, state.get("n0").getStatut());
+        assertEquals("Ubisoft 7", state.get("n7").getEntreprise());
+        assertEquals(1, state.get("n7").getDocuments().size());
+    }
+
+    @Test
+    void rewriteDropsJournals() throws IOException {
+        CandidatureJournal journal = new CandidatureJournal(snapshot(), root(), mapper);
+        journal.put("a", mapper.valueToTree(candidature("a", "Atos", StatutCandidature.EN_ATTENTE)));
+        journal.rewrite(List.of(candidature("a", "Atos", StatutCandidature.REFUS)));
+        journal.close();
+
+        assertTrue(new CandidatureJournal(snapshot(), root(), mapper).readTail().isEmpty());
+        try (CandidatureBinaryReader reader = new CandidatureBinaryReader(snapshot(), root())) {
+            assertEquals(StatutCandidature.REFUS, reader.next().getStatut());
+            assertNull(reader.next());
+        }
+    }
+
+    /* =========================
+       ÉCRIVAIN
+       ========================= */
+    @Test
+    void writerWritesSynchronouslyAfterClose() throws IOException {
+        CandidatureJournal journal = new CandidatureJournal(snapshot(), root(), mapper);
+        PersistenceWriter writer = new PersistenceWriter(journal, mapper, 60_000);
+        writer.markDirty(candidature("a", "Atos", StatutCandidature.EN_ATTENTE));
+        writer.close(); // écrit ce qui attendait
+        writer.close();
+
+        writer.markDirty(candidature("a", "Atos", StatutCandidature.ENTRETIEN));
+        writer.markDeleted("b");
+        journal.close();
+
+        Map<String, JsonNode> tail = new CandidatureJournal(snapshot(), root(), mapper).readTail();
+        assertEquals(List.of("a", "b"), new ArrayList<>(tail.keySet()));
+        assertEquals(StatutCandidature.ENTRETIEN, journal.decode(tail.get("a")).getStatut());
+        assertNull(tail.get("b"));
+        assertEquals(3, writer.getStats().written());
+    }
+}
@@ -0,0 +1,144 @@
+package app.repository;
+
+import app.model.Candidature;
+import app.model.DocumentFile;
+import app.model.StatutCandidature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Comparaison snapshot JSON (Jackson databind, format historique) / snapshot binaire.
+ * <p>
+ * Lancement (après {@code mvn test-compile}) :
+ * <pre>
+ * java -Xmx4g -cp target/classes:target/test-classes:&lt;dépendances&gt; \
+ *      app.repository.SnapshotBenchmark 10000 100000 1000000
+ * </pre>
+ */
+public class SnapshotBenchmark {
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static final String[] ENTREPRISES = {
+            "Capgemini", "Sopra Steria", "Atos", "Thales", "Dassault Systèmes", "Orange",
+            "Société Générale", "BNP Paribas", "Ubisoft", "Doctolib", "Criteo", "OVHcloud"
+    };
+    private static final String[] POSTES = {
+            "Développeur Java", "Ingénieur DevOps", "Développeur Full Stack", "Architecte logiciel",
+            "Data Engineer", "Tech Lead"
+    };
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length == 0
+                ? new int[]{10_000, 100_000, 1_000_000}
+                : Stream.of(args).mapToInt(Integer::parseInt).toArray();
+
+        Path dir = Files.createTempDirectory("snapshot-bench");
+        Path root = dir.resolve("Candidatures");
+        try {
+            System.out.printf("%-10s %-8s %12s %12s %14s %14s%n",
+                    "lignes", "format", "taille (Ko)", "save (ms)", "load (ms)", "load+docs (ms)");
+            for (int n : sizes) {
+                List<Candidature> data = generate(n, root);
+                benchJson(n, data, dir.resolve("candidatures.json"));
+                benchBinary(n, data, dir.resolve("candidatures.bin"), root);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static void benchJson(int n, List<Candidature> data, Path file) throws IOException {
+        long t0 = System.nanoTime();
+        mapper.writeValue(file.toFile(), data);
+        long save = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        List<Candidature> loaded = mapper.readValue(file.toFile(),
+                mapper.getTypeFactory().constructCollectionType(List.class, Candidature.class));
+        long load = System.nanoTime() - t0;
+        check(n, loaded);
+
+        print(n, "json", Files.size(file), save, load, load);
+    }
+
+    private static void benchBinary(int n, List<Candidature> data, Path file, Path root) throws IOException {
+        long t0 = System.nanoTime();
+        new CandidatureBinaryWriter(root).write(file, data);
+        long save = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        List<Candidature> loaded = new ArrayList<>(n);
+        try (CandidatureBinaryReader reader = new CandidatureBinaryReader(file, root)) {
+            Candidature c;
+            while ((c = reader.next()) != null) {
+                loaded.add(c);
+            }
+        }
+        long load = System.nanoTime() - t0;
+
+        // Décodage de tous les documents (pire cas : tout est consulté)
+        for (Candidature c : loaded) {
+            c.getDocuments();
+        }
+        long loadAll = System.nanoTime() - t0;
+        check(n, loaded);
+
+        print(n, "binaire", Files.size(file), save, load, loadAll);
+    }
+
+    private static List<Candidature> generate(int n, Path root) {
+        Random random = new Random(42);
+        StatutCandidature[] statuts = {StatutCandidature.EN_ATTENTE, StatutCandidature.REFUS, StatutCandidature.ENTRETIEN};
+        LocalDate start = LocalDate.of(2020, 1, 1);
+
+        List<Candidature> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String entreprise = ENTREPRISES[random.nextInt(ENTREPRISES.length)];
+            String poste = POSTES[random.nextInt(POSTES.length)];
+            LocalDate date = start.plusDays(random.nextInt(2000));
+
+            Candidature c = new Candidature(entreprise, poste);
+            c.setDateEnvoi(date);
+            c.setStatut(statuts[random.nextInt(statuts.length)]);
+            c.setDossier(root.resolve(date + " " + entreprise + " " + poste + " " + i));
+            if (random.nextInt(4) == 0) c.setNotes("Relancé par mail");
+
+            int docs = random.nextInt(4);
+            for (int d = 0; d < docs; d++) {
+                String nom = "Mail " + (d + 1) + ".pdf";
+                LocalDateTime dateMail = date.plusDays(d * 7L).atTime(9 + d, 30);
+                c.ajouterDocument(new DocumentFile(c.getDossier().resolve(nom), dateMail, nom));
+            }
+            list.add(c);
+        }
+        return list;
+    }
+
+    private static void check(int n, List<Candidature> loaded) {
+        if (loaded.size() != n) {
+            throw new IllegalStateException("Relu " + loaded.size() + " candidatures au lieu de " + n);
+        }
+    }
+
+    private static void print(int n, String format, long bytes, long save, long load, long loadAll) {
+        System.out.printf("%-10d %-8s %12d %12d %14d %14d%n",
+                n, format, bytes / 1024, save / 1_000_000, load / 1_000_000, loadAll / 1_000_000);
+    }
+}
@@ -0,0 +1,137 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandidatureMatcherTest {
+
+    private final CandidatureRowIds rowIds = new CandidatureRowIds();
+    private final CandidatureMatcher matcher = new CandidatureMatcher(rowIds);
+
+    private Candidature add(String entreprise, String poste) {
+        Candidature c = new Candidature(entreprise, poste);
+        rowIds.register(c);
+        matcher.onChange(CandidatureEvent.added(c));
+        c.setChangeListener(matcher);
+        return c;
+    }
+
+    private void remove(Candidature c) {
+        matcher.onChange(CandidatureEvent.removed(c));
+        rowIds.release(c);
+    }
+
+    private CandidatureMatcher.Result match(String text) {
+        return matcher.match(List.of(text), null);
+    }
+
+    /* =========================
+       RATTACHEMENT
+       ========================= */
+    @Test
+    void attachesWhenCompanyPosteAndDomainAgree() {
+        Candidature atos = add("Atos", "Développeur Java");
+        add("Thales", "Ingénieur logiciel");
+        add("Société Générale", "Data Engineer");
+
+        CandidatureMatcher.Result result = match("""
+                From: Service RH <rh@atos.net>
+                Objet : votre candidature au poste de développeur Java chez Atos
+                """);
+
+        assertTrue(result.confident());
+        assertSame(atos, result.automatic());
+        assertEquals(1, result.candidates().size());
+        assertEquals(1.0, result.best().score(), 1e-9);
+        assertEquals("entreprise 100 %, poste 100 %, domaine", result.best().reason());
+    }
+
+    @Test
+    void proposesOnDomainAloneWithoutAttaching() {
+        Candidature sg = add("Société Générale", "Data Engineer");
+
+        CandidatureMatcher.Result result = match("De : recrutement@societe-generale.com\nBonjour,");
+
+        assertFalse(result.confident());
+        assertNull(result.automatic());
+        assertSame(sg, result.best().candidature());
+        assertEquals("domaine", result.best().reason());
+    }
+
+    @Test
+    void ignoresGenericMailDomains() {
+        add("Gmail", "Support");
+        add("Atos", "Développeur Java");
+
+        assertTrue(match("Envoyé depuis jobs@gmail.com").candidates().isEmpty());
+        assertTrue(match("Aucun rapport avec une candidature").candidates().isEmpty());
+        assertTrue(CandidatureMatcher.isGenericDomain("linkedin"));
+    }
+
+    /* =========================
+       AMBIGUÏTÉS
+       ========================= */
+    @Test
+    void twoPostesAtOneCompanyNeedThePosteToDecide() {
+        Candidature dev = add("Atos", "Développeur Java");
+        Candidature data = add("Atos", "Data Engineer");
+
+        CandidatureMatcher.Result company = match("Réponse de Atos concernant votre candidature");
+        assertEquals(2, company.candidates().size());
+        assertFalse(company.confident());
+
+        CandidatureMatcher.Result poste = match("Atos : votre candidature Data Engineer");
+        assertTrue(poste.confident());
+        assertSame(data, poste.automatic());
+        assertSame(dev, poste.candidates().get(1).candidature());
+    }
+
+    @Test
+    void penalisesMailsDatedBeforeTheApplication() {
+        Candidature atos = add("Atos", "Développeur Java");
+        atos.setDateEnvoi(LocalDate.of(2024, 3, 10));
+        String text = "rh@atos.net : candidature développeur Java chez Atos";
+
+        assertSame(atos, matcher.match(List.of(text), LocalDateTime.of(2024, 3, 12, 9, 0)).automatic());
+        CandidatureMatcher.Result before = matcher.match(List.of(text), LocalDateTime.of(2024, 3, 1, 9, 0));
+        assertFalse(before.confident());
+        assertEquals((0.55 + 0.2 + 0.35) / 2, before.best().score(), 1e-9); // pénalité avant le plafond de 1
+    }
+
+    /* =========================
+       MISE À JOUR
+       ========================= */
+    @Test
+    void followsRenamesAndRemovals() {
+        Candidature c = add("Atos", "Développeur Java");
+        c.setEntreprise("Eviden");
+
+        assertTrue(match("Atos développeur Java").candidates().isEmpty());
+        assertSame(c, match("Eviden développeur Java").automatic());
+
+        remove(c);
+        assertTrue(match("Eviden développeur Java").candidates().isEmpty());
+    }
+
+    /* =========================
+       DÉCOUPAGE
+       ========================= */
+    @Test
+    void splitsFieldsIntoNormalizedWords() {
+        assertArrayEquals(new String[]{"societe", "generale"}, CandidatureMatcher.words("Société Générale SAS"));
+        assertArrayEquals(new String[]{"developpeur", "java"}, CandidatureMatcher.words("Développeur Java (H/F) - CDI"));
+        assertArrayEquals(new String[0], CandidatureMatcher.words(null));
+    }
+}
@@ -0,0 +1,114 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandidatureSearchIndexTest {
+
+    private final CandidatureRowIds rowIds = new CandidatureRowIds();
+    private final CandidatureSearchIndex index = new CandidatureSearchIndex(rowIds);
+
+    private Candidature add(String entreprise, String poste, String notes) {
+        Candidature c = new Candidature(entreprise, poste);
+        c.setNotes(notes);
+        rowIds.register(c);
+        index.onChange(CandidatureEvent.added(c));
+        c.setChangeListener(index);
+        return c;
+    }
+
+    private BitSet search(String text) {
+        return index.search(CandidatureSearchIndex.normalizeQuery(text), null, () -> false);
+    }
+
+    private static BitSet rows(Candidature... candidatures) {
+        BitSet rows = new BitSet();
+        for (Candidature c : candidatures) rows.set(c.getRowId());
+        return rows;
+    }
+
+    /* =========================
+       RECHERCHE
+       ========================= */
+    @Test
+    void findsSubstringsWithoutCaseOrAccents() {
+        Candidature sg = add("Société Générale", "Développeur Java", null);
+        Candidature atos = add("Atos", "Ingénieur DevOps", "relancé par téléphone");
+        add("Thales", "Chef de projet", null);
+
+        assertEquals(rows(sg), search("GENERALE"));
+        assertEquals(rows(sg, atos), search("  dév "));
+        assertEquals(rows(atos), search("Téléphone"));
+        assertTrue(search("Ubisoft").isEmpty());
+    }
+
+    @Test
+    void verifiesTheSubstringBehindTheTrigrams() {
+        Candidature c = add("abc-bcd", "Data", "Engineer");
+
+        assertTrue(search("abcd").isEmpty()); // trigrammes « abc » et « bcd » présents, pas la chaîne
+        assertEquals(rows(c), search("c-b"));
+        // Les champs ne se touchent pas
+        assertTrue(search("dataengineer").isEmpty());
+        assertTrue(search("a e").isEmpty());
+    }
+
+    @Test
+    void shortQueriesScanTheTexts() {
+        Candidature java = add("Atos", "Java", null);
+        Candidature js = add("Criteo", "JavaScript", null);
+        add("Thales", "Python", null);
+
+        assertEquals(rows(java, js), search("ja"));
+        assertEquals(rows(js), search("PT"));
+    }
+
+    @Test
+    void narrowsAPreviousResultWhileTyping() {
+        Candidature java = add("Atos", "Java", null);
+        Candidature js = add("Criteo", "JavaScript", null);
+        add("Thales", "Python", null);
+
+        BitSet jav = search("jav");
+        assertEquals(rows(java, js), jav);
+        assertEquals(rows(js), index.search("javas", jav, () -> false));
+        assertEquals(rows(js), index.search("sc", jav, () -> false));
+    }
+
+    @Test
+    void returnsNullWhenCancelled() {
+        add("Atos", "Java", null);
+        assertNull(index.search("java", null, () -> true));
+        assertNull(index.search("ja", null, () -> true));
+    }
+
+    /* =========================
+       MISE À JOUR
+       ========================= */
+    @Test
+    void followsEditsAndRemovals() {
+        Candidature c = add("Atos", "Développeur Java", null);
+        int row = c.getRowId();
+
+        c.setPoste("Architecte cloud");
+        assertTrue(search("java").isEmpty());
+        assertEquals(rows(c), search("cloud"));
+        assertTrue(index.rowMatches(row, "architecte"));
+
+        c.setNotes("Entretien le 12 juin");
+        assertEquals(rows(c), search("entretien"));
+
+        index.onChange(CandidatureEvent.removed(c));
+        rowIds.release(c);
+        assertTrue(search("cloud").isEmpty());
+        assertFalse(index.rowMatches(row, "architecte"));
+    }
+}
@@ -0,0 +1,169 @@
+package app.service;
+
+import app.model.Candidature;
+import app.model.CandidatureEvent;
+import app.model.DocumentFile;
+import app.model.DocumentMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class DocumentHashIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private final DocumentHashIndex index = new DocumentHashIndex();
+    private final AtomicInteger barriers = new AtomicInteger();
+
+    @AfterEach
+    void close() {
+        index.close();
+    }
+
+    private DocumentFile doc(String name, String content, String sha256) throws IOException {
+        Path file = dir.resolve(name);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        DocumentFile doc = new DocumentFile(file, null, name);
+        if (sha256 != null) doc.setMetadata(new DocumentMetadata(1, Files.size(file), 0, sha256, false));
+        return doc;
+    }
+
+    private Candidature candidature(String entreprise, List<DocumentFile> docs) {
+        Candidature c = new Candidature(entreprise, "Développeur Java");
+        c.setDocuments(docs);
+        return c;
+    }
+
+    private void added(Candidature c) {
+        c.setChangeListener(index);
+        index.onChange(CandidatureEvent.added(c));
+    }
+
+    // Le thread des empreintes traite les événements dans l'ordre : attendre un dernier ajout
+    private void settle() throws IOException, InterruptedException {
+        String sha = "barriere-" + barriers.incrementAndGet();
+        added(candidature("Barrière", List.of(doc(sha + ".pdf", sha, sha))));
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (index.find(sha).isEmpty()) {
+            if (System.nanoTime() > deadline) fail("index des empreintes bloqué");
+            Thread.sleep(5);
+        }
+    }
+
+    /* =========================
+       ÉVÉNEMENTS
+       ========================= */
+    @Test
+    void indexesAddedAndUpdatedDocuments() throws Exception {
+        DocumentFile cv = doc("cv.pdf", "cv", "aaa");
+        DocumentFile lettre = doc("lettre.pdf", "lettre", null);
+        Candidature c = candidature("Atos", List.of(cv, lettre));
+        added(c);
+        settle();
+
+        assertEquals(1, index.find("aaa").size());
+        assertSame(c, index.find("aaa").get(0).candidature());
+        assertTrue(index.find("bbb").isEmpty());
+
+        // Empreinte reçue plus tard (rattrapage des métadonnées)
+        lettre.setMetadata(new DocumentMetadata(1, 6, 0, "bbb", false));
+        DocumentFile mail = doc("mail.pdf", "mail", "ccc");
+        c.ajouterDocument(mail);
+        settle();
+        assertSame(lettre, index.find("bbb").get(0).doc());
+        assertSame(mail, index.find("ccc").get(0).doc());
+
+        c.retirerDocument(cv);
+        settle();
+        assertTrue(index.find("aaa").isEmpty());
+
+        index.onChange(CandidatureEvent.removed(c));
+        settle();
+        assertTrue(index.find("bbb").isEmpty());
+        assertTrue(index.find("ccc").isEmpty());
+    }
+
+    @Test
+    void decodesDeferredListsThenSwitchesToTheLiveDocuments() throws Exception {
+        Path file = doc("cv.pdf", "cv", null).getFichier();
+        AtomicInteger decoded = new AtomicInteger();
+        Candidature c = new Candidature("Thales", "Architecte");
+        c.deferDocuments(true, () -> {
+            decoded.incrementAndGet();
+            DocumentFile d = new DocumentFile(file, null, "cv.pdf");
+            d.setMetadata(new DocumentMetadata(1, 2, 0, "aaa", false));
+            return List.of(d);
+        });
+        added(c);
+        settle();
+
+        // Décodés sur une copie : la candidature reste différée
+        assertEquals(1, decoded.get());
+        assertFalse(c.isDocumentsLoaded());
+        assertEquals(1, index.find("aaa").size());
+
+        c.ajouterDocument(doc("mail.pdf", "mail", "bbb"));
+        settle();
+        List<DocumentHashIndex.Location> found = index.find("aaa");
+        assertEquals(1, found.size());
+        assertSame(c.getDocuments().get(0), found.get(0).doc());
+    }
+
+    /* =========================
+       IMPORTS
+       ========================= */
+    @Test
+    void discardsOnlyUnattachedDocumentsOfTheImportThread() throws Exception {
+        Candidature c = candidature("Orange", List.of());
+        added(c);
+        DocumentFile attached = doc("rattache.pdf", "a", "aaa");
+        DocumentFile abandoned = doc("abandonne.pdf", "b", "bbb");
+        index.add(c, attached, "aaa");
+        index.add(c, abandoned, "bbb");
+        assertEquals(1, index.find("bbb").size()); // reconnu aussitôt, avant tout rattachement
+
+        c.ajouterDocument(attached);
+        settle();
+        assertEquals(0, index.discardUnattached(Thread.currentThread().threadId() + 1));
+        assertEquals(1, index.discardUnattached(Thread.currentThread().threadId()));
+        assertTrue(index.find("bbb").isEmpty());
+        assertEquals(1, index.find("aaa").size());
+    }
+
+    /* =========================
+       DOUBLONS
+       ========================= */
+    @Test
+    void reportsDuplicatesStillOnDisk() throws Exception {
+        DocumentFile first = doc("premier.pdf", "même contenu", "aaa");
+        DocumentFile second = doc("second.pdf", "même contenu", "aaa");
+        DocumentFile gone = doc("disparu.pdf", "même contenu", "aaa");
+        added(candidature("Atos", List.of(first)));
+        added(candidature("Eviden", new ArrayList<>(List.of(second, gone))));
+        settle();
+        Files.delete(gone.getFichier());
+
+        List<DocumentHashIndex.Group> groups = index.duplicates();
+        assertEquals(1, groups.size());
+        DocumentHashIndex.Group group = groups.get(0);
+        assertEquals("aaa", group.sha256());
+        assertEquals(2, group.locations().size());
+        assertEquals(2, group.copies());
+        assertEquals(Files.size(first.getFichier()), group.reclaimable());
+    }
+}
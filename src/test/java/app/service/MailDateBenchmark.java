@@ -0,0 +1,211 @@
+package app.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Extraction de la date d'un mail : texte complet puis recherche sur tout le texte
+ * (ancienne méthode, la dernière date l'emporte) / extraction page par page arrêtée au
+ * premier en-tête ({@link MailDateExtractor}).
+ * <p>
+ * Puis, sur le texte seul (sans en-tête : tout le texte est parcouru), une expression
+ * régulière et un {@code DateTimeFormatter} par format / {@link MailDateScanner} en une passe.
+ * <p>
+ * Les PDF générés ont l'en-tête en page 1 et des messages cités plus loin.
+ * Lancement (après {@code mvn test-compile}) :
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;dépendances&gt; \
+ *      app.service.MailDateBenchmark 50 20
+ * </pre>
+ */
+public class MailDateBenchmark {
+
+    private static final String LOREM = "Bonjour, suite à notre échange je vous transmets les éléments demandés "
+            + "concernant le poste. N'hésitez pas à revenir vers moi pour toute question.";
+
+    private static final DateTimeFormatter OLD_FORMATTER =
+            DateTimeFormatter.ofPattern("d MMMM yyyy 'à' HH:mm", Locale.FRENCH);
+    private static final Pattern OLD_PATTERN = Pattern.compile(
+            "(\\d{1,2}\\s(?:janvier|février|mars|avril|mai|juin|juillet|août|septembre|octobre|novembre|décembre)\\s\\d{4}\\sà\\s\\d{1,2}:\\d{2})",
+            Pattern.CASE_INSENSITIVE);
+
+    // Un format = une expression + un formatter, essayés l'un après l'autre
+    private record RegexFormat(Pattern regex, DateTimeFormatter formatter) {
+    }
+
+    private static final List<RegexFormat> REGEX_CHAIN = List.of(
+            new RegexFormat(Pattern.compile("(\\d{1,2}\\s+(?:janvier|février|mars|avril|mai|juin|juillet|août|septembre"
+                    + "|octobre|novembre|décembre)\\s+\\d{4}\\s+à\\s+\\d{1,2}:\\d{2})", Pattern.CASE_INSENSITIVE),
+                    formatter("d MMMM yyyy 'à' H:mm", Locale.FRENCH)),
+            new RegexFormat(Pattern.compile("((?:January|February|March|April|May|June|July|August|September|October"
+                    + "|November|December)\\s+\\d{1,2},\\s+\\d{4}\\s+\\d{1,2}:\\d{2}\\s+[AP]M)", Pattern.CASE_INSENSITIVE),
+                    formatter("MMMM d, yyyy h:mm a", Locale.ENGLISH)),
+            new RegexFormat(Pattern.compile("((?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)\\s+\\d{1,2},\\s+\\d{4}"
+                    + "\\s+at\\s+\\d{1,2}:\\d{2}\\s+[AP]M)", Pattern.CASE_INSENSITIVE),
+                    formatter("MMM d, yyyy 'at' h:mm a", Locale.ENGLISH)),
+            new RegexFormat(Pattern.compile("(\\d{4}-\\d{2}-\\d{2}[T\\s]\\d{2}:\\d{2})"),
+                    formatter("yyyy-MM-dd[ ]['T']HH:mm", Locale.ROOT)));
+
+    private static DateTimeFormatter formatter(String pattern, Locale locale) {
+        return new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(pattern).toFormatter(locale);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int files = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Path dir = Files.createTempDirectory("date-bench");
+        try {
+            List<Path> pdfs = new ArrayList<>(files);
+            for (int i = 0; i < files; i++) {
+                Path pdf = dir.resolve("mail-" + i + ".pdf");
+                generate(pdf, pages, i);
+                pdfs.add(pdf);
+            }
+
+            // Deux passes : la première chauffe la JVM
+            for (int pass = 1; pass <= 2; pass++) {
+                long full = 0, bounded = 0;
+                LocalDateTime lastFull = null, lastBounded = null;
+                for (Path pdf : pdfs) {
+                    try (PDDocument document = PDDocument.load(pdf.toFile())) {
+                        long t0 = System.nanoTime();
+                        lastFull = lastMatch(new PDFTextStripper().getText(document));
+                        full += System.nanoTime() - t0;
+                    }
+                    try (PDDocument document = PDDocument.load(pdf.toFile())) {
+                        long t0 = System.nanoTime();
+                        lastBounded = MailDateExtractor.DEFAULT.extract(document);
+                        bounded += System.nanoTime() - t0;
+                    }
+                }
+                if (pass == 2) {
+                    System.out.printf("%d PDF de %d pages%n", files, pages);
+                    System.out.printf("%-28s %10.1f ms/PDF  (dernier : %s)%n", "texte complet, dernière date",
+                            full / 1e6 / files, lastFull);
+                    System.out.printf("%-28s %10.1f ms/PDF  (dernier : %s)%n", "page par page, premier en-tête",
+                            bounded / 1e6 / files, lastBounded);
+                    System.out.printf("gain : x%.1f%n", (double) full / bounded);
+                }
+            }
+
+            benchText(pdfs.get(0), pages);
+        } finally {
+            try (Stream<Path> walk = Files.walk(dir)) {
+                walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    // Texte sans l'en-tête (page 1 retirée), puis sans aucune date : tout le texte est parcouru
+    private static void benchText(Path pdf, int pages) throws IOException {
+        String text;
+        try (PDDocument document = PDDocument.load(pdf.toFile())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(2);
+            text = stripper.getText(document);
+        }
+        System.out.printf("%nTexte seul : %d pages, %d caractères%n", pages - 1, text.length());
+        compare("messages cités", text);
+        compare("aucune date", text.replace("janvier", "jan")); // « 3 jan 2024 » : mois reconnu, format non
+    }
+
+    private static void compare(String label, String text) {
+        MailDateScanner scanner = new MailDateScanner(MailDateExtractor.DEFAULT.getLayouts());
+        int rounds = 200;
+
+        long regex = 0, scan = 0;
+        LocalDateTime byRegex = null;
+        MailDateScanner.Match byScanner = null;
+        for (int pass = 1; pass <= 2; pass++) {
+            long t0 = System.nanoTime();
+            for (int r = 0; r < rounds; r++) byRegex = regexChain(text);
+            regex = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (int r = 0; r < rounds; r++) byScanner = scanner.scan(text);
+            scan = System.nanoTime() - t0;
+        }
+        System.out.println(label + " :");
+        System.out.printf("  %-26s %10.2f ms  (%s)%n", "une regex par format", regex / 1e6 / rounds, byRegex);
+        System.out.printf("  %-26s %10.2f ms  (%s)%n", "une passe (Aho-Corasick)", scan / 1e6 / rounds,
+                byScanner == null ? null : byScanner.date());
+        System.out.printf("  gain : x%.1f%n", (double) regex / scan);
+    }
+
+    // Chaque format sur tout le texte, chaque candidat passé au formatter
+    private static LocalDateTime regexChain(String text) {
+        for (RegexFormat format : REGEX_CHAIN) {
+            Matcher matcher = format.regex().matcher(text);
+            while (matcher.find()) {
+                try {
+                    return LocalDateTime.parse(matcher.group(1).replaceAll("\\s+", " "), format.formatter());
+                } catch (DateTimeParseException ignored) {
+                }
+            }
+        }
+        return null;
+    }
+
+    // En-tête en page 1, message cité (plus ancien) tous les 10 pages
+    private static void generate(Path file, int pages, int seed) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 10);
+                    content.setLeading(12);
+                    content.newLineAtOffset(50, 740);
+                    if (p == 0) {
+                        line(content, "De : recrutement@exemple.fr");
+                        line(content, "Envoyé : " + (1 + seed % 28) + " mars 2024 à 14:05");
+                        line(content, "Objet : Votre candidature");
+                    } else if (p % 10 == 0) {
+                        line(content, "Le " + (1 + p % 28) + " janvier 2024 à 09:15, vous avez écrit :");
+                    }
+                    for (int l = 0; l < 50; l++) line(content, LOREM.substring(0, 60 + l % 40));
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+    }
+
+    // Ancienne extraction : tout le texte, la dernière date l'emporte
+    private static LocalDateTime lastMatch(String text) {
+        LocalDateTime dt = null;
+        Matcher matcher = OLD_PATTERN.matcher(text);
+        while (matcher.find()) {
+            try {
+                dt = LocalDateTime.parse(matcher.group(1), OLD_FORMATTER);
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return dt;
+    }
+
+    private static void line(PDPageContentStream content, String text) throws IOException {
+        content.showText(text);
+        content.newLine();
+    }
+}
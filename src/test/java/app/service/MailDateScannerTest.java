@@ -0,0 +1,116 @@
+package app.service;
+
+import app.service.MailDateScanner.Layout;
+import app.service.MailDateScanner.Match;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailDateScannerTest {
+
+    private static final MailDateScanner ALL =
+            new MailDateScanner(List.of(Layout.FRENCH, Layout.OUTLOOK, Layout.GMAIL, Layout.ISO));
+
+    private static LocalDateTime date(String text) {
+        Match m = ALL.scan(text);
+        return m != null ? m.date() : null;
+    }
+
+    /* =========================
+       FORMATS
+       ========================= */
+    @Test
+    void readsFrenchHeaderDates() {
+        String text = "Envoyé le 3 mars 2024 à 14:05";
+        Match m = ALL.scan(text);
+        assertEquals(LocalDateTime.of(2024, 3, 3, 14, 5), m.date());
+        assertEquals(Layout.FRENCH, m.layout());
+        assertEquals(text.indexOf('3'), m.start());
+        assertTrue(m.layout().isHeader());
+
+        // Sans accents, majuscules, espaces insécables
+        assertEquals(LocalDateTime.of(2024, 2, 12, 9, 30), date("12 fevrier 2024 a 9:30"));
+        assertEquals(LocalDateTime.of(2023, 8, 1, 8, 0), date("Le 01 AOÛT 2023 À 08:00"));
+        assertEquals(LocalDateTime.of(2024, 12, 24, 18, 45), date("24 décembre 2024 à 18:45"));
+    }
+
+    @Test
+    void readsEnglishHeaderDates() {
+        Match outlook = ALL.scan("Sent: Sunday, March 3, 2024 2:05 PM");
+        assertEquals(LocalDateTime.of(2024, 3, 3, 14, 5), outlook.date());
+        assertEquals(Layout.OUTLOOK, outlook.layout());
+
+        Match gmail = ALL.scan("Mar 3, 2024 at 2:05 PM");
+        assertEquals(LocalDateTime.of(2024, 3, 3, 14, 5), gmail.date());
+        assertEquals(Layout.GMAIL, gmail.layout());
+        assertEquals(0, gmail.start());
+
+        // Minuit et midi, abréviation suivie d'un point
+        assertEquals(LocalDateTime.of(2024, 9, 10, 0, 15), date("Sept. 10, 2024 12:15 AM"));
+        assertEquals(LocalDateTime.of(2024, 9, 10, 12, 15), date("Sep 10, 2024 at 12:15 pm"));
+    }
+
+    @Test
+    void readsIsoDatesAsNonHeader() {
+        Match m = ALL.scan("Horodatage : 2024-03-03T14:05:59Z");
+        assertEquals(LocalDateTime.of(2024, 3, 3, 14, 5), m.date());
+        assertEquals(Layout.ISO, m.layout());
+        assertFalse(m.layout().isHeader());
+        assertEquals(LocalDateTime.of(2024, 3, 3, 14, 5), date("2024-03-03 14:05"));
+    }
+
+    /* =========================
+       DATES REJETÉES
+       ========================= */
+    @Test
+    void ignoresImpossibleDates() {
+        assertNull(date("32 mars 2024 à 10:00"));
+        assertNull(date("29 février 2023 à 10:00"));
+        assertEquals(LocalDateTime.of(2024, 2, 29, 10, 0), date("29 février 2024 à 10:00"));
+        assertNull(date("3 mars 2024 à 24:00"));
+        assertNull(date("March 3, 2024 13:05 PM"));
+        assertNull(date("2024-13-01 10:00"));
+    }
+
+    @Test
+    void requiresWholeWordsAndExactDigitCounts() {
+        assertNull(date("3 marsupial 2024 à 10:00"));
+        assertNull(date("mail du 3 mars"));
+        assertNull(date("123 mars 2024 à 10:00"));
+        assertNull(date("3 mars 20245 à 10:00"));
+        assertNull(date("12024-03-03 10:00"));
+        assertNull(date("3 mars 2024 10:00")); // « à » manquant
+        assertNull(date("March 3 2024 2:05 PM")); // virgule manquante
+        assertNull(date(""));
+    }
+
+    /* =========================
+       PRIORITÉS
+       ========================= */
+    @Test
+    void prefersHigherPriorityLayoutOverEarlierMatch() {
+        String text = "Reçu 2024-01-02 08:00, envoyé le 5 janvier 2024 à 10:00, puis le 6 janvier 2024 à 11:00";
+        Match french = new MailDateScanner(List.of(Layout.FRENCH, Layout.ISO)).scan(text);
+        assertEquals(Layout.FRENCH, french.layout());
+        assertEquals(LocalDateTime.of(2024, 1, 5, 10, 0), french.date()); // la première de ce format
+
+        Match iso = new MailDateScanner(List.of(Layout.ISO, Layout.FRENCH)).scan(text);
+        assertEquals(LocalDateTime.of(2024, 1, 2, 8, 0), iso.date());
+
+        // Format prioritaire absent : le suivant
+        assertEquals(Layout.ISO, new MailDateScanner(List.of(Layout.GMAIL, Layout.ISO)).scan(text).layout());
+    }
+
+    @Test
+    void ignoresLayoutsNotRetained() {
+        MailDateScanner frenchOnly = new MailDateScanner(List.of(Layout.FRENCH));
+        assertNull(frenchOnly.scan("2024-03-03 14:05 / March 3, 2024 2:05 PM"));
+        assertEquals(List.of(Layout.FRENCH), frenchOnly.getOrder());
+    }
+}
@@ -0,0 +1,241 @@
+package app.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailboxReaderTest {
+
+    private static final byte[] PDF = "%PDF-1.4\n1 0 obj << >> endobj\n%%EOF\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<MailboxReader.Message> readAll(MailboxReader reader) throws IOException {
+        List<MailboxReader.Message> messages = new ArrayList<>();
+        MailboxReader.Message m;
+        while ((m = reader.next()) != null) messages.add(m);
+        return messages;
+    }
+
+    private static LocalDateTime local(int year, int month, int day, int hour, int minute, int second, ZoneOffset offset) {
+        return ZonedDateTime.of(year, month, day, hour, minute, second, 0, offset)
+                .withZoneSameInstant(ZoneId.systemDefault())
+                .toLocalDateTime();
+    }
+
+    private static String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    /* =========================
+       DÉCOUPAGE
+       ========================= */
+    @Test
+    void mboxSplitsOnFromLinesAfterABlankLine() throws IOException {
+        Path mbox = write("boite.mbox", """
+                From rh@atos.net Tue Jun  4 09:12:45 2024
+                From: "Service RH" <RH@Atos.net>
+                Subject: Votre candidature
+                Date: Tue, 4 Jun 2024 09:12:45 +0200 (CEST)
+
+                Bonjour,
+                >From the team
+                From here on, no separator (pas de ligne vide avant)
+
+                From jobs@thales.fr Wed Jun  5 10:00:00 2024
+                From: jobs@thales.fr
+                Subject: =?utf-8?B?UsOpcG9uc2Ug?= =?utf-8?Q?=C3=A0_votre_candidature?=
+                Date: Wed, 5 Jun 2024 10:00:00 GMT
+
+                Corps
+                """);
+
+        try (MailboxReader reader = new MailboxReader(mbox)) {
+            assertTrue(reader.isMbox());
+            List<MailboxReader.Message> messages = readAll(reader);
+            assertEquals(reader.size(), reader.position());
+
+            assertEquals(2, messages.size());
+            MailboxReader.Message first = messages.get(0);
+            assertEquals("Service RH", first.from());
+            assertEquals("rh@atos.net", first.address());
+            assertEquals("atos.net", first.domain());
+            assertEquals("Votre candidature", first.subject());
+            assertEquals(local(2024, 6, 4, 9, 12, 45, ZoneOffset.ofHours(2)), first.date());
+            assertTrue(first.pdfs().isEmpty());
+
+            MailboxReader.Message second = messages.get(1);
+            assertEquals("jobs@thales.fr", second.from());
+            assertEquals("Réponse à votre candidature", second.subject());
+            assertEquals(local(2024, 6, 5, 10, 0, 0, ZoneOffset.UTC), second.date());
+        }
+    }
+
+    @Test
+    void emlIsASingleMessage() throws IOException {
+        Path eml = write("message.eml", """
+                Subject: Entretien
+                 du 12 juin
+                From: Doctolib <talents@doctolib.fr>
+
+                From the body: not a separator
+                """);
+
+        try (MailboxReader reader = new MailboxReader(eml)) {
+            assertFalse(reader.isMbox());
+            List<MailboxReader.Message> messages = readAll(reader);
+            assertEquals(1, messages.size());
+            assertEquals("Entretien du 12 juin", messages.get(0).subject());
+            assertEquals("Doctolib", messages.get(0).from());
+            assertNull(messages.get(0).date());
+            assertEquals(0, messages.get(0).start());
+            assertEquals(Files.size(eml), messages.get(0).end());
+        }
+    }
+
+    /* =========================
+       PIÈCES JOINTES
+       ========================= */
+    @Test
+    void findsAndDecodesPdfAttachments() throws IOException, NoSuchAlgorithmException {
+        String base64 = Base64.getMimeEncoder().encodeToString(PDF);
+        Path eml = write("pieces.eml", "From: rh@orange.com\r\n"
+                + "Content-Type: multipart/mixed; boundary=\"ext\"\r\n"
+                + "\r\n"
+                + "--ext\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "\r\n"
+                + "Voir pièces jointes.\r\n"
+                + "--ext\r\n"
+                + "Content-Type: multipart/mixed; boundary=int\r\n"
+                + "\r\n"
+                + "--int\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Transfer-Encoding: base64\r\n"
+                + "Content-Disposition: attachment;\r\n"
+                + " filename*=utf-8''Convocation%20%C3%A9crite.pdf\r\n"
+                + "\r\n"
+                + base64 + "\r\n"
+                + "--int--\r\n"
+                + "--ext\r\n"
+                + "Content-Type: application/pdf; name=\"=?iso-8859-1?Q?lettre_d=E9taill=E9e.pdf?=\"\r\n"
+                + "\r\n"
+                + new String(PDF, StandardCharsets.ISO_8859_1)
+                + "\r\n--ext--\r\n");
+
+        try (MailboxReader reader = new MailboxReader(eml)) {
+            MailboxReader.Message m = reader.next();
+            assertEquals(2, m.pdfs().size());
+
+            MailboxReader.Attachment encoded = m.pdfs().get(0);
+            assertEquals("Convocation écrite.pdf", encoded.fileName());
+            assertTrue(encoded.base64());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            reader.copyAttachment(encoded, out);
+            assertArrayEquals(PDF, out.toByteArray());
+            assertEquals(sha256(PDF), reader.sha256(encoded));
+
+            MailboxReader.Attachment raw = m.pdfs().get(1);
+            assertEquals("lettre détaillée.pdf", raw.fileName());
+            assertFalse(raw.base64());
+            out.reset();
+            reader.copyAttachment(raw, out);
+            assertArrayEquals(PDF, out.toByteArray()); // saut de ligne avant le délimiteur exclu
+
+            assertNull(reader.next());
+        }
+    }
+
+    /* =========================
+       VALEURS D'EN-TÊTES
+       ========================= */
+    @Test
+    void decodesEncodedWords() {
+        assertEquals("Candidature reçue", MailboxReader.decodeWords("=?UTF-8?B?Q2FuZGlkYXR1cmUgcmXDp3Vl?="));
+        assertEquals("Réponse à votre candidature",
+                MailboxReader.decodeWords("=?iso-8859-1?q?R=E9ponse_=E0?= =?iso-8859-1?q?_votre_candidature?="));
+        assertEquals("Re: Entretien (fin)", MailboxReader.decodeWords("Re: =?utf-8?Q?Entretien?= (fin)"));
+        // Langue RFC 2231 dans le jeu de caractères, jeu inconnu : UTF-8
+        assertEquals("été", MailboxReader.decodeWords("=?utf-8*fr?Q?=C3=A9t=C3=A9?="));
+        assertEquals("été", MailboxReader.decodeWords("=?x-inconnu?B?w6l0w6k=?="));
+        assertEquals("texte simple", MailboxReader.decodeWords("texte simple"));
+        assertNull(MailboxReader.decodeWords(null));
+    }
+
+    @Test
+    void readsHeaderParameters() {
+        String type = "multipart/mixed; boundary=\"----=_Part_1\"; charset=utf-8";
+        assertEquals("----=_Part_1", MailboxReader.parameter(type, "boundary"));
+        assertEquals("utf-8", MailboxReader.parameter(type, "charset"));
+        assertNull(MailboxReader.parameter(type, "name"));
+
+        // "name" ne doit pas être trouvé dans "filename"
+        assertNull(MailboxReader.parameter("attachment; filename=cv.pdf", "name"));
+        assertEquals("cv.pdf", MailboxReader.parameter("attachment; filename=cv.pdf", "filename"));
+        assertEquals("CV 2024.pdf", MailboxReader.parameter("attachment; FILENAME = \"CV 2024.pdf\"", "filename"));
+
+        // RFC 2231 (valeur étendue, en pourcent) et RFC 2047 (mot encodé entre guillemets)
+        assertEquals("Lettre de motivation – Atos.pdf", MailboxReader.parameter(
+                "attachment; filename*=UTF-8''Lettre%20de%20motivation%20%E2%80%93%20Atos.pdf", "filename"));
+        assertEquals("résumé.pdf", MailboxReader.parameter(
+                "attachment; filename*=iso-8859-1'fr'r%E9sum%E9.pdf", "filename"));
+        assertEquals("réponse.pdf", MailboxReader.parameter(
+                "application/pdf; name=\"=?utf-8?B?csOpcG9uc2UucGRm?=\"", "name"));
+    }
+
+    @Test
+    void extractsSenderAddress() {
+        assertEquals("rh@atos.net", MailboxReader.address("\"Atos, RH\" <RH@Atos.net>"));
+        assertEquals("jobs@thales.fr", MailboxReader.address("jobs@thales.fr (Thales)"));
+        assertEquals("a@b.fr", MailboxReader.address("<a@b.fr>"));
+        assertNull(MailboxReader.address("Service RH"));
+        assertNull(MailboxReader.address("<@b.fr>"));
+        assertNull(MailboxReader.address(null));
+    }
+
+    @Test
+    void parsesDates() {
+        assertEquals(local(2024, 6, 4, 9, 12, 45, ZoneOffset.ofHours(2)),
+                MailboxReader.parseDate("Tue, 4 Jun 2024 09:12:45 +0200 (CEST)"));
+        assertEquals(local(2024, 6, 4, 9, 12, 0, ZoneOffset.ofHours(-5)),
+                MailboxReader.parseDate("4 Jun 24 09:12 EST"));
+        assertEquals(local(2023, 12, 31, 23, 59, 59, ZoneOffset.ofHoursMinutes(-3, -30)),
+                MailboxReader.parseDate("Sun, 31 Dec 2023 23:59:59 -0330"));
+        // Seconde intercalaire ramenée à 59
+        assertEquals(local(2016, 12, 31, 23, 59, 59, ZoneOffset.UTC),
+                MailboxReader.parseDate("31 Dec 2016 23:59:60 +0000"));
+
+        assertNull(MailboxReader.parseDate("31 Jun 2024 10:00:00 +0200"));
+        assertNull(MailboxReader.parseDate("hier soir"));
+        assertNull(MailboxReader.parseDate("4 Jun 2024"));
+        assertNull(MailboxReader.parseDate(null));
+    }
+}
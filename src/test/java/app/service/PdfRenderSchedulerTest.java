@@ -0,0 +1,149 @@
+package app.service;
+
+import app.service.PdfRenderScheduler.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfRenderSchedulerTest {
+
+    // Un seul thread : l'ordre d'exécution est celui de la file
+    private final PdfRenderScheduler scheduler = new PdfRenderScheduler(1, 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        scheduler.close();
+    }
+
+    // Occupe le thread de rendu jusqu'à release : les travaux suivants restent en attente
+    private CompletableFuture<String> block(Priority priority) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> running = scheduler.submit(priority, documents -> {
+            started.countDown();
+            release.await();
+            return "bloquant";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return running;
+    }
+
+    private CompletableFuture<String> submit(Priority priority, String name) {
+        return scheduler.submit(priority, documents -> {
+            order.add(name);
+            return name;
+        });
+    }
+
+    private static <T> T get(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    /* =========================
+       ORDRE
+       ========================= */
+    @Test
+    void visibleBeforePrefetchBeforeBackground() throws Exception {
+        block(Priority.BACKGROUND);
+        CompletableFuture<String> vignette = submit(Priority.BACKGROUND, "vignette");
+        CompletableFuture<String> suivante = submit(Priority.PREFETCH, "suivante");
+        CompletableFuture<String> precedente = submit(Priority.PREFETCH, "précédente");
+        CompletableFuture<String> visible = submit(Priority.VISIBLE, "visible");
+        release.countDown();
+
+        get(vignette);
+        assertEquals("visible", get(visible));
+        assertEquals("suivante", get(suivante));
+        assertEquals("précédente", get(precedente));
+        assertEquals(List.of("visible", "suivante", "précédente", "vignette"), order);
+    }
+
+    /* =========================
+       ANNULATIONS
+       ========================= */
+    @Test
+    void lastVisibleRequestWins() throws Exception {
+        CompletableFuture<String> running = block(Priority.VISIBLE);
+        CompletableFuture<String> first = submit(Priority.VISIBLE, "page 1");
+        CompletableFuture<String> second = submit(Priority.VISIBLE, "page 2");
+        CompletableFuture<String> third = submit(Priority.VISIBLE, "page 3");
+        release.countDown();
+
+        assertEquals("page 3", get(third));
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+        assertEquals("bloquant", get(running)); // déjà lancé : va à son terme
+        assertEquals(List.of("page 3"), order);
+        assertTrue(scheduler.toString().contains("2 annulés"), scheduler.toString());
+    }
+
+    @Test
+    void cancelPrefetchKeepsOtherPriorities() throws Exception {
+        CompletableFuture<String> running = block(Priority.PREFETCH);
+        CompletableFuture<String> prefetch = submit(Priority.PREFETCH, "suivante");
+        CompletableFuture<String> background = submit(Priority.BACKGROUND, "vignette");
+        scheduler.cancelPrefetch();
+        release.countDown();
+
+        assertEquals("vignette", get(background));
+        assertTrue(prefetch.isCancelled());
+        assertFalse(running.isCancelled());
+        assertEquals("bloquant", get(running));
+    }
+
+    @Test
+    void dropsOldestPrefetchBeyondTheBound() throws Exception {
+        block(Priority.VISIBLE);
+        List<CompletableFuture<String>> prefetch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) prefetch.add(submit(Priority.PREFETCH, "page " + i));
+        release.countDown();
+
+        for (int i = 2; i < 10; i++) assertEquals("page " + i, get(prefetch.get(i)));
+        assertTrue(prefetch.get(0).isCancelled());
+        assertTrue(prefetch.get(1).isCancelled());
+        assertEquals(8, order.size());
+        assertTrue(scheduler.toString().contains("2 abandonnés"), scheduler.toString());
+    }
+
+    @Test
+    void closeCancelsPendingJobs() throws Exception {
+        block(Priority.VISIBLE);
+        CompletableFuture<String> pending = submit(Priority.BACKGROUND, "vignette");
+        scheduler.close();
+        release.countDown();
+
+        assertTrue(pending.isCancelled());
+        assertTrue(order.isEmpty());
+    }
+
+    /* =========================
+       ERREURS
+       ========================= */
+    @Test
+    void failuresReachTheCaller() throws Exception {
+        CompletableFuture<String> failed = scheduler.submit(Priority.VISIBLE, documents -> {
+            throw new IOException("PDF illisible");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> get(failed));
+        assertInstanceOf(IOException.class, e.getCause());
+
+        // Le thread de rendu continue
+        assertEquals("suivante", get(submit(Priority.PREFETCH, "suivante")));
+    }
+}